@@ -0,0 +1,151 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen.persistence;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.opennms.topogen.CountingTopologySink;
+import org.opennms.topogen.TopologyGenerator;
+import org.opennms.topogen.TopologySettings;
+import org.opennms.topogen.TopologyTables;
+import org.opennms.topogen.protocol.CdpProtocol;
+import org.opennms.topogen.protocol.IsIsProtocol;
+import org.opennms.topogen.protocol.LldpProtocol;
+import org.opennms.topogen.protocol.OspfProtocol;
+import org.opennms.topogen.protocol.Protocol;
+
+/**
+ * Measures the encoding of one row of each table, either into a no-op {@link PreparedStatement} (the INSERT path) or
+ * into the COPY buffer. The rows (ids, links and interfaces) are taken from generated networks.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RowEncoderBenchmark {
+
+    private final static int ROWS = 1000;
+
+    @Param({"node", "cdpelement", "cdplink", "isiselement", "isislink", "lldpelement", "lldplink", "ospflink",
+            "snmpinterface", "ipinterface"})
+    private String table;
+
+    private Table<Object> selectedTable;
+    private List<Object> rows;
+    private StatementRowWriter statementWriter;
+    private CopyRowWriter copyWriter;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setUp() throws IOException, SQLException {
+        CountingTopologySink sink = new CountingTopologySink(ROWS);
+        TopologySettings settings = TopologySettings.builder()
+                .topology(TopologyGenerator.Topology.random)
+                .amountNodes(ROWS)
+                .amountElements(ROWS)
+                .amountLinks(ROWS)
+                .amountSnmpInterfaces(ROWS)
+                .amountIpInterfaces(ROWS)
+                .build();
+        List<Table<?>> tables = new ArrayList<>(Arrays.asList(TopologyTables.SNMP_INTERFACES,
+                TopologyTables.IP_INTERFACES));
+        for (Protocol<?> protocol : new Protocol<?>[]{new CdpProtocol(settings, sink), new IsIsProtocol(settings, sink),
+                new LldpProtocol(settings, sink), new OspfProtocol(settings, sink)}) {
+            protocol.createAndPersistNetwork();
+            tables.addAll(protocol.getTables());
+        }
+
+        for (Table<?> candidate : tables) {
+            if (selectedTable == null && candidate.getName().equals(table)) {
+                selectedTable = (Table<Object>) candidate;
+            }
+        }
+        rows = sink.getRetained(selectedTable);
+        statementWriter = new StatementRowWriter(noOpPreparedStatement(), new Timestamp(System.currentTimeMillis()));
+        copyWriter = new CopyRowWriter(System.currentTimeMillis());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void fillPreparedStatement() throws SQLException {
+        for (Object row : rows) {
+            statementWriter.nextRow();
+            selectedTable.getEncoder().accept(statementWriter, row);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public int encodeCopyRow() throws SQLException {
+        copyWriter.clear();
+        for (Object row : rows) {
+            selectedTable.getEncoder().accept(copyWriter, row);
+            copyWriter.endRow();
+        }
+        return copyWriter.getLength();
+    }
+
+    private static PreparedStatement noOpPreparedStatement() {
+        return (PreparedStatement) Proxy.newProxyInstance(RowEncoderBenchmark.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                    Class<?> type = method.getReturnType();
+                    if (type == boolean.class) {
+                        return false;
+                    } else if (type == int.class) {
+                        return 0;
+                    } else if (type == long.class) {
+                        return 0L;
+                    }
+                    return null;
+                });
+    }
+}
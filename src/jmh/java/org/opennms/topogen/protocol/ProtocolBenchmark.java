@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen.protocol;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.opennms.topogen.CountingTopologySink;
+import org.opennms.topogen.TopologyGenerator;
+import org.opennms.topogen.TopologySettings;
+
+/**
+ * Measures the creation of a whole network (nodes, elements, links and interfaces) per protocol without a database.
+ * Every node gets an element, a snmp and an ip interface and there are 2 links per node.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx16g")
+public class ProtocolBenchmark {
+
+    @Param({"1000", "100000", "10000000"})
+    private int size;
+
+    @Param({"cdp", "isis", "lldp", "ospf"})
+    private TopologyGenerator.Protocol protocol;
+
+    @Param({"random"})
+    private TopologyGenerator.Topology topology;
+
+    private Protocol<?> network;
+
+    @Setup(Level.Invocation)
+    public void setUp() throws IOException {
+        TopologySettings settings = TopologySettings.builder()
+                .topology(topology)
+                .amountNodes(size)
+                .amountElements(size)
+                .amountLinks(2 * size)
+                .amountSnmpInterfaces(size)
+                .amountIpInterfaces(size)
+                .build();
+        CountingTopologySink sink = new CountingTopologySink();
+        if (TopologyGenerator.Protocol.cdp == protocol) {
+            network = new CdpProtocol(settings, sink);
+        } else if (TopologyGenerator.Protocol.isis == protocol) {
+            network = new IsIsProtocol(settings, sink);
+        } else if (TopologyGenerator.Protocol.lldp == protocol) {
+            network = new LldpProtocol(settings, sink);
+        } else {
+            network = new OspfProtocol(settings, sink);
+        }
+    }
+
+    @Benchmark
+    public void createNetwork() throws SQLException {
+        network.createAndPersistNetwork();
+    }
+}
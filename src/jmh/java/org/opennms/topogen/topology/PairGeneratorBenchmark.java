@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen.topology;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PairGeneratorBenchmark {
+
+    @Param({"1000", "100000", "10000000"})
+    private int size;
+
+    private PairGenerator<Integer> undirected;
+    private PairGenerator<Integer> linked;
+    private RandomConnectedPairGenerator<Integer> randomConnected;
+    private RandomSimplePairGenerator<Integer> randomSimple;
+    private BarabasiAlbertPairGenerator<Integer> scaleFree;
+    private WattsStrogatzPairGenerator<Integer> smallWorld;
+    private final int[] pair = new int[2];
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<Integer> elements = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            elements.add(i);
+        }
+        undirected = new UndirectedPairGenerator<>(elements);
+        linked = new LinkedPairGenerator<>(elements);
+        randomConnected = new RandomConnectedPairGenerator<>(elements, false);
+        randomSimple = new RandomSimplePairGenerator<>(elements);
+        scaleFree = new BarabasiAlbertPairGenerator<>(elements, 2);
+        smallWorld = new WattsStrogatzPairGenerator<>(elements, 2, 0.1);
+    }
+
+    @Benchmark
+    public Pair<Integer, Integer> undirectedPairGenerator() {
+        return undirected.next();
+    }
+
+    @Benchmark
+    public Pair<Integer, Integer> linkedPairGenerator() {
+        return linked.next();
+    }
+
+    @Benchmark
+    public Pair<Integer, Integer> randomConnectedPairGenerator() {
+        return randomConnected.next();
+    }
+
+    @Benchmark
+    public int[] randomConnectedPairGeneratorNextInto() {
+        randomConnected.nextInto(pair);
+        return pair;
+    }
+
+    @Benchmark
+    public int[] randomSimplePairGenerator() {
+        randomSimple.nextInto(pair);
+        return pair;
+    }
+
+    @Benchmark
+    public int[] barabasiAlbertPairGenerator() {
+        scaleFree.nextInto(pair);
+        return pair;
+    }
+
+    @Benchmark
+    public int[] wattsStrogatzPairGenerator() {
+        smallWorld.nextInto(pair);
+        return pair;
+    }
+}
@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.opennms.topogen.persistence.Table;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Doesn't store anything, just counts the rows and optionally keeps the first ones of each table. Useful to measure
+ * the generation on its own and in tests.
+ */
+public class CountingTopologySink implements TopologySink {
+
+    private final static Logger LOG = LoggerFactory.getLogger(CountingTopologySink.class);
+
+    private final int rowsToRetain;
+    private final Map<String, List<Object>> retained = new HashMap<>();
+    private final Map<String, Long> rowsPerTable = new HashMap<>();
+    private long rows = 0;
+
+    public CountingTopologySink() {
+        this(0);
+    }
+
+    public CountingTopologySink(int rowsToRetain) {
+        this.rowsToRetain = rowsToRetain;
+    }
+
+    @Override
+    public synchronized <T> void write(Table<T> table, List<T> elements) {
+        rows += elements.size();
+        rowsPerTable.merge(table.getName(), (long) elements.size(), Long::sum);
+        List<Object> keep = retained.computeIfAbsent(table.getName(), name -> new ArrayList<>());
+        for (int i = 0; i < elements.size() && keep.size() < rowsToRetain; i++) {
+            keep.add(elements.get(i));
+        }
+    }
+
+    public synchronized long getRows() {
+        return rows;
+    }
+
+    public synchronized long getRows(Table<?> table) {
+        return rowsPerTable.getOrDefault(table.getName(), 0L);
+    }
+
+    @Override
+    public synchronized void close() {
+        LOG.info("counted {} rows: {}", rows, rowsPerTable);
+    }
+
+    @SuppressWarnings("unchecked")
+    public synchronized <T> List<T> getRetained(Table<T> table) {
+        return new ArrayList<>((List<T>) retained.getOrDefault(table.getName(), new ArrayList<>()));
+    }
+}
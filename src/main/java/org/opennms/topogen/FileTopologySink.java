@@ -0,0 +1,184 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import org.opennms.topogen.persistence.BufferedRowWriter;
+import org.opennms.topogen.persistence.CopyFormat;
+import org.opennms.topogen.persistence.ExportManifest;
+import org.opennms.topogen.persistence.Table;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes every table into its own file in a format of the Postgres COPY command (text, csv or binary), e.g. node.copy,
+ * optionally gzipped.
+ * On close a {@link ExportManifest} is written next to the files, the export can then be loaded into any number of
+ * databases with --import, or by hand with {@code \copy node (nodeid, ...) FROM 'node.copy'}.
+ */
+public class FileTopologySink implements TopologySink {
+
+    private final static Logger LOG = LoggerFactory.getLogger(FileTopologySink.class);
+    private final static int BUFFER_SIZE = 256 * 1024;
+
+    private final Path directory;
+    private final CopyFormat format;
+    private final boolean gzip;
+    private final long now = System.currentTimeMillis();
+    private final Map<String, TableFile> files = new LinkedHashMap<>();
+
+    /** every table has its own buffer, so that several protocols can write their tables concurrently */
+    private class TableFile {
+        private final Table<?> table;
+        private final String name;
+        private final WritableByteChannel channel;
+        private final BufferedRowWriter row;
+        private long rows = 0;
+
+        private TableFile(Table<?> table, String name, WritableByteChannel channel) {
+            this.table = table;
+            this.name = name;
+            this.channel = channel;
+            this.row = format.createRowWriter(table, now, BUFFER_SIZE + 4 * 1024);
+        }
+    }
+
+    public FileTopologySink(Path directory) throws IOException {
+        this(directory, CopyFormat.text, false);
+    }
+
+    public FileTopologySink(Path directory, CopyFormat format, boolean gzip) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.format = format;
+        this.gzip = gzip;
+    }
+
+    public String getFileName(Table<?> table) {
+        return table.getName() + "." + format.getFileExtension() + (gzip ? ".gz" : "");
+    }
+
+    @Override
+    public <T> void write(Table<T> table, List<T> elements) throws SQLException {
+        try {
+            TableFile file = getFile(table);
+            synchronized (file) {
+                BufferedRowWriter row = file.row;
+                for (T element : elements) {
+                    table.getEncoder().accept(row, element);
+                    row.endRow();
+                    if (row.getLength() >= BUFFER_SIZE) {
+                        flush(file);
+                    }
+                }
+                flush(file);
+                file.rows += elements.size();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("writing of " + table.getName() + " failed", e);
+        }
+    }
+
+    private synchronized TableFile getFile(Table<?> table) throws IOException {
+        TableFile file = files.get(table.getName());
+        if (file == null) {
+            file = open(table);
+            files.put(table.getName(), file);
+        }
+        return file;
+    }
+
+    private TableFile open(Table<?> table) throws IOException {
+        String name = getFileName(table);
+        FileChannel channel = FileChannel.open(directory.resolve(name), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        WritableByteChannel out = gzip
+                ? Channels.newChannel(new GZIPOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE))
+                : channel;
+        byte[] header = format.getHeader();
+        write(out, header, header.length);
+        return new TableFile(table, name, out);
+    }
+
+    /** the row writer is our buffer: it is handed over in one piece */
+    private void flush(TableFile file) throws IOException {
+        write(file.channel, file.row.getBuffer(), file.row.getLength());
+        file.row.clear();
+    }
+
+    private static void write(WritableByteChannel channel, byte[] bytes, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, length);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        IOException failure = null;
+        List<ExportManifest.Entry> entries = new ArrayList<>();
+        for (TableFile file : files.values()) {
+            try {
+                byte[] trailer = format.getTrailer();
+                write(file.channel, trailer, trailer.length);
+                file.channel.close();
+                entries.add(new ExportManifest.Entry(file.table.getName(), file.name, file.rows,
+                        file.table.getColumns()));
+                LOG.info("wrote {} rows to {}", file.rows, directory.resolve(file.name));
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        files.clear();
+        try {
+            if (failure == null) {
+                new ExportManifest(format, gzip, entries).write(directory);
+            }
+        } catch (IOException e) {
+            failure = e;
+        }
+        if (failure != null) {
+            throw new UncheckedIOException("closing of files in " + directory + " failed", failure);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen;
+
+import org.opennms.topogen.ir.IdRange;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * Shard k of n owns the k-th of n contiguous slices of the node ids, and with them the elements, links and interfaces
+ * of these nodes. All shards derive the same topology from the same settings, so a link can reference its remote
+ * link and node in another shard without any coordination, and several processes can fill one database concurrently.
+ */
+@Getter
+@EqualsAndHashCode
+public class Shard {
+
+    /** the only shard of a process that creates the whole topology */
+    public final static Shard ALL = new Shard(1, 1);
+
+    /** counts from 1 */
+    private final int index;
+    private final int count;
+
+    public Shard(int index, int count) {
+        if (count < 1 || index < 1 || index > count) {
+            throw new IllegalArgumentException("shard must be k/n with 1 <= k <= n but was " + index + "/" + count);
+        }
+        this.index = index;
+        this.count = count;
+    }
+
+    /** @param shard e.g. 2/4 for the second of 4 shards */
+    public static Shard parse(String shard) {
+        String[] parts = shard.split("/");
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("shard must be k/n, e.g. 2/4, but was " + shard);
+        }
+        try {
+            return new Shard(Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("shard must be k/n, e.g. 2/4, but was " + shard, e);
+        }
+    }
+
+    /** the ids of [0, amount) that belong to this shard, the slices of all shards are disjoint and cover all ids */
+    public IdRange slice(int amount) {
+        return new IdRange(boundary(amount, index - 1), boundary(amount, index));
+    }
+
+    public boolean isAll() {
+        return count == 1;
+    }
+
+    private int boundary(int amount, int shard) {
+        return (int) ((long) amount * shard / count);
+    }
+
+    @Override
+    public String toString() {
+        return index + "/" + count;
+    }
+}
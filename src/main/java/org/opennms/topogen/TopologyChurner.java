@@ -0,0 +1,340 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.opennms.topogen.ir.IdRange;
+import org.opennms.topogen.ir.LinkChunk;
+import org.opennms.topogen.ir.LinkRow;
+import org.opennms.topogen.persistence.Table;
+import org.opennms.topogen.protocol.Protocol;
+import org.opennms.topogen.util.RandomStreams;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Changes an existing topology at a target rate instead of creating a new one: adds nodes with their elements, adds
+ * and deletes links (both links of a pair) and polls links again by updating their last poll time. The ids continue
+ * after the largest ones in the database, new elements get the id of their node and links stay pairs with an even id
+ * for the source - the database is expected to contain a topology created by this tool.
+ */
+public class TopologyChurner {
+
+    private final static Logger LOG = LoggerFactory.getLogger(TopologyChurner.class);
+
+    public enum Change {
+        node, link, delete, update
+    }
+
+    public final static String DEFAULT_MIX = "node=1,link=9,delete=10,update=80";
+
+    /** the changes of a tick are applied with one statement (or batch) per kind and table */
+    private final static long TICK_NANOS = 100_000_000L;
+    private final static long REPORT_NANOS = 10_000_000_000L;
+
+    private final TopologyPersister persister;
+    private final int[] cumulativeWeights;
+    private final int rate;
+    private final SplittableRandom random;
+    private final List<ProtocolState> protocols = new ArrayList<>();
+    private final long[] changes = new long[Change.values().length];
+    private long changedRows = 0;
+    private int firstNewNodeId;
+    private int nextNodeId;
+
+    /** what we know about the tables of one protocol */
+    private class ProtocolState {
+        private final Protocol<?> protocol;
+        private final Table<LinkRow> links;
+        private final Table<Integer> elements;
+        private final String pollTimeColumn;
+        /** the existing vertices have the ids 0..amountExistingVertices-1, see {@link #readExistingIds()} */
+        private int amountExistingVertices;
+        private int nextLinkId;
+
+        private ProtocolState(Protocol<?> protocol) {
+            this.protocol = protocol;
+            this.links = protocol.getLinkTable();
+            this.elements = protocol.getElementTable();
+            this.pollTimeColumn = getPollTimeColumn(links);
+        }
+
+        /** the vertices are the existing elements (or nodes) and the ones of the new nodes */
+        private int amountVertices() {
+            return amountExistingVertices + nextNodeId - firstNewNodeId;
+        }
+
+        private int vertex(int index) {
+            return index < amountExistingVertices ? index : firstNewNodeId + index - amountExistingVertices;
+        }
+    }
+
+    public TopologyChurner(TopologyPersister persister, List<Protocol<?>> protocols, String mix, int rate, long seed) {
+        if (rate < 1) {
+            throw new IllegalArgumentException("rate must be at least 1 but was " + rate);
+        }
+        this.persister = persister;
+        this.cumulativeWeights = cumulate(parseMix(mix));
+        this.rate = rate;
+        this.random = new RandomStreams(seed).stream(RandomStreams.Purpose.CHANGES);
+        for (Protocol<?> protocol : protocols) {
+            this.protocols.add(new ProtocolState(protocol));
+        }
+    }
+
+    /** @param durationInSeconds 0 to run until the process is stopped */
+    public void run(long durationInSeconds) throws SQLException {
+        readExistingIds();
+        LOG.info("changing the topology with {} changes/sec for {}", rate,
+                durationInSeconds == 0 ? "ever" : durationInSeconds + " sec");
+        long start = System.nanoTime();
+        long lastReport = start;
+        long appliedChanges = 0;
+        long reportedChanges = 0;
+        while (durationInSeconds == 0 || System.nanoTime() - start < durationInSeconds * 1_000_000_000L) {
+            long tickStart = System.nanoTime();
+            long dueChanges = (long) ((tickStart - start) / 1e9 * rate) - appliedChanges;
+            // after a stall we catch up with at most one second of changes at once
+            int amount = (int) Math.min(dueChanges, rate);
+            if (amount > 0) {
+                apply(amount);
+                appliedChanges += amount;
+            }
+            long now = System.nanoTime();
+            if (now - lastReport >= REPORT_NANOS) {
+                LOG.info("applied {} changes in {} ms ({} changes/sec), in total: {} ({} rows)",
+                        appliedChanges - reportedChanges, (now - lastReport) / 1_000_000,
+                        (appliedChanges - reportedChanges) * 1_000_000_000L / (now - lastReport), describeChanges(),
+                        changedRows);
+                lastReport = now;
+                reportedChanges = appliedChanges;
+            }
+            if (!sleep(TICK_NANOS - (now - tickStart))) {
+                break;
+            }
+        }
+        LOG.info("applied {} changes in {} ms: {} ({} rows)", appliedChanges, (System.nanoTime() - start) / 1_000_000,
+                describeChanges(), changedRows);
+    }
+
+    /**
+     * The existing vertices are taken as the ids from 0 up to the largest one without gaps, as this tool creates them:
+     * the element of node i has the id i and the nodes count from 0. Elements or nodes that were deleted in between
+     * would still be picked as vertices of new links.
+     */
+    private void readExistingIds() throws SQLException {
+        int maxId = persister.getMaxId(Protocol.NODES);
+        for (ProtocolState state : protocols) {
+            if (state.elements != null) {
+                int maxElementId = persister.getMaxId(state.elements);
+                state.amountExistingVertices = maxElementId + 1;
+                maxId = Math.max(maxId, maxElementId);
+            }
+            state.nextLinkId = nextPairId(persister.getMaxId(state.links));
+        }
+        firstNewNodeId = maxId + 1;
+        nextNodeId = firstNewNodeId;
+        for (ProtocolState state : protocols) {
+            if (state.elements == null) {
+                state.amountExistingVertices = firstNewNodeId; // linked nodes
+            }
+            LOG.info("{}: {} existing {}, links continue with id {}", state.protocol.getProtocol(),
+                    state.amountExistingVertices, state.elements == null ? "nodes" : "elements", state.nextLinkId);
+        }
+    }
+
+    /** applies the given amount of randomly chosen changes, each one except new nodes to a random protocol */
+    private void apply(int amount) throws SQLException {
+        int newNodes = 0;
+        int[][] perProtocol = new int[protocols.size()][Change.values().length];
+        for (int i = 0; i < amount; i++) {
+            Change change = nextChange();
+            changes[change.ordinal()]++;
+            if (Change.node == change) {
+                newNodes++;
+            } else {
+                perProtocol[random.nextInt(protocols.size())][change.ordinal()]++;
+            }
+        }
+        if (newNodes > 0) {
+            addNodes(newNodes);
+        }
+        long now = System.currentTimeMillis();
+        for (int p = 0; p < protocols.size(); p++) {
+            ProtocolState state = protocols.get(p);
+            int[] amounts = perProtocol[p];
+            if (amounts[Change.link.ordinal()] > 0) {
+                addLinks(state, amounts[Change.link.ordinal()]);
+            }
+            if (amounts[Change.delete.ordinal()] > 0) {
+                changedRows += persister.deleteByIds(state.links, randomPairIds(state, amounts[Change.delete.ordinal()]));
+            }
+            if (amounts[Change.update.ordinal()] > 0) {
+                changedRows += persister.updateTimestamps(state.links, state.pollTimeColumn,
+                        randomLinkIds(state, amounts[Change.update.ordinal()]), now);
+            }
+        }
+    }
+
+    private void addNodes(int amount) throws SQLException {
+        IdRange ids = new IdRange(nextNodeId, nextNodeId + amount);
+        persister.writeChanges(Protocol.NODES, ids);
+        for (ProtocolState state : protocols) {
+            if (state.elements != null) {
+                persister.writeChanges(state.elements, ids);
+            }
+        }
+        nextNodeId += amount;
+        changedRows += amount;
+    }
+
+    private void addLinks(ProtocolState state, int amountPairs) throws SQLException {
+        int vertices = state.amountVertices();
+        if (vertices < 2) {
+            return; // nothing to link
+        }
+        LinkChunk chunk = new LinkChunk(state.nextLinkId, 2 * amountPairs);
+        for (int i = 0; i < amountPairs; i++) {
+            int left = random.nextInt(vertices);
+            int right = random.nextInt(vertices - 1);
+            if (right >= left) {
+                right++;
+            }
+            chunk.addPair(state.vertex(left), state.vertex(right));
+        }
+        persister.writeChanges(state.links, chunk.rows());
+        state.nextLinkId += chunk.size();
+        changedRows += chunk.size();
+    }
+
+    /** the ids of both links of random pairs, pairs that were deleted before are ignored by the database */
+    private int[] randomPairIds(ProtocolState state, int amountPairs) {
+        int[] ids = new int[2 * amountPairs];
+        int pairs = Math.max(1, state.nextLinkId / 2);
+        for (int i = 0; i < amountPairs; i++) {
+            int pair = random.nextInt(pairs);
+            ids[2 * i] = 2 * pair;
+            ids[2 * i + 1] = 2 * pair + 1;
+        }
+        return ids;
+    }
+
+    private int[] randomLinkIds(ProtocolState state, int amount) {
+        int[] ids = new int[amount];
+        for (int i = 0; i < amount; i++) {
+            ids[i] = random.nextInt(Math.max(1, state.nextLinkId));
+        }
+        return ids;
+    }
+
+    private Change nextChange() {
+        int value = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (value < cumulativeWeights[i]) {
+                return Change.values()[i];
+            }
+        }
+        throw new IllegalStateException("no change for " + value);
+    }
+
+    private String describeChanges() {
+        StringBuilder description = new StringBuilder();
+        for (Change change : Change.values()) {
+            description.append(description.length() == 0 ? "" : ", ").append(change).append('=')
+                    .append(changes[change.ordinal()]);
+        }
+        return description.toString();
+    }
+
+    /** @return false if interrupted */
+    private static boolean sleep(long nanos) {
+        if (nanos <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(nanos / 1_000_000, (int) (nanos % 1_000_000));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /** the first id of a new pair after the given largest id: pairs start with an even id */
+    static int nextPairId(int maxId) {
+        return (maxId + 2) & ~1;
+    }
+
+    static String getPollTimeColumn(Table<?> table) {
+        for (String column : table.getColumns()) {
+            if (column.toLowerCase().endsWith("lastpolltime")) {
+                return column;
+            }
+        }
+        throw new IllegalArgumentException("table " + table.getName() + " has no last poll time column");
+    }
+
+    /**
+     * Parses weights per change like node=1,link=9,delete=10,update=80, changes that are not mentioned don't happen.
+     * @return the weights indexed by the ordinal of the change
+     */
+    public static int[] parseMix(String mix) {
+        int[] weights = new int[Change.values().length];
+        for (String part : mix.split(",")) {
+            String[] weight = part.split("=");
+            if (weight.length != 2) {
+                throw new IllegalArgumentException("expected a mix like " + DEFAULT_MIX + " but was " + mix);
+            }
+            int value = Integer.parseInt(weight[1].trim());
+            if (value < 0) {
+                throw new IllegalArgumentException("weight must not be negative but was " + part);
+            }
+            weights[Change.valueOf(weight[0].trim()).ordinal()] = value;
+        }
+        if (Arrays.stream(weights).sum() == 0) {
+            throw new IllegalArgumentException("at least one change needs a weight but was " + mix);
+        }
+        return weights;
+    }
+
+    private static int[] cumulate(int[] weights) {
+        int[] cumulative = new int[weights.length];
+        int sum = 0;
+        for (int i = 0; i < weights.length; i++) {
+            sum += weights[i];
+            cumulative[i] = sum;
+        }
+        return cumulative;
+    }
+}
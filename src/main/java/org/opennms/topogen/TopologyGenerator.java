@@ -31,15 +31,32 @@ package org.opennms.topogen;
 import static org.kohsuke.args4j.OptionHandlerFilter.ALL;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 
 import org.kohsuke.args4j.CmdLineException;
 import org.kohsuke.args4j.CmdLineParser;
 import org.kohsuke.args4j.Option;
+import org.opennms.topogen.graph.BinaryEdgeListWriter;
+import org.opennms.topogen.graph.GraphMlWriter;
+import org.opennms.topogen.graph.GraphWriter;
+import org.opennms.topogen.ir.InterfaceLayout;
+import org.opennms.topogen.persistence.CopyFormat;
+import org.opennms.topogen.persistence.DroppedConstraints;
+import org.opennms.topogen.persistence.Retries;
 import org.opennms.topogen.protocol.CdpProtocol;
 import org.opennms.topogen.protocol.IsIsProtocol;
 import org.opennms.topogen.protocol.LldpProtocol;
 import org.opennms.topogen.protocol.OspfProtocol;
+import org.opennms.topogen.protocol.ProtocolGroup;
+import org.opennms.topogen.util.InetAddressGenerator;
+import org.opennms.topogen.util.Phases;
+import org.opennms.topogen.util.RandomStreams;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -50,35 +67,159 @@ public class TopologyGenerator {
     private final static Logger LOG = LoggerFactory.getLogger(TopologyGenerator.class);
 
     public enum Topology{
-        ring, random, complete
+        ring, random, complete, random_simple, scale_free, small_world;
+
+        /** accepts the names as used on the command line, e.g. random-simple */
+        public static Topology parse(String name) {
+            return valueOf(name.replace('-', '_'));
+        }
     }
 
     public enum Protocol{
-        cdp, isis, lldp, ospf
+        cdp, isis, lldp, ospf;
+
+        /** accepts a comma separated list, e.g. lldp,cdp,ospf - every protocol once, in the given order */
+        public static List<Protocol> parseList(String names) {
+            Set<Protocol> protocols = new LinkedHashSet<>();
+            for (String name : names.split(",")) {
+                protocols.add(valueOf(name.trim()));
+            }
+            return new ArrayList<>(protocols);
+        }
+    }
+
+    public enum Loader{
+        insert, copy, unnest
     }
 
-    private TopologyPersister persister;
+    public enum Sink{
+        postgres, file, none
+    }
+
+    public enum GraphFormat{
+        graphml, edgelist
+    }
+
+    /** if not set, the sink is created according to the options */
+    private TopologySink sink;
     @Option(name="--nodes",usage="generate <N> OmnsNodes")
+    @Setter
     private int amountNodes = 10;
     @Option(name="--elements",usage="generate <N> CdpElements")
     private int amountElements = -1;
     @Option(name="--links",usage="generate <N> CdpLinks")
+    @Setter
     private int amountLinks = -1;
     @Option(name="--snmpinterfaces",usage="generate <N> SnmpInterfaces but not more than amount nodes")
+    @Setter
     private int amountSnmpInterfaces = 0;
     @Option(name="--ipinterfaces",usage="generate <N> IpInterfaces but not more than amount snmp interfaces")
+    @Setter
     private int amountIpInterfaces = 0;
-    @Option(name="--topology",usage="type of topology (complete | ring | random)")
+    @Option(name="--interfacespernode",usage="give every node <N> or <MIN>-<MAX> snmp interfaces that the links use as ports, --ipinterfaces then counts the interfaces of all nodes")
+    @Setter
+    private String interfacesPerNode = "";
+    @Option(name="--topology",usage="type of topology (complete | ring | random | random-simple | scale-free | small-world)")
     @Setter
     private String topology = "random";
-    @Option(name="--protocol",usage="type of protocol (cdp | isis | lldp | ospf)")
+    @Option(name="--rewiring",usage="probability to rewire an edge of the small-world topology (0.0 - 1.0)")
+    @Setter
+    private double rewiringProbability = TopologySettings.DEFAULT_REWIRING_PROBABILITY;
+    @Option(name="--protocol",usage="type of protocol (cdp | isis | lldp | ospf), several separated by comma share the nodes, e.g. lldp,cdp,ospf")
     @Setter
     private String protocol = "cdp";
+    @Option(name="--sink",usage="where the topology is written to (postgres | file | none), none only counts the rows")
+    @Setter
+    private String sinkType = "postgres";
+    @Option(name="--output",usage="directory the file sink writes to")
+    @Setter
+    private String output = "topology";
+    @Option(name="--format",usage="format of the files of the file sink (text | csv | binary)")
+    @Setter
+    private String format = "text";
+    @Option(name="--gzip",usage="compress the files of the file sink with gzip")
+    @Setter
+    private boolean gzip = false;
+    @Option(name="--graph",usage="instead of generating a topology only write its structure to <FILE>")
+    @Setter
+    private String graphFile;
+    @Option(name="--graphformat",usage="format of the --graph file (graphml | edgelist), edgelist is a binary list of int pairs")
+    @Setter
+    private String graphFormat = "graphml";
+    @Option(name="--import",usage="instead of generating a topology load the files of a file sink export from <DIR>")
+    @Setter
+    private String importDirectory;
+    @Option(name="--churn",usage="instead of creating a topology change the existing one: add nodes and links, delete links and update the poll time of links")
+    @Setter
+    private boolean churn = false;
+    @Option(name="--churnrate",usage="apply <N> changes per second in --churn mode")
+    @Setter
+    private int churnRate = 1000;
+    @Option(name="--churnduration",usage="stop the --churn mode after <N> seconds, 0 runs until the process is stopped")
+    @Setter
+    private long churnDuration = 60;
+    @Option(name="--churnmix",usage="weights of the changes in --churn mode, e.g. node=1,link=9,delete=10,update=80")
+    @Setter
+    private String churnMix = TopologyChurner.DEFAULT_MIX;
+    @Option(name="--shard",usage="create only shard <K>/<N> of the topology, e.g. 2/4, the other shards can be created concurrently by other processes")
+    @Setter
+    private String shard = Shard.ALL.toString();
+    @Option(name="--checkpoint",usage="record the committed batches, so a creation that fails can be continued with --resume")
+    @Setter
+    private boolean checkpoint = false;
+    @Option(name="--resume",usage="continue a creation that failed: create the same topology again (same parameters and seed) but skip the rows that are committed already")
+    @Setter
+    private boolean resume = false;
+    @Option(name="--retries",usage="retry a batch <N> times after a transient database error, e.g. a lost connection")
+    @Setter
+    private int retries = Retries.DEFAULT_RETRIES;
     @Option(name="--delete",usage="delete existing toplogogy (all OnmsNodes, CdpElements and CdpLinks)")
     private boolean deleteExistingTolology = false;
+    @Option(name="--truncate",usage="delete existing topology with TRUNCATE, faster than --delete but also empties all tables that reference nodes")
+    @Setter
+    private boolean truncateExistingTopology = false;
+    @Option(name="--bulk",usage="drop secondary indexes and foreign keys of link and interface tables while loading and rebuild them afterwards")
+    @Setter
+    private boolean bulk = false;
+    @Option(name="--batchsize",usage="insert <N> rows per batch and transaction")
+    @Setter
+    private int batchSize = TopologyPersister.DEFAULT_BATCH_SIZE;
+    @Option(name="--loader",usage="how rows are loaded into the database (insert | copy | unnest)")
+    @Setter
+    private String loader = "insert";
+    @Option(name="--writers",usage="insert with <N> concurrent database connections")
+    @Setter
+    private int writers = 1;
+    @Option(name="--rate",usage="insert at most <N> rows per second over all writers, 0 is unlimited")
+    @Setter
+    private int rate = 0;
+    @Option(name="--metricsport",usage="serve the load metrics for Prometheus at http://localhost:<PORT>/metrics, 0 is off")
+    @Setter
+    private int metricsPort = 0;
+    @Option(name="--chunksize",usage="create <N> links before handing them over to the database, bounds the memory usage")
+    @Setter
+    private int chunkSize = TopologySettings.DEFAULT_CHUNK_SIZE;
+    @Option(name="--seed",usage="seed for all random decisions, the same seed creates the same topology")
+    @Setter
+    private long seed = RandomStreams.DEFAULT_SEED;
+    @Option(name="--linkpool",usage="address pool for the point-to-point subnets of links, e.g. 10.0.0.0/8 or fd00::/64")
+    @Setter
+    private String linkPool = TopologySettings.DEFAULT_LINK_POOL;
+    @Option(name="--linkprefix",usage="prefix length of the point-to-point subnets of links (30 | 31 | 126 | 127)")
+    @Setter
+    private int linkPrefixLength = TopologySettings.DEFAULT_LINK_PREFIX_LENGTH;
+    @Option(name="--routeridpool",usage="IPv4 address pool for the router ids of the nodes")
+    @Setter
+    private String routerIdPool = TopologySettings.DEFAULT_ROUTER_ID_POOL;
+    @Option(name="--interfacepool",usage="address pool for the ip interfaces")
+    @Setter
+    private String interfacePool = TopologySettings.DEFAULT_INTERFACE_POOL;
+
+    public TopologyGenerator() {
+    }
 
-    public TopologyGenerator(TopologyPersister persister) throws IOException {
-        this.persister = persister;
+    public TopologyGenerator(TopologySink sink) throws IOException {
+        this.sink = sink;
     }
 
     void assertSetup() {
@@ -88,41 +229,237 @@ public class TopologyGenerator {
         if(amountLinks == -1){
             amountLinks = 2 * amountNodes;
         }
-        this.amountSnmpInterfaces = Math.min(amountSnmpInterfaces, this.amountNodes);
-        this.amountIpInterfaces = Math.min(amountIpInterfaces, amountSnmpInterfaces);
+        if (interfacesPerNode.isEmpty()) {
+            this.amountSnmpInterfaces = Math.min(amountSnmpInterfaces, this.amountNodes);
+            this.amountIpInterfaces = Math.min(amountIpInterfaces, amountSnmpInterfaces);
+        } else {
+            InterfaceLayout.parse(interfacesPerNode); // check if valid parameter
+        }
 
         // do basic checks to get configuration right:
         assertMoreOrEqualsThan("we need at least as many nodes as elements", amountElements, amountNodes);
         assertMoreOrEqualsThan("we need at least 2 nodes", 2, amountNodes);
         assertMoreOrEqualsThan("we need at least 2 elements", 2, amountElements);
         assertMoreOrEqualsThan("we need at least 1 link", 1, amountLinks);
+        assertMoreOrEqualsThan("we need a batch size of at least 1", 1, batchSize);
+        assertMoreOrEqualsThan("we need a chunk size of at least 1", 1, chunkSize);
+        assertMoreOrEqualsThan("we need at least 1 writer", 1, writers);
+        assertMoreOrEqualsThan("we need at least 1 change per second", 1, churnRate);
+        if (rate < 0) {
+            throw new IllegalArgumentException("rate must not be negative but was " + rate);
+        }
+        if (metricsPort < 0 || metricsPort > 65535) {
+            throw new IllegalArgumentException("metrics port must be between 0 and 65535 but was " + metricsPort);
+        }
+        if (churnDuration < 0) {
+            throw new IllegalArgumentException("churn duration must not be negative but was " + churnDuration);
+        }
+        TopologyChurner.parseMix(churnMix); // check if valid parameter
+        if (rewiringProbability < 0 || rewiringProbability > 1) {
+            throw new IllegalArgumentException("rewiring probability must be between 0 and 1 but was " + rewiringProbability);
+        }
+
+        // the addresses are derived from the ids while loading, a pool that is too small must not fail half way
+        long pairs = (amountLinks + 1L) / 2;
+        // also checks if valid parameters:
+        long amountSubnets = new InetAddressGenerator(linkPool).getAmountPointToPoint(linkPrefixLength);
+        InetAddressGenerator routerIds = new InetAddressGenerator(routerIdPool);
+        if (!routerIds.isIpv4()) {
+            throw new IllegalArgumentException("router ids must be IPv4 addresses but pool was " + routerIdPool);
+        }
+        if (Protocol.parseList(protocol).contains(Protocol.ospf)) {
+            assertPoolHolds(linkPool, pairs + " point-to-point subnets of /" + linkPrefixLength + " for " + amountLinks
+                    + " links", pairs, amountSubnets);
+            assertPoolHolds(routerIdPool, amountNodes + " router ids", amountNodes, routerIds.getCapacity() - 1);
+        }
+        long ipInterfaces = amountIpInterfaces;
+        if (!interfacesPerNode.isEmpty()) {
+            // the ip interfaces are the first of all interfaces, in the same layout as the protocols create it
+            int[] range = InterfaceLayout.parse(interfacesPerNode);
+            ipInterfaces = Math.min(amountIpInterfaces, new InterfaceLayout(amountNodes, range[0], range[1],
+                    new RandomStreams(seed)).getAmountInterfaces());
+        }
+        // the network address is skipped
+        assertPoolHolds(interfacePool, ipInterfaces + " ip interfaces", ipInterfaces,
+                new InetAddressGenerator(interfacePool).getCapacity() - 1);
+        Topology.parse(topology); // check if valid parameter
+        if (Protocol.parseList(protocol).size() > 1 && graphFile != null) { // also checks if valid parameter
+            throw new IllegalArgumentException("the graph can be exported for one protocol only but got " + protocol);
+        }
+        if (Topology.random_simple == Topology.parse(topology)) {
+            for (Protocol each : Protocol.parseList(protocol)) {
+                int vertices = Protocol.ospf == each ? amountNodes : amountElements; // ospf links the nodes directly
+                long possiblePairs = (long) vertices * (vertices - 1) / 2;
+                if ((amountLinks + 1L) / 2 > possiblePairs) {
+                    throw new IllegalArgumentException(String.format("the random-simple topology has at most %s pairs "
+                            + "of links between %s vertices without duplicates but %s links need %s pairs for %s",
+                            possiblePairs, vertices, amountLinks, (amountLinks + 1L) / 2, each));
+                }
+            }
+        }
+        if (!Shard.parse(shard).isAll() && (deleteExistingTolology || truncateExistingTopology || bulk || churn
+                || importDirectory != null || graphFile != null)) { // also checks if valid parameter
+            throw new IllegalArgumentException("a shard can only create its part of the topology, clear the database "
+                    + "before starting the shards and don't combine --shard with --delete, --truncate, --bulk, --churn, "
+                    + "--import or --graph");
+        }
+        if (resume && (deleteExistingTolology || truncateExistingTopology || churn || importDirectory != null
+                || graphFile != null || (sink == null && Sink.postgres != Sink.valueOf(sinkType)))) {
+            throw new IllegalArgumentException("--resume continues to create a topology in the database, it can't be "
+                    + "combined with --delete, --truncate, --churn, --import, --graph or another sink than postgres");
+        }
+        if (checkpoint && (churn || importDirectory != null || graphFile != null
+                || (sink == null && Sink.postgres != Sink.valueOf(sinkType)))) {
+            throw new IllegalArgumentException("--checkpoint records the creation of a topology in the database, it "
+                    + "can't be combined with --churn, --import, --graph or another sink than postgres");
+        }
+        new Retries(retries); // check if valid parameter
+        Loader.valueOf(loader); // check if valid parameter
+        Sink.valueOf(sinkType); // check if valid parameter
+        CopyFormat.valueOf(format); // check if valid parameter
+        GraphFormat.valueOf(graphFormat); // check if valid parameter
+    }
 
-        Topology.valueOf(topology); // check if valid parameter
-        Protocol.valueOf(protocol); // check if valid parameter
+    private void exportGraph() throws Exception {
+        Path file = Paths.get(graphFile);
+        long start = System.nanoTime();
+        try (GraphWriter graph = GraphFormat.edgelist == GraphFormat.valueOf(graphFormat)
+                ? new BinaryEdgeListWriter(file) : new GraphMlWriter(file)) {
+            getProtocols(new CountingTopologySink()).get(0).exportGraph(graph);
+        }
+        LOG.info("writing the graph to {} took {} ms", file, (System.nanoTime() - start) / 1_000_000);
     }
 
-    private void createNetwork() throws SQLException {
-        if(deleteExistingTolology){
-            this.persister.deleteTopology();
+    private void importNetwork() throws Exception {
+        try (TopologyPersister persister = new TopologyPersister()) {
+            DroppedConstraints dropped = prepareDatabase(persister);
+            try {
+                persister.importTopology(Paths.get(importDirectory));
+            } finally {
+                if (dropped != null) {
+                    dropped.restore();
+                }
+            }
         }
-        getProtocol().createAndPersistNetwork();
     }
 
-    private org.opennms.topogen.protocol.Protocol getProtocol(){
-        if(Protocol.cdp.name().equals(this.protocol)){
-            return new CdpProtocol( Topology.valueOf(topology),
-                    amountNodes, amountLinks, amountElements, amountSnmpInterfaces, amountIpInterfaces, persister);
-        } else if (Protocol.isis.name().equals(this.protocol)) {
-            return new IsIsProtocol( Topology.valueOf(topology),
-                    amountNodes, amountLinks, amountElements, amountSnmpInterfaces, amountIpInterfaces, persister);
-        } else if (Protocol.lldp.name().equals(this.protocol)) {
-            return new LldpProtocol( Topology.valueOf(topology),
-                    amountNodes, amountLinks, amountElements, amountSnmpInterfaces, amountIpInterfaces, persister);
-        } else if (Protocol.ospf.name().equals(this.protocol)) {
-            return new OspfProtocol( Topology.valueOf(topology),
-                    amountNodes, amountLinks, amountElements, amountSnmpInterfaces, amountIpInterfaces, persister);
+    private void churnNetwork() throws Exception {
+        try (TopologyPersister persister = new TopologyPersister()) {
+            configure(persister);
+            new TopologyChurner(persister, getProtocols(persister), churnMix, churnRate, seed).run(churnDuration);
+        }
+    }
+
+    void createNetwork() throws Exception {
+        try (TopologySink sink = this.sink != null ? this.sink : createSink()) {
+            DroppedConstraints dropped = null;
+            boolean recordCheckpoint = sink instanceof TopologyPersister && (checkpoint || resume);
+            if (sink instanceof TopologyPersister) {
+                dropped = prepareDatabase((TopologyPersister) sink);
+            }
+            if (recordCheckpoint) {
+                if (!resume) { // the ranges of a previous run of the shard don't belong to this one
+                    ((TopologyPersister) sink).clearCheckpoint(Shard.parse(shard));
+                }
+                ((TopologyPersister) sink).enableCheckpoint(Shard.parse(shard), resume);
+            }
+            Phases.reset();
+            long start = System.nanoTime();
+            try {
+                List<org.opennms.topogen.protocol.Protocol<?>> protocols = getProtocols(sink);
+                if (sink instanceof TopologyPersister && !Shard.parse(shard).isAll()) {
+                    // other processes may use the sequences while the shards write their ids: claim all ids before
+                    // writing any, element ids are less than amount nodes, link ids less than amount links + 1. Every
+                    // shard claims the same ids, the sequences never move backwards
+                    long amountIds = Math.max(Math.max(amountNodes, amountLinks + 1L),
+                            protocols.get(0).getAmountInterfaces());
+                    ((TopologyPersister) sink).advanceSequences(amountNodes, amountIds);
+                }
+                new ProtocolGroup(protocols).createAndPersistNetwork();
+                if (recordCheckpoint) { // complete, nothing to resume anymore
+                    ((TopologyPersister) sink).clearCheckpoint(Shard.parse(shard));
+                }
+                LOG.info("creating the topology took {} ms", (System.nanoTime() - start) / 1_000_000);
+                LOG.info("phases of the run:{}{}", System.lineSeparator(), Phases.summary());
+            } finally {
+                if (dropped != null) {
+                    dropped.restore();
+                }
+            }
+        }
+    }
+
+    private TopologySink createSink() throws IOException {
+        Sink type = Sink.valueOf(sinkType);
+        if (Sink.postgres == type) {
+            return new TopologyPersister();
+        } else if (Sink.file == type) {
+            return new FileTopologySink(Paths.get(output), CopyFormat.valueOf(format), gzip);
+        } else if (Sink.none == type) {
+            return new CountingTopologySink();
         } else {
-            throw new IllegalArgumentException("Don't know this protocol: " + this.protocol);
+            throw new IllegalArgumentException("unknown sink: " + type);
+        }
+    }
+
+    /** @return the dropped indexes and foreign keys in bulk mode, null otherwise */
+    private DroppedConstraints prepareDatabase(TopologyPersister persister) throws SQLException, IOException {
+        configure(persister);
+        if(truncateExistingTopology){
+            persister.truncateTopology();
+        } else if(deleteExistingTolology){
+            persister.deleteTopology();
+        }
+        return bulk ? persister.dropIndexesAndForeignKeys() : null;
+    }
+
+    private void configure(TopologyPersister persister) throws IOException {
+        persister.setBatchSize(batchSize);
+        persister.setLoader(Loader.valueOf(loader));
+        persister.setWriters(writers);
+        persister.setRate(rate);
+        persister.setRetries(retries);
+        persister.setMetricsPort(metricsPort);
+    }
+
+    private List<org.opennms.topogen.protocol.Protocol<?>> getProtocols(TopologySink sink){
+        int[] interfacesRange = interfacesPerNode.isEmpty() ? new int[]{0, 0} : InterfaceLayout.parse(interfacesPerNode);
+        TopologySettings settings = TopologySettings.builder()
+                .topology(Topology.parse(topology))
+                .amountNodes(amountNodes)
+                .amountLinks(amountLinks)
+                .amountElements(amountElements)
+                .amountSnmpInterfaces(amountSnmpInterfaces)
+                .amountIpInterfaces(amountIpInterfaces)
+                .chunkSize(chunkSize)
+                .rewiringProbability(rewiringProbability)
+                .seed(seed)
+                .linkPool(linkPool)
+                .linkPrefixLength(linkPrefixLength)
+                .routerIdPool(routerIdPool)
+                .interfacePool(interfacePool)
+                .shard(Shard.parse(shard))
+                .minInterfacesPerNode(interfacesRange[0])
+                .maxInterfacesPerNode(interfacesRange[1])
+                .build();
+        List<org.opennms.topogen.protocol.Protocol<?>> protocols = new ArrayList<>();
+        for (Protocol protocol : Protocol.parseList(this.protocol)) {
+            protocols.add(getProtocol(protocol, settings, sink));
+        }
+        return protocols;
+    }
+
+    private org.opennms.topogen.protocol.Protocol<?> getProtocol(Protocol protocol, TopologySettings settings, TopologySink sink){
+        if(Protocol.cdp == protocol){
+            return new CdpProtocol(settings, sink);
+        } else if (Protocol.isis == protocol) {
+            return new IsIsProtocol(settings, sink);
+        } else if (Protocol.lldp == protocol) {
+            return new LldpProtocol(settings, sink);
+        } else if (Protocol.ospf == protocol) {
+            return new OspfProtocol(settings, sink);
+        } else {
+            throw new IllegalArgumentException("Don't know this protocol: " + protocol);
         }
     }
 
@@ -139,6 +476,13 @@ public class TopologyGenerator {
         }
     }
 
+    private static void assertPoolHolds(String pool, String what, long amount, long available) {
+        if (amount > available) {
+            throw new IllegalArgumentException(String.format("address pool %s is too small for %s, it has room for %s",
+                    pool, what, available));
+        }
+    }
+
     private static void assertMoreOrEqualsThan(String message, int expected, int actual) {
         if (actual < expected) {
             throw new IllegalArgumentException(message + String.format(" minimum expected=%s but found actual=%s", expected, actual));
@@ -146,9 +490,17 @@ public class TopologyGenerator {
     }
 
     public static void main(String args[]) throws Exception {
-        TopologyGenerator generator = new TopologyGenerator(new TopologyPersister());
+        TopologyGenerator generator = new TopologyGenerator();
         generator.doMain(args);
         generator.assertSetup();
-        generator.createNetwork();
+        if (generator.graphFile != null) {
+            generator.exportGraph();
+        } else if (generator.importDirectory != null) {
+            generator.importNetwork();
+        } else if (generator.churn) {
+            generator.churnNetwork();
+        } else {
+            generator.createNetwork();
+        }
     }
 }
\ No newline at end of file
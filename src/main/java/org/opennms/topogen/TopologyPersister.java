@@ -29,65 +29,105 @@
 package org.opennms.topogen;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-
-import javax.sql.DataSource;
-
-import org.opennms.core.utils.InetAddressUtils;
-import org.opennms.netmgt.model.CdpElement;
-import org.opennms.netmgt.model.CdpLink;
-import org.opennms.netmgt.model.IsIsElement;
-import org.opennms.netmgt.model.IsIsLink;
-import org.opennms.netmgt.model.LldpElement;
-import org.opennms.netmgt.model.LldpLink;
-import org.opennms.netmgt.model.OnmsIpInterface;
-import org.opennms.netmgt.model.OnmsNode;
-import org.opennms.netmgt.model.OnmsSnmpInterface;
-import org.opennms.netmgt.model.OspfLink;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.opennms.topogen.persistence.Checkpoint;
+import org.opennms.topogen.persistence.CopyImporter;
+import org.opennms.topogen.persistence.CopyLoader;
+import org.opennms.topogen.persistence.DroppedConstraints;
+import org.opennms.topogen.persistence.ExportManifest;
+import org.opennms.topogen.persistence.InsertLoader;
+import org.opennms.topogen.persistence.LoadMetrics;
+import org.opennms.topogen.persistence.Loader;
+import org.opennms.topogen.persistence.MetricsEndpoint;
+import org.opennms.topogen.persistence.ParallelLoader;
+import org.opennms.topogen.persistence.Retries;
+import org.opennms.topogen.persistence.Table;
+import org.opennms.topogen.persistence.UnnestLoader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.util.concurrent.RateLimiter;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 
-public class TopologyPersister {
+import lombok.Getter;
+import lombok.Setter;
+
+/** Writes the topology into the OpenNMS database. */
+public class TopologyPersister implements TopologySink {
 
-    private final static String NODES_INSERT = "INSERT INTO node (nodeid, nodelabel, location, nodecreatetime) VALUES (?, ?, ?, now());";
     private final static String NODES_DELETE = "DELETE FROM node;";
-    private final static String CDP_ELEMENTS_INSERT = "INSERT INTO cdpelement (id, nodeid, cdpglobalrun, cdpglobaldeviceid, cdpnodelastpolltime, cdpnodecreatetime) VALUES (?, ?, ?, ?, ?, now());";
     private final static String CDP_ELEMENTS_DELETE = "DELETE FROM cdpelement;";
-    private final static String CDP_LINKS_INSERT = "INSERT INTO cdplink (id, nodeid, cdpcacheifindex, cdpinterfacename, cdpcacheaddresstype, cdpcacheaddress, cdpcacheversion, cdpcachedeviceid, cdpcachedeviceport, cdpcachedeviceplatform, cdplinklastpolltime, cdpcachedeviceindex, cdplinkcreatetime) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, now());";
     private final static String CDP_LINKS_DELETE = "DELETE FROM cdplink;";
-    private final static String ISIS_ELEMENTS_INSERT = "INSERT INTO isiselement (id, nodeId, isisSysAdminState, isisSysID, isisNodeLastPollTime, isisNodeCreateTime) VALUES (?, ?, ?, ?, ?, now());";
     private final static String ISIS_ELEMENTS_DELETE = "DELETE FROM isiselement;";
-    private final static String ISIS_LINKS_INSERT = "INSERT INTO isislink (id, nodeId, isisCircIndex, isisISAdjIndex, isisCircIfIndex, isisCircAdminState, isisISAdjState, isisISAdjNeighSNPAAddress, isisISAdjNeighSysType, isisISAdjNeighSysID," +
-            "isisISAdjNbrExtendedCircID, isisLinkLastPollTime, isisLinkCreateTime ) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, now());";
     private final static String ISIS_LINKS_DELETE = "DELETE FROM isislink;";
-
-    private final static String LLDP_ELEMENTS_INSERT = "INSERT INTO lldpelement (id, nodeId, lldpChassisIdSubType, lldpSysname, lldpChassisId, lldpNodeLastPollTime, lldpNodeCreateTime) VALUES (?, ?, ?, ?, ?, ?, now());";
     private final static String LLDP_ELEMENTS_DELETE = "DELETE FROM lldpelement;";
-    private final static String LLDP_LINKS_INSERT = "INSERT INTO lldplink (id, nodeId, lldpLocalPortNum, lldpPortIdSubType, lldpPortId, lldpPortDescr, lldpPortIfindex, lldpRemChassisId, lldpRemSysname, lldpRemChassisIdSubType, lldpRemPortIdSubType," +
-            " lldpRemPortId, lldpRemPortDescr, lldpLinkLastPollTime, lldpLinkCreateTime ) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, now());";
     private final static String LLDP_LINKS_DELETE = "DELETE FROM lldplink;";
-
-    private final static String OSPF_LINKS_INSERT = "INSERT INTO ospflink (id, nodeId, ospfIpAddr, ospfIpMask, ospfAddressLessIndex, ospfIfIndex, ospfRemRouterId, ospfRemIpAddr, ospfRemAddressLessIndex, ospfLinkLastPollTime, ospfLinkCreateTime ) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, now());";
     private final static String OSPF_LINKS_DELETE = "DELETE FROM ospflink;";
-
-    private final static String ONMS_INTERFACES_INSERT  = "INSERT INTO snmpinterface (id, snmpPhysAddr, snmpIfIndex, snmpIfDescr," +
-            " snmpIfType, snmpIfName, snmpIfSpeed, snmpIfAdminStatus, snmpIfOperStatus, snmpIfAlias, snmpLastCapsdPoll," +
-            " snmpCollect, snmpPoll, snmpLastSnmpPoll, nodeId, hasFlows ) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?);";
     private final static String ONMS_INTERFACES_DELETE = "DELETE FROM snmpinterface;";
-
-    private final static String IP_INTERFACES_INSERT = "INSERT INTO ipinterface (id, ipHostName, isManaged, ipLastCapsdPoll, isSnmpPrimary, nodeId, snmpInterfaceId, ipAddr, netmask) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?);";
     private final static String IP_INTERFACES_DELETE = "DELETE FROM ipinterface;";
+    final static String TOPOLOGY_TRUNCATE = "TRUNCATE TABLE cdplink, isislink, lldplink, cdpelement, isiselement,"
+            + " lldpelement, ospflink, ipinterface, snmpinterface, node RESTART IDENTITY CASCADE;";
+
+    private final static String NODE_SEQUENCE = "nodenxtid";
+    private final static String ID_SEQUENCE = "opennmsnxtid";
+    private final static String SEQUENCE_ADVANCE = "SELECT setval(?::regclass, GREATEST(nextval(?::regclass), ?), false)";
+
+    /** tables that get most of the rows, their indexes and foreign keys are dropped during a bulk load */
+    public final static List<String> BULK_TABLES = Arrays.asList("cdplink", "lldplink", "isislink", "ospflink",
+            "snmpinterface", "ipinterface");
+
+    /** a table is imported after the tables it references, the tables of one stage are imported concurrently */
+    private final static List<List<String>> IMPORT_STAGES = Arrays.asList(
+            Collections.singletonList("node"),
+            Arrays.asList("cdpelement", "isiselement", "lldpelement", "snmpinterface"),
+            Arrays.asList("cdplink", "isislink", "lldplink", "ospflink", "ipinterface"));
 
     private final static Logger LOG = LoggerFactory.getLogger(TopologyPersister.class);
 
-    private DataSource ds;
+    public final static int DEFAULT_BATCH_SIZE = 1000;
+    public final static int METRICS_REPORT_INTERVAL_SECONDS = 5;
+
+    private HikariDataSource ds;
+
+    /** amount of rows that are sent to the database in one batch and committed in one transaction */
+    @Setter
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    @Setter
+    private TopologyGenerator.Loader loader = TopologyGenerator.Loader.insert;
+
+    /** amount of connections that write concurrently */
+    private int writers = 1;
+    private ExecutorService writerPool;
+
+    @Getter
+    private final LoadMetrics metrics = new LoadMetrics();
+    private RateLimiter rateLimiter;
+    private MetricsEndpoint metricsEndpoint;
+
+    /** attempts per load after a transient error */
+    @Setter
+    private int retries = Retries.DEFAULT_RETRIES;
+    /** records the committed batches, null if not enabled */
+    private Checkpoint checkpoint;
 
     TopologyPersister() throws IOException {
         setUpDatasource();
@@ -101,233 +141,317 @@ public class TopologyPersister {
         config.addDataSourceProperty("cachePrepStmts", "true");
         config.addDataSourceProperty("prepStmtCacheSize", "250");
         config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+        config.addDataSourceProperty("reWriteBatchedInserts", "true"); // send batches as multi row inserts
         ds = new HikariDataSource(config);
     }
 
 
-    public void persistNodes(List<OnmsNode> nodes) throws SQLException {
-        batchInsert(NODES_INSERT, nodes, new BiConsumerWithException<PreparedStatement, OnmsNode>() {
-            @Override
-            public void accept(PreparedStatement stmt, OnmsNode node) throws SQLException {
-                stmt.setInt(1, node.getId());
-                stmt.setString(2, node.getLabel());
-                stmt.setString(3, node.getLocation().getLocationName());
-            }
-        });
+    /** Distributes the inserts of each table over the given amount of concurrent connections. */
+    public void setWriters(int writers) {
+        if (writers < 1) {
+            throw new IllegalArgumentException("need at least 1 writer but got " + writers);
+        }
+        this.writers = writers;
+        if (this.writerPool != null) {
+            this.writerPool.shutdown();
+            this.writerPool = null;
+        }
+        if (writers > 1) {
+            this.writerPool = Executors.newFixedThreadPool(writers, new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "writer-" + count.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        // every writer needs its own connection, leave one for everything else:
+        int poolSize = Math.max(ds.getMaximumPoolSize(), writers + 1);
+        ds.getHikariConfigMXBean().setMaximumPoolSize(poolSize);
     }
 
-    public void persistCdpElements(List<CdpElement> elements) throws SQLException {
-        batchInsert(CDP_ELEMENTS_INSERT, elements, new BiConsumerWithException<PreparedStatement, CdpElement>() {
-            @Override
-            public void accept(PreparedStatement stmt, CdpElement element) throws SQLException {
-                stmt.setInt(1, element.getId());
-                stmt.setInt(2, element.getNode().getId());
-                stmt.setInt(3, element.getCdpGlobalRun().getValue());
-                stmt.setString(4, element.getCdpGlobalDeviceId());
-                stmt.setDate(5, new java.sql.Date(element.getCdpNodeLastPollTime().getTime()));
-            }
-        });
+    /** Limits the rows written per second over all writers, 0 means unlimited. */
+    public void setRate(int rowsPerSecond) {
+        if (rowsPerSecond < 0) {
+            throw new IllegalArgumentException("rate must not be negative but was " + rowsPerSecond);
+        }
+        this.rateLimiter = rowsPerSecond == 0 ? null : RateLimiter.create(rowsPerSecond);
     }
 
-    public void persistIsIsElements(List<IsIsElement> elements) throws SQLException {
-        batchInsert(ISIS_ELEMENTS_INSERT, elements, new BiConsumerWithException<PreparedStatement, IsIsElement>() {
-            @Override
-            public void accept(PreparedStatement stmt, IsIsElement element) throws SQLException {
-                stmt.setInt(1, element.getId());
-                stmt.setInt(2, element.getNode().getId());
-                stmt.setInt(3, element.getIsisSysAdminState().getValue());
-                stmt.setString(4, element.getIsisSysID());
-                stmt.setDate(5, new java.sql.Date(element.getIsisNodeLastPollTime().getTime()));
-            }
-        });
+    /** Serves the load metrics for Prometheus on the given port, 0 serves nothing. */
+    public void setMetricsPort(int port) throws IOException {
+        if (metricsEndpoint != null) {
+            metricsEndpoint.close();
+            metricsEndpoint = null;
+        }
+        if (port > 0) {
+            metrics.start(METRICS_REPORT_INTERVAL_SECONDS);
+            metricsEndpoint = new MetricsEndpoint(metrics, port);
+        }
     }
 
-    public void persistLldpElements(List<LldpElement> elements) throws SQLException {
-        batchInsert(LLDP_ELEMENTS_INSERT, elements, new BiConsumerWithException<PreparedStatement, LldpElement>() {
-            @Override
-            public void accept(PreparedStatement stmt, LldpElement element) throws SQLException {
-                stmt.setInt(1, element.getId());
-                stmt.setInt(2, element.getNode().getId());
-                stmt.setInt(3, element.getLldpChassisIdSubType().getValue());
-                stmt.setString(4, element.getLldpSysname());
-                stmt.setString(5, element.getLldpChassisId());
-                stmt.setDate(6, new java.sql.Date(element.getLldpNodeLastPollTime().getTime()));
-            }
-        });
+    /**
+     * Records the committed batches of the shard from now on, see {@link Checkpoint}.
+     * @param resume true to skip the rows that a previous run of the shard has committed already
+     */
+    public void enableCheckpoint(Shard shard, boolean resume) throws SQLException {
+        checkpoint = Checkpoint.create(ds, shard.toString(), resume);
     }
 
-    public void persistCdpLinks(List<CdpLink> links) throws SQLException {
-        batchInsert(CDP_LINKS_INSERT, links, new BiConsumerWithException<PreparedStatement, CdpLink>() {
-            @Override
-            public void accept(PreparedStatement stmt, CdpLink link) throws SQLException {
-                int i = 1;
-                stmt.setInt(i++, link.getId());
-                stmt.setInt(i++, link.getNode().getId());
-                stmt.setInt(i++, link.getCdpCacheIfIndex());
-                stmt.setString(i++, link.getCdpInterfaceName());
-                stmt.setInt(i++, link.getCdpCacheAddressType().getValue());
-                stmt.setString(i++, link.getCdpCacheAddress());
-                stmt.setString(i++, link.getCdpCacheVersion());
-                stmt.setString(i++, link.getCdpCacheDeviceId());
-                stmt.setString(i++, link.getCdpCacheDevicePort());
-                stmt.setString(i++, link.getCdpCacheDevicePlatform());
-                stmt.setDate(i++, new java.sql.Date(link.getCdpLinkLastPollTime().getTime()));
-                stmt.setInt(i, link.getCdpCacheDeviceIndex());
-            }
-        });
+    /**
+     * Forgets the committed batches of the shard, e.g. of a previous run or once the shard is complete, and stops
+     * recording. The whole topology as one shard drops the table.
+     */
+    public void clearCheckpoint(Shard shard) throws SQLException {
+        if (shard.isAll()) {
+            Checkpoint.clear(ds);
+        } else {
+            Checkpoint.clear(ds, shard.toString());
+        }
+        checkpoint = null;
     }
 
-    public void persistIsIsLinks(List<IsIsLink> links) throws SQLException {
-        batchInsert(ISIS_LINKS_INSERT, links, new BiConsumerWithException<PreparedStatement, IsIsLink>() {
-            @Override
-            public void accept(PreparedStatement stmt, IsIsLink link) throws SQLException {
-                int i = 1;
-                stmt.setInt(i++, link.getId());
-                stmt.setInt(i++, link.getNode().getId());
-                stmt.setInt(i++, link.getIsisCircIndex());
-                stmt.setInt(i++, link.getIsisISAdjIndex());
-                stmt.setInt(i++, link.getIsisCircIfIndex());
-                stmt.setInt(i++, link.getIsisCircAdminState().getValue());
-                stmt.setInt(i++, link.getIsisISAdjState().getValue());
-                stmt.setString(i++, link.getIsisISAdjNeighSNPAAddress());
-                stmt.setInt(i++, link.getIsisISAdjNeighSysType().getValue());
-                stmt.setString(i++, link.getIsisISAdjNeighSysID());
-                stmt.setInt(i++, link.getIsisISAdjNbrExtendedCircID());
-                stmt.setDate(i++, new java.sql.Date(link.getIsisLinkLastPollTime().getTime()));
-            }
-        });
+    @Override
+    public <T> void write(Table<T> table, List<T> elements) throws SQLException {
+        if (elements.size() == 0) {
+            return;
+        }
+        List<List<T>> remaining = checkpoint == null ? Collections.singletonList(elements)
+                : checkpoint.remaining(table, elements);
+        int amountRemaining = remaining.stream().mapToInt(List::size).sum();
+        if (amountRemaining < elements.size()) {
+            LOG.info("skipping {} rows of {} that are committed already", elements.size() - amountRemaining,
+                    table.getName());
+        }
+        if (amountRemaining == 0) {
+            return;
+        }
+        LOG.info("inserting {} rows into {} via {} with {} writer(s)", amountRemaining, table.getName(), loader, writers);
+        long start = System.nanoTime();
+        Loader rowLoader = createLoader();
+        for (List<T> rows : remaining) {
+            rowLoader.load(table, rows);
+        }
+        long durationInMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        LOG.info("inserting of {} rows into {} done in {} ms ({} rows/sec).", amountRemaining, table.getName(),
+                durationInMillis, amountRemaining * 1000L / durationInMillis);
     }
 
-    public void persistLldpLinks(List<LldpLink> links) throws SQLException {
-        batchInsert(LLDP_LINKS_INSERT, links, new BiConsumerWithException<PreparedStatement, LldpLink>() {
-            @Override
-            public void accept(PreparedStatement stmt, LldpLink link) throws SQLException {
-                int i = 1;
-                stmt.setInt(i++, link.getId());
-                stmt.setInt(i++, link.getNode().getId());
-                stmt.setInt(i++, link.getLldpLocalPortNum());
-                stmt.setInt(i++, link.getLldpPortIdSubType().getValue());
-                stmt.setString(i++, link.getLldpPortId());
-                stmt.setString(i++, link.getLldpPortDescr());
-                stmt.setInt(i++, link.getLldpPortIfindex());
-                stmt.setString(i++, link.getLldpRemChassisId());
-                stmt.setString(i++, link.getLldpRemSysname());
-                stmt.setInt(i++, link.getLldpRemChassisIdSubType().getValue());
-                stmt.setInt(i++, link.getLldpRemPortIdSubType().getValue());
-                stmt.setString(i++, link.getLldpRemPortId());
-                stmt.setString(i++, link.getLldpRemPortDescr());
-                stmt.setDate(i++, new java.sql.Date(link.getLldpLinkLastPollTime().getTime()));
-            }
-        });
+    /**
+     * Inserts the rows of a few changes, e.g. of the {@link TopologyChurner} many times a second: like
+     * {@link #write(Table, List)} but without logging every call.
+     */
+    public <T> void writeChanges(Table<T> table, List<T> elements) throws SQLException {
+        if (!elements.isEmpty()) {
+            createLoader().load(table, elements);
+        }
     }
 
-    public void persistOspfLinks(List<OspfLink> links) throws SQLException {
-        batchInsert(OSPF_LINKS_INSERT, links, new BiConsumerWithException<PreparedStatement, OspfLink>() {
-            @Override
-            public void accept(PreparedStatement stmt, OspfLink link) throws SQLException {
-                int i = 1;
-                stmt.setInt(i++, link.getId());
-                stmt.setInt(i++, link.getNode().getId());
-                stmt.setString(i++, InetAddressUtils.str(link.getOspfIpAddr()));
-                stmt.setString(i++, InetAddressUtils.str(link.getOspfIpMask()));
-                stmt.setInt(i++, link.getOspfAddressLessIndex());
-                stmt.setInt(i++, link.getOspfIfIndex());
-                stmt.setString(i++, InetAddressUtils.str(link.getOspfRemRouterId()));
-                stmt.setString(i++, InetAddressUtils.str(link.getOspfRemIpAddr()));
-                stmt.setInt(i++, link.getOspfRemAddressLessIndex());
-                stmt.setDate(i++, new java.sql.Date(link.getOspfLinkLastPollTime().getTime()));
-            }
-        });
+    /** a loader for the rows of one write, the metrics are reported from the first write on */
+    private Loader createLoader() {
+        metrics.start(METRICS_REPORT_INTERVAL_SECONDS);
+        Loader singleWriterLoader;
+        if (TopologyGenerator.Loader.insert == loader) {
+            singleWriterLoader = new InsertLoader(ds, batchSize, metrics, rateLimiter, checkpoint, new Retries(retries));
+        } else if (TopologyGenerator.Loader.copy == loader) {
+            singleWriterLoader = new CopyLoader(ds, metrics, rateLimiter, checkpoint, new Retries(retries));
+        } else if (TopologyGenerator.Loader.unnest == loader) {
+            singleWriterLoader = new UnnestLoader(ds, batchSize, metrics, rateLimiter, checkpoint, new Retries(retries));
+        } else {
+            throw new IllegalArgumentException("unknown loader: " + loader);
+        }
+        if (writers > 1) {
+            return new ParallelLoader(singleWriterLoader, writerPool, writers);
+        }
+        return singleWriterLoader;
     }
 
-    public void persistOnmsInterfaces(List<OnmsSnmpInterface> onmsSnmpInterfaces) throws SQLException{
-        batchInsert(ONMS_INTERFACES_INSERT, onmsSnmpInterfaces, new BiConsumerWithException<PreparedStatement, OnmsSnmpInterface>() {
-            @Override
-            public void accept(PreparedStatement stmt, OnmsSnmpInterface snmpInterface) throws SQLException {
-                int i = 1;
-                stmt.setInt(i++, snmpInterface.getId());
-                stmt.setString(i++, snmpInterface.getPhysAddr());
-                stmt.setInt(i++, snmpInterface.getIfIndex());
-                stmt.setString(i++, snmpInterface.getIfDescr());
-                stmt.setInt(i++, snmpInterface.getIfType());
-                stmt.setString(i++, snmpInterface.getIfName());
-                stmt.setLong(i++, snmpInterface.getIfSpeed());
-                stmt.setInt(i++, snmpInterface.getIfAdminStatus());
-                stmt.setInt(i++, snmpInterface.getIfOperStatus());
-                stmt.setString(i++, snmpInterface.getIfAlias());
-                stmt.setDate(i++, new java.sql.Date(snmpInterface.getLastCapsdPoll().getTime()));
-                stmt.setString(i++, snmpInterface.getCollect());
-                stmt.setString(i++, snmpInterface.getPoll());
-                stmt.setDate(i++, new java.sql.Date(snmpInterface.getLastSnmpPoll().getTime()));
-                stmt.setInt(i++, snmpInterface.getNode().getId());
-                stmt.setBoolean(i++, snmpInterface.getHasFlows());
+    public void deleteTopology() throws SQLException {
+        LOG.info("deleting existing topology");
+        List<String> deleteOperations = Arrays.asList(CDP_LINKS_DELETE,
+                ISIS_LINKS_DELETE, LLDP_LINKS_DELETE, CDP_ELEMENTS_DELETE, ISIS_ELEMENTS_DELETE, LLDP_ELEMENTS_DELETE,
+                OSPF_LINKS_DELETE, IP_INTERFACES_DELETE, ONMS_INTERFACES_DELETE, NODES_DELETE);
+
+        try (Connection c = ds.getConnection()) {
+            for (String sql : deleteOperations) {
+                try (PreparedStatement stmt = c.prepareStatement(sql)) {
+                    stmt.execute();
+                }
             }
-        });
+
+        }
     }
 
-    public void persistIpInterfaces(List<OnmsIpInterface> ipInterfaces) throws SQLException {
-        batchInsert(IP_INTERFACES_INSERT, ipInterfaces, new BiConsumerWithException<PreparedStatement, OnmsIpInterface>() {
-            @Override
-            public void accept(PreparedStatement stmt, OnmsIpInterface ip) throws SQLException {
-                int i = 1;
-                stmt.setInt(i++, ip.getId());
-                stmt.setString(i++, ip.getIpHostName());
-                stmt.setString(i++, ip.getIsManaged());
-                stmt.setDate(i++, new java.sql.Date(ip.getIpLastCapsdPoll().getTime()));
-                stmt.setString(i++, ip.getPrimaryString());
-                stmt.setInt(i++, ip.getNode().getId());
-                stmt.setInt(i++, ip.getSnmpInterface().getId());
-                stmt.setString(i++, InetAddressUtils.str(ip.getIpAddress()));
-                stmt.setString(i++, InetAddressUtils.str(ip.getNetMask()));
+    /**
+     * Empties the topology tables with one TRUNCATE in one transaction, much faster than {@link #deleteTopology()} and
+     * leaves no dead rows behind. CASCADE also empties all other tables that reference these, e.g. events of nodes.
+     */
+    public void truncateTopology() throws SQLException {
+        LOG.info("truncating existing topology");
+        long start = System.nanoTime();
+        try (Connection c = ds.getConnection()) {
+            boolean autoCommit = c.getAutoCommit();
+            c.setAutoCommit(false);
+            try (PreparedStatement stmt = c.prepareStatement(TOPOLOGY_TRUNCATE)) {
+                stmt.execute();
+                c.commit();
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            } finally {
+                c.setAutoCommit(autoCommit);
             }
-        });
+        }
+        LOG.info("truncating done in {} ms", (System.nanoTime() - start) / 1_000_000);
     }
 
-    @FunctionalInterface
-    public interface BiConsumerWithException<T, R> {
-        void accept(T t, R r) throws SQLException;
+    /**
+     * Loads the files of an export (see {@link FileTopologySink}) via COPY, without going through the model. With more
+     * than one writer the independent tables are loaded concurrently.
+     */
+    public void importTopology(Path directory) throws SQLException, IOException {
+        ExportManifest manifest = ExportManifest.read(directory);
+        for (ExportManifest.Entry entry : manifest.getEntries()) {
+            if (IMPORT_STAGES.stream().noneMatch(stage -> stage.contains(entry.getTable()))) {
+                throw new IOException("don't know how to import table " + entry.getTable());
+            }
+        }
+        LOG.info("importing {} tables from {} with {} writer(s)", manifest.getEntries().size(), directory, writers);
+        long start = System.nanoTime();
+        CopyImporter importer = new CopyImporter(ds);
+        for (List<String> stage : IMPORT_STAGES) {
+            List<Callable<Void>> imports = new ArrayList<>();
+            for (ExportManifest.Entry entry : manifest.getEntries()) {
+                if (stage.contains(entry.getTable())) {
+                    imports.add(() -> {
+                        importer.importFile(directory, manifest, entry);
+                        return null;
+                    });
+                }
+            }
+            runAll(imports);
+        }
+        LOG.info("importing done in {} ms", (System.nanoTime() - start) / 1_000_000);
     }
 
-    private <T> void batchInsert(String statement, List<T> elements, BiConsumerWithException<PreparedStatement, T> statementFiller) throws SQLException {
-        if (elements.size() == 0) {
+    /** runs the tasks with the writers and waits for all of them, even if one fails */
+    private void runAll(List<Callable<Void>> tasks) throws SQLException, IOException {
+        if (writerPool == null) {
+            for (Callable<Void> task : tasks) {
+                try {
+                    task.call();
+                } catch (SQLException | IOException | RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }
             return;
         }
-        LOG.info("inserting {} {}s", elements.size(), elements.get(0).getClass().getSimpleName());
-        try (Connection c = ds.getConnection()) {
-            try (PreparedStatement insStmt = c.prepareStatement(statement)) {
-                int i;
-                for (i = 0; i < elements.size(); i++) {
-                    T element = elements.get(i);
-                    statementFiller.accept(insStmt, element);
-                    insStmt.executeUpdate();
-                    insStmt.getGeneratedKeys();
-                    if (i % 100 == 0) { // batches of 100
-                        insStmt.executeBatch();
-                    }
-                }
-                if (i % 100 != 0) {
-                    insStmt.executeBatch(); // insert last elements of batch
+        List<Future<Void>> results = new ArrayList<>();
+        for (Callable<Void> task : tasks) {
+            results.add(writerPool.submit(task));
+        }
+        SQLException failure = null;
+        for (Future<Void> result : results) {
+            try {
+                result.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("interrupted while waiting for the import", e);
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = new SQLException("import failed: " + e.getCause().getMessage(), e.getCause());
+                } else {
+                    failure.addSuppressed(e.getCause());
                 }
             }
         }
-        LOG.info("inserting of {} {}s done.", elements.size(), elements.get(0).getClass().getSimpleName());
+        if (failure != null) {
+            throw failure;
+        }
     }
 
-    public void deleteTopology() throws SQLException {
-        LOG.info("deleting existing topology");
-        List<String> deleteOperations = Arrays.asList(CDP_LINKS_DELETE,
-                ISIS_LINKS_DELETE, LLDP_LINKS_DELETE, CDP_ELEMENTS_DELETE, ISIS_ELEMENTS_DELETE, LLDP_ELEMENTS_DELETE,
-                OSPF_LINKS_DELETE, IP_INTERFACES_DELETE, ONMS_INTERFACES_DELETE, NODES_DELETE);
-
-        try (Connection c = ds.getConnection()) {
-            for (String sql : deleteOperations) {
-                try (PreparedStatement stmt = c.prepareStatement(sql)) {
-                    stmt.execute();
-                }
+    /**
+     * Makes OpenNMS allocate ids after the generated ones: the next values of the node sequence and of the sequence of
+     * all other entities become at least the given ones. Several shards may call it concurrently.
+     */
+    public void advanceSequences(long nextNodeId, long nextId) throws SQLException {
+        try (Connection c = ds.getConnection(); PreparedStatement stmt = c.prepareStatement(SEQUENCE_ADVANCE)) {
+            for (Object[] sequence : new Object[][]{{NODE_SEQUENCE, nextNodeId}, {ID_SEQUENCE, nextId}}) {
+                stmt.setString(1, (String) sequence[0]);
+                stmt.setString(2, (String) sequence[0]);
+                stmt.setLong(3, (Long) sequence[1]);
+                stmt.execute();
             }
+        }
+        LOG.info("advanced the sequences {} to {} and {} to {}", NODE_SEQUENCE, nextNodeId, ID_SEQUENCE, nextId);
+    }
 
+    /** @return the largest id (the first column) of the table, -1 if the table is empty */
+    public int getMaxId(Table<?> table) throws SQLException {
+        String sql = "SELECT coalesce(max(" + table.getColumns().get(0) + "), -1) FROM " + table.getName();
+        try (Connection c = ds.getConnection();
+             PreparedStatement stmt = c.prepareStatement(sql);
+             ResultSet result = stmt.executeQuery()) {
+            result.next();
+            return result.getInt(1);
+        }
+    }
+
+    /** Deletes the rows with the given ids in one statement. @return the amount of deleted rows */
+    public int deleteByIds(Table<?> table, int[] ids) throws SQLException {
+        String sql = "DELETE FROM " + table.getName() + " WHERE " + table.getColumns().get(0) + " = ANY(?)";
+        Integer[] values = new Integer[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            values[i] = ids[i];
+        }
+        try (Connection c = ds.getConnection(); PreparedStatement stmt = c.prepareStatement(sql)) {
+            stmt.setArray(1, c.createArrayOf("int4", values));
+            return stmt.executeUpdate();
         }
     }
-}
 
+    /**
+     * Sets a timestamp column of the rows with the given ids in one statement, the ids are bound as one array so any
+     * amount of ids stays within the parameter limit of Postgres. @return the amount of updated rows
+     */
+    public int updateTimestamps(Table<?> table, String column, int[] ids, long epochMillis) throws SQLException {
+        Integer[] values = new Integer[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            values[i] = ids[i];
+        }
+        try (Connection c = ds.getConnection();
+             PreparedStatement stmt = c.prepareStatement(createUpdateStatement(table, column))) {
+            stmt.setTimestamp(1, new Timestamp(epochMillis));
+            stmt.setArray(2, c.createArrayOf("int4", values));
+            return stmt.executeUpdate();
+        }
+    }
+
+    static String createUpdateStatement(Table<?> table, String column) {
+        return "UPDATE " + table.getName() + " SET " + column + " = ? WHERE " + table.getColumns().get(0) + " = ANY(?)";
+    }
+
+    /** Drops the secondary indexes and foreign keys of the {@link #BULK_TABLES}, restore them after loading. */
+    public DroppedConstraints dropIndexesAndForeignKeys() throws SQLException {
+        return DroppedConstraints.drop(ds, BULK_TABLES);
+    }
 
+    @Override
+    public void close() {
+        if (metricsEndpoint != null) {
+            metricsEndpoint.close();
+        }
+        metrics.close();
+        if (writerPool != null) {
+            writerPool.shutdown();
+        }
+        if (ds != null) {
+            ds.close();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen;
+
+import org.opennms.topogen.util.RandomStreams;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/** Parameters that describe the topology to be generated. */
+@Builder
+@Getter
+public class TopologySettings {
+
+    public final static int DEFAULT_CHUNK_SIZE = 100_000;
+    public final static double DEFAULT_REWIRING_PROBABILITY = 0.1;
+    public final static String DEFAULT_LINK_POOL = "10.0.0.0/8";
+    public final static int DEFAULT_LINK_PREFIX_LENGTH = 31;
+    public final static String DEFAULT_ROUTER_ID_POOL = "100.64.0.0/10";
+    public final static String DEFAULT_INTERFACE_POOL = "172.16.0.0/12";
+
+    private final TopologyGenerator.Topology topology;
+    private final int amountNodes;
+    private final int amountLinks;
+    private final int amountElements;
+    private final int amountSnmpInterfaces;
+    private final int amountIpInterfaces;
+    /** amount of links that are created before they are handed over to the persister */
+    @Builder.Default
+    private final int chunkSize = DEFAULT_CHUNK_SIZE;
+    /** probability that an edge of the small-world lattice is rewired to a random element */
+    @Builder.Default
+    private final double rewiringProbability = DEFAULT_REWIRING_PROBABILITY;
+    /** the same seed and settings produce the same topology */
+    @Builder.Default
+    private final long seed = RandomStreams.DEFAULT_SEED;
+    /** addresses of the point-to-point subnets of links */
+    @Builder.Default
+    private final String linkPool = DEFAULT_LINK_POOL;
+    /** prefix length of a point-to-point subnet: 30 or 31 for IPv4, 126 or 127 for IPv6 */
+    @Builder.Default
+    private final int linkPrefixLength = DEFAULT_LINK_PREFIX_LENGTH;
+    /** router ids, one per node, must be IPv4 */
+    @Builder.Default
+    private final String routerIdPool = DEFAULT_ROUTER_ID_POOL;
+    /** addresses of the ip interfaces */
+    @Builder.Default
+    private final String interfacePool = DEFAULT_INTERFACE_POOL;
+    /**
+     * interfaces of every node are drawn from [min, max] and the links use their ports, 0 creates one interface on the
+     * first amountSnmpInterfaces nodes only
+     */
+    @Builder.Default
+    private final int minInterfacesPerNode = 0;
+    @Builder.Default
+    private final int maxInterfacesPerNode = 0;
+    /** the part of the topology this process creates */
+    @Builder.Default
+    private final Shard shard = Shard.ALL;
+}
@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen;
+
+import java.sql.SQLException;
+import java.util.List;
+
+import org.opennms.netmgt.model.CdpElement;
+import org.opennms.netmgt.model.CdpLink;
+import org.opennms.netmgt.model.IsIsElement;
+import org.opennms.netmgt.model.IsIsLink;
+import org.opennms.netmgt.model.LldpElement;
+import org.opennms.netmgt.model.LldpLink;
+import org.opennms.netmgt.model.OnmsIpInterface;
+import org.opennms.netmgt.model.OnmsNode;
+import org.opennms.netmgt.model.OnmsSnmpInterface;
+import org.opennms.netmgt.model.OspfLink;
+import org.opennms.topogen.persistence.Table;
+
+/**
+ * Receives the generated topology, e.g. to store it in the database or in files. Every kind of entity maps to one of the
+ * {@link TopologyTables}, an implementation only needs to handle {@link #write(Table, List)}. Rows of different tables
+ * may be written concurrently.
+ */
+public interface TopologySink extends AutoCloseable {
+
+    <T> void write(Table<T> table, List<T> rows) throws SQLException;
+
+    default void persistNodes(List<OnmsNode> nodes) throws SQLException {
+        write(TopologyTables.NODES, nodes);
+    }
+
+    default void persistCdpElements(List<CdpElement> elements) throws SQLException {
+        write(TopologyTables.CDP_ELEMENTS, elements);
+    }
+
+    default void persistIsIsElements(List<IsIsElement> elements) throws SQLException {
+        write(TopologyTables.ISIS_ELEMENTS, elements);
+    }
+
+    default void persistLldpElements(List<LldpElement> elements) throws SQLException {
+        write(TopologyTables.LLDP_ELEMENTS, elements);
+    }
+
+    default void persistCdpLinks(List<CdpLink> links) throws SQLException {
+        write(TopologyTables.CDP_LINKS, links);
+    }
+
+    default void persistIsIsLinks(List<IsIsLink> links) throws SQLException {
+        write(TopologyTables.ISIS_LINKS, links);
+    }
+
+    default void persistLldpLinks(List<LldpLink> links) throws SQLException {
+        write(TopologyTables.LLDP_LINKS, links);
+    }
+
+    default void persistOspfLinks(List<OspfLink> links) throws SQLException {
+        write(TopologyTables.OSPF_LINKS, links);
+    }
+
+    default void persistOnmsInterfaces(List<OnmsSnmpInterface> onmsSnmpInterfaces) throws SQLException {
+        write(TopologyTables.SNMP_INTERFACES, onmsSnmpInterfaces);
+    }
+
+    default void persistIpInterfaces(List<OnmsIpInterface> ipInterfaces) throws SQLException {
+        write(TopologyTables.IP_INTERFACES, ipInterfaces);
+    }
+
+    @Override
+    default void close() throws SQLException {
+    }
+}
@@ -0,0 +1,262 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+
+import org.opennms.core.utils.InetAddressUtils;
+import org.opennms.netmgt.model.CdpElement;
+import org.opennms.netmgt.model.CdpLink;
+import org.opennms.netmgt.model.IsIsElement;
+import org.opennms.netmgt.model.IsIsLink;
+import org.opennms.netmgt.model.LldpElement;
+import org.opennms.netmgt.model.LldpLink;
+import org.opennms.netmgt.model.OnmsIpInterface;
+import org.opennms.netmgt.model.OnmsNode;
+import org.opennms.netmgt.model.OnmsSnmpInterface;
+import org.opennms.netmgt.model.OspfLink;
+import org.opennms.topogen.persistence.BiConsumerWithException;
+import org.opennms.topogen.persistence.RowWriter;
+import org.opennms.topogen.persistence.Table;
+
+/** The tables of the OpenNMS schema a topology is written to and how the model objects map onto their columns. */
+public final class TopologyTables {
+
+    public final static Table<OnmsNode> NODES = new Table<>("node",
+            Arrays.asList("nodeid", "nodelabel", "location", "nodecreatetime"),
+            Arrays.asList("int4", "text", "text", "timestamp"),
+            new BiConsumerWithException<RowWriter, OnmsNode>() {
+                @Override
+                public void accept(RowWriter row, OnmsNode node) throws SQLException {
+                    row.writeInt(node.getId());
+                    row.writeString(node.getLabel());
+                    row.writeString(node.getLocation().getLocationName());
+                    row.writeNow();
+                }
+            });
+
+    public final static Table<CdpElement> CDP_ELEMENTS = new Table<>("cdpelement",
+            Arrays.asList("id", "nodeid", "cdpglobalrun", "cdpglobaldeviceid", "cdpnodelastpolltime", "cdpnodecreatetime"),
+            Arrays.asList("int4", "int4", "int4", "text", "timestamp", "timestamp"),
+            new BiConsumerWithException<RowWriter, CdpElement>() {
+                @Override
+                public void accept(RowWriter row, CdpElement element) throws SQLException {
+                    row.writeInt(element.getId());
+                    row.writeInt(element.getNode().getId());
+                    row.writeInt(element.getCdpGlobalRun().getValue());
+                    row.writeString(element.getCdpGlobalDeviceId());
+                    row.writeTimestamp(element.getCdpNodeLastPollTime());
+                    row.writeNow();
+                }
+            });
+
+    public final static Table<CdpLink> CDP_LINKS = new Table<>("cdplink",
+            Arrays.asList("id", "nodeid", "cdpcacheifindex", "cdpinterfacename", "cdpcacheaddresstype", "cdpcacheaddress",
+                    "cdpcacheversion", "cdpcachedeviceid", "cdpcachedeviceport", "cdpcachedeviceplatform",
+                    "cdplinklastpolltime", "cdpcachedeviceindex", "cdplinkcreatetime"),
+            Arrays.asList("int4", "int4", "int4", "text", "int4", "text", "text", "text", "text", "text", "timestamp",
+                    "int4", "timestamp"),
+            new BiConsumerWithException<RowWriter, CdpLink>() {
+                @Override
+                public void accept(RowWriter row, CdpLink link) throws SQLException {
+                    row.writeInt(link.getId());
+                    row.writeInt(link.getNode().getId());
+                    row.writeInt(link.getCdpCacheIfIndex());
+                    row.writeString(link.getCdpInterfaceName());
+                    row.writeInt(link.getCdpCacheAddressType().getValue());
+                    row.writeString(link.getCdpCacheAddress());
+                    row.writeString(link.getCdpCacheVersion());
+                    row.writeString(link.getCdpCacheDeviceId());
+                    row.writeString(link.getCdpCacheDevicePort());
+                    row.writeString(link.getCdpCacheDevicePlatform());
+                    row.writeTimestamp(link.getCdpLinkLastPollTime());
+                    row.writeInt(link.getCdpCacheDeviceIndex());
+                    row.writeNow();
+                }
+            });
+
+    public final static Table<IsIsElement> ISIS_ELEMENTS = new Table<>("isiselement",
+            Arrays.asList("id", "nodeId", "isisSysAdminState", "isisSysID", "isisNodeLastPollTime", "isisNodeCreateTime"),
+            Arrays.asList("int4", "int4", "int4", "text", "timestamp", "timestamp"),
+            new BiConsumerWithException<RowWriter, IsIsElement>() {
+                @Override
+                public void accept(RowWriter row, IsIsElement element) throws SQLException {
+                    row.writeInt(element.getId());
+                    row.writeInt(element.getNode().getId());
+                    row.writeInt(element.getIsisSysAdminState().getValue());
+                    row.writeString(element.getIsisSysID());
+                    row.writeTimestamp(element.getIsisNodeLastPollTime());
+                    row.writeNow();
+                }
+            });
+
+    public final static Table<IsIsLink> ISIS_LINKS = new Table<>("isislink",
+            Arrays.asList("id", "nodeId", "isisCircIndex", "isisISAdjIndex", "isisCircIfIndex", "isisCircAdminState",
+                    "isisISAdjState", "isisISAdjNeighSNPAAddress", "isisISAdjNeighSysType", "isisISAdjNeighSysID",
+                    "isisISAdjNbrExtendedCircID", "isisLinkLastPollTime", "isisLinkCreateTime"),
+            Arrays.asList("int4", "int4", "int4", "int4", "int4", "int4", "int4", "text", "int4", "text", "int4",
+                    "timestamp", "timestamp"),
+            new BiConsumerWithException<RowWriter, IsIsLink>() {
+                @Override
+                public void accept(RowWriter row, IsIsLink link) throws SQLException {
+                    row.writeInt(link.getId());
+                    row.writeInt(link.getNode().getId());
+                    row.writeInt(link.getIsisCircIndex());
+                    row.writeInt(link.getIsisISAdjIndex());
+                    row.writeInt(link.getIsisCircIfIndex());
+                    row.writeInt(link.getIsisCircAdminState().getValue());
+                    row.writeInt(link.getIsisISAdjState().getValue());
+                    row.writeString(link.getIsisISAdjNeighSNPAAddress());
+                    row.writeInt(link.getIsisISAdjNeighSysType().getValue());
+                    row.writeString(link.getIsisISAdjNeighSysID());
+                    row.writeInt(link.getIsisISAdjNbrExtendedCircID());
+                    row.writeTimestamp(link.getIsisLinkLastPollTime());
+                    row.writeNow();
+                }
+            });
+
+    public final static Table<LldpElement> LLDP_ELEMENTS = new Table<>("lldpelement",
+            Arrays.asList("id", "nodeId", "lldpChassisIdSubType", "lldpSysname", "lldpChassisId", "lldpNodeLastPollTime",
+                    "lldpNodeCreateTime"),
+            Arrays.asList("int4", "int4", "int4", "text", "text", "timestamp", "timestamp"),
+            new BiConsumerWithException<RowWriter, LldpElement>() {
+                @Override
+                public void accept(RowWriter row, LldpElement element) throws SQLException {
+                    row.writeInt(element.getId());
+                    row.writeInt(element.getNode().getId());
+                    row.writeInt(element.getLldpChassisIdSubType().getValue());
+                    row.writeString(element.getLldpSysname());
+                    row.writeString(element.getLldpChassisId());
+                    row.writeTimestamp(element.getLldpNodeLastPollTime());
+                    row.writeNow();
+                }
+            });
+
+    public final static Table<LldpLink> LLDP_LINKS = new Table<>("lldplink",
+            Arrays.asList("id", "nodeId", "lldpLocalPortNum", "lldpPortIdSubType", "lldpPortId", "lldpPortDescr",
+                    "lldpPortIfindex", "lldpRemChassisId", "lldpRemSysname", "lldpRemChassisIdSubType",
+                    "lldpRemPortIdSubType", "lldpRemPortId", "lldpRemPortDescr", "lldpLinkLastPollTime",
+                    "lldpLinkCreateTime"),
+            Arrays.asList("int4", "int4", "int4", "int4", "text", "text", "int4", "text", "text", "int4", "int4",
+                    "text", "text", "timestamp", "timestamp"),
+            new BiConsumerWithException<RowWriter, LldpLink>() {
+                @Override
+                public void accept(RowWriter row, LldpLink link) throws SQLException {
+                    row.writeInt(link.getId());
+                    row.writeInt(link.getNode().getId());
+                    row.writeInt(link.getLldpLocalPortNum());
+                    row.writeInt(link.getLldpPortIdSubType().getValue());
+                    row.writeString(link.getLldpPortId());
+                    row.writeString(link.getLldpPortDescr());
+                    row.writeInt(link.getLldpPortIfindex());
+                    row.writeString(link.getLldpRemChassisId());
+                    row.writeString(link.getLldpRemSysname());
+                    row.writeInt(link.getLldpRemChassisIdSubType().getValue());
+                    row.writeInt(link.getLldpRemPortIdSubType().getValue());
+                    row.writeString(link.getLldpRemPortId());
+                    row.writeString(link.getLldpRemPortDescr());
+                    row.writeTimestamp(link.getLldpLinkLastPollTime());
+                    row.writeNow();
+                }
+            });
+
+    public final static Table<OspfLink> OSPF_LINKS = new Table<>("ospflink",
+            Arrays.asList("id", "nodeId", "ospfIpAddr", "ospfIpMask", "ospfAddressLessIndex", "ospfIfIndex",
+                    "ospfRemRouterId", "ospfRemIpAddr", "ospfRemAddressLessIndex", "ospfLinkLastPollTime",
+                    "ospfLinkCreateTime"),
+            Arrays.asList("int4", "int4", "text", "text", "int4", "int4", "text", "text", "int4", "timestamp",
+                    "timestamp"),
+            new BiConsumerWithException<RowWriter, OspfLink>() {
+                @Override
+                public void accept(RowWriter row, OspfLink link) throws SQLException {
+                    row.writeInt(link.getId());
+                    row.writeInt(link.getNode().getId());
+                    row.writeString(InetAddressUtils.str(link.getOspfIpAddr()));
+                    row.writeString(InetAddressUtils.str(link.getOspfIpMask()));
+                    row.writeInt(link.getOspfAddressLessIndex());
+                    row.writeInt(link.getOspfIfIndex());
+                    row.writeString(InetAddressUtils.str(link.getOspfRemRouterId()));
+                    row.writeString(InetAddressUtils.str(link.getOspfRemIpAddr()));
+                    row.writeInt(link.getOspfRemAddressLessIndex());
+                    row.writeTimestamp(link.getOspfLinkLastPollTime());
+                    row.writeNow();
+                }
+            });
+
+    public final static Table<OnmsSnmpInterface> SNMP_INTERFACES = new Table<>("snmpinterface",
+            Arrays.asList("id", "snmpPhysAddr", "snmpIfIndex", "snmpIfDescr", "snmpIfType", "snmpIfName", "snmpIfSpeed",
+                    "snmpIfAdminStatus", "snmpIfOperStatus", "snmpIfAlias", "snmpLastCapsdPoll", "snmpCollect",
+                    "snmpPoll", "snmpLastSnmpPoll", "nodeId", "hasFlows"),
+            Arrays.asList("int4", "text", "int4", "text", "int4", "text", "int8", "int4", "int4", "text", "timestamp",
+                    "text", "text", "timestamp", "int4", "bool"),
+            new BiConsumerWithException<RowWriter, OnmsSnmpInterface>() {
+                @Override
+                public void accept(RowWriter row, OnmsSnmpInterface snmpInterface) throws SQLException {
+                    row.writeInt(snmpInterface.getId());
+                    row.writeString(snmpInterface.getPhysAddr());
+                    row.writeInt(snmpInterface.getIfIndex());
+                    row.writeString(snmpInterface.getIfDescr());
+                    row.writeInt(snmpInterface.getIfType());
+                    row.writeString(snmpInterface.getIfName());
+                    row.writeLong(snmpInterface.getIfSpeed());
+                    row.writeInt(snmpInterface.getIfAdminStatus());
+                    row.writeInt(snmpInterface.getIfOperStatus());
+                    row.writeString(snmpInterface.getIfAlias());
+                    row.writeTimestamp(snmpInterface.getLastCapsdPoll());
+                    row.writeString(snmpInterface.getCollect());
+                    row.writeString(snmpInterface.getPoll());
+                    row.writeTimestamp(snmpInterface.getLastSnmpPoll());
+                    row.writeInt(snmpInterface.getNode().getId());
+                    row.writeBoolean(snmpInterface.getHasFlows());
+                }
+            });
+
+    public final static Table<OnmsIpInterface> IP_INTERFACES = new Table<>("ipinterface",
+            Arrays.asList("id", "ipHostName", "isManaged", "ipLastCapsdPoll", "isSnmpPrimary", "nodeId",
+                    "snmpInterfaceId", "ipAddr", "netmask"),
+            Arrays.asList("int4", "text", "text", "timestamp", "text", "int4", "int4", "text", "text"),
+            new BiConsumerWithException<RowWriter, OnmsIpInterface>() {
+                @Override
+                public void accept(RowWriter row, OnmsIpInterface ip) throws SQLException {
+                    row.writeInt(ip.getId());
+                    row.writeString(ip.getIpHostName());
+                    row.writeString(ip.getIsManaged());
+                    row.writeTimestamp(ip.getIpLastCapsdPoll());
+                    row.writeString(ip.getPrimaryString());
+                    row.writeInt(ip.getNode().getId());
+                    row.writeInt(ip.getSnmpInterface().getId());
+                    row.writeString(InetAddressUtils.str(ip.getIpAddress()));
+                    row.writeString(InetAddressUtils.str(ip.getNetMask()));
+                }
+            });
+
+    private TopologyTables() {
+    }
+}
@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen.graph;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A compact edge list that can be memory mapped, little endian:
+ * <pre>
+ * 8 bytes  magic "TGEDGES1"
+ * 4 bytes  amount of vertices
+ * 4 bytes  reserved (0)
+ * 8 bytes  amount of edges
+ * edges x (4 bytes source, 4 bytes target)
+ * </pre>
+ * E.g. with numpy: {@code np.memmap(file, dtype='<i4', offset=24).reshape(-1, 2)}. Mapping in Java is limited to
+ * 2 GB, that are ~268 million edges.
+ */
+public class BinaryEdgeList {
+
+    final static byte[] MAGIC = {'T', 'G', 'E', 'D', 'G', 'E', 'S', '1'};
+    final static int HEADER_SIZE = 24;
+
+    private final int vertices;
+    private final long edges;
+    private final IntBuffer pairs;
+
+    private BinaryEdgeList(int vertices, long edges, IntBuffer pairs) {
+        this.vertices = vertices;
+        this.edges = edges;
+        this.pairs = pairs;
+    }
+
+    public static BinaryEdgeList map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            byte[] magic = new byte[MAGIC.length];
+            mapped.get(magic);
+            if (!Arrays.equals(MAGIC, magic)) {
+                throw new IOException(file + " is no binary edge list");
+            }
+            int vertices = mapped.getInt(8);
+            long edges = mapped.getLong(16);
+            mapped.position(HEADER_SIZE);
+            ByteBuffer body = mapped.slice().order(ByteOrder.LITTLE_ENDIAN);
+            return new BinaryEdgeList(vertices, edges, body.asIntBuffer());
+        }
+    }
+
+    public int getVertices() {
+        return vertices;
+    }
+
+    public long getEdges() {
+        return edges;
+    }
+
+    public int getSource(int edge) {
+        return pairs.get(2 * edge);
+    }
+
+    public int getTarget(int edge) {
+        return pairs.get(2 * edge + 1);
+    }
+}
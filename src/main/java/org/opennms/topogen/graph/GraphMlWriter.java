@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen.graph;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Streams the graph as GraphML, e.g. for Gephi or networkx. Every line is written as it comes, nothing is kept in
+ * memory. The ids are plain numbers, so nothing needs to be escaped.
+ */
+public class GraphMlWriter implements GraphWriter {
+
+    private final Writer out;
+
+    public GraphMlWriter(Path file) throws IOException {
+        this(Files.newBufferedWriter(file, StandardCharsets.UTF_8));
+    }
+
+    GraphMlWriter(Writer out) {
+        this.out = out instanceof BufferedWriter ? out : new BufferedWriter(out, 64 * 1024);
+    }
+
+    @Override
+    public void start(int vertices, long edges) throws IOException {
+        out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        out.write("<graphml xmlns=\"http://graphml.graphdrawing.org/xmlns\">\n");
+        out.write("  <graph id=\"topology\" edgedefault=\"undirected\">\n");
+        for (int i = 0; i < vertices; i++) {
+            out.write("    <node id=\"n");
+            out.write(Integer.toString(i));
+            out.write("\"/>\n");
+        }
+    }
+
+    @Override
+    public void edge(int source, int target) throws IOException {
+        out.write("    <edge source=\"n");
+        out.write(Integer.toString(source));
+        out.write("\" target=\"n");
+        out.write(Integer.toString(target));
+        out.write("\"/>\n");
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            out.write("  </graph>\n");
+            out.write("</graphml>\n");
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen.ir;
+
+import java.util.AbstractList;
+
+/**
+ * The ids from (inclusive) to (exclusive) as a list without storing them. Nodes and elements need nothing but their id,
+ * everything else is derived from it while encoding.
+ */
+public class IdRange extends AbstractList<Integer> {
+
+    private final int from;
+    private final int to;
+
+    public IdRange(int from, int to) {
+        if (from > to) {
+            throw new IllegalArgumentException("from must not be larger than to but was " + from + " > " + to);
+        }
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    public Integer get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("index " + index + " is out of range " + this);
+        }
+        return from + index;
+    }
+
+    public int getFrom() {
+        return from;
+    }
+
+    public int getTo() {
+        return to;
+    }
+
+    public boolean contains(int id) {
+        return id >= from && id < to;
+    }
+
+    /** the ids of this range that are less than to */
+    public IdRange limit(int to) {
+        return new IdRange(Math.min(from, to), Math.min(this.to, to));
+    }
+
+    @Override
+    public int size() {
+        return to - from;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + from + ", " + to + ")";
+    }
+}
@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen.ir;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import org.opennms.topogen.util.RandomStreams;
+
+/**
+ * The interfaces of all nodes as one int per node: node n has the interface ids from firstIds[n] (inclusive) to
+ * firstIds[n+1] (exclusive), its ifIndexes count from 1. The amount of interfaces of a node is drawn uniformly from
+ * [min, max], it only depends on the seed and the node id.
+ */
+public class InterfaceLayout {
+
+    private final int[] firstIds;
+
+    public InterfaceLayout(int amountNodes, int min, int max, RandomStreams randomStreams) {
+        if (min < 1 || min > max) {
+            throw new IllegalArgumentException("interfaces per node must be 1 <= min <= max but was " + min + "-" + max);
+        }
+        firstIds = new int[amountNodes + 1];
+        RandomStreams.Cursor cursor = randomStreams.cursor(RandomStreams.Purpose.INTERFACES);
+        long next = 0;
+        for (int node = 0; node < amountNodes; node++) {
+            firstIds[node] = (int) next;
+            SplittableRandom random = cursor.at(node);
+            next += min == max ? min : random.nextInt(min, max + 1);
+            if (next > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("more than " + Integer.MAX_VALUE + " interfaces");
+            }
+        }
+        firstIds[amountNodes] = (int) next;
+    }
+
+    /**
+     * @param interfacesPerNode e.g. 48 for a fixed amount or 48-500 for a range
+     * @return min and max
+     */
+    public static int[] parse(String interfacesPerNode) {
+        String[] parts = interfacesPerNode.split("-");
+        try {
+            int min = Integer.parseInt(parts[0].trim());
+            int max = parts.length == 2 ? Integer.parseInt(parts[1].trim()) : min;
+            if (parts.length > 2 || min < 1 || min > max) {
+                throw new IllegalArgumentException("interfaces per node must be <N> or <MIN>-<MAX> with 1 <= MIN <= MAX "
+                        + "but was " + interfacesPerNode);
+            }
+            return new int[]{min, max};
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("interfaces per node must be <N> or <MIN>-<MAX> but was "
+                    + interfacesPerNode, e);
+        }
+    }
+
+    public int getAmountInterfaces() {
+        return firstIds[firstIds.length - 1];
+    }
+
+    public int getAmountInterfaces(int nodeId) {
+        return firstIds[nodeId + 1] - firstIds[nodeId];
+    }
+
+    /** the ids of the interfaces of the nodes */
+    public IdRange getIds(IdRange nodes) {
+        return new IdRange(firstIds[nodes.getFrom()], firstIds[nodes.getTo()]);
+    }
+
+    public int getNodeId(int interfaceId) {
+        if (interfaceId < 0 || interfaceId >= getAmountInterfaces()) {
+            throw new IndexOutOfBoundsException("no interface " + interfaceId);
+        }
+        // the first ids are strictly increasing since every node has at least one interface
+        int position = Arrays.binarySearch(firstIds, interfaceId);
+        return position >= 0 ? position : -position - 2; // otherwise the node with the largest first id below
+    }
+
+    public int getIfIndex(int interfaceId) {
+        return interfaceId - firstIds[getNodeId(interfaceId)] + 1;
+    }
+
+    /**
+     * Hands out the ports of the nodes one after the other, one counter per node. Once all ports of a node are used
+     * they are handed out again from the first one.
+     */
+    public class Ports {
+        private final int[] usedPorts;
+        private long sharedPorts = 0;
+
+        public Ports() {
+            this.usedPorts = new int[firstIds.length - 1];
+        }
+
+        /** @param usedPorts the amount of ports per node that are used already, e.g. by another protocol */
+        public Ports(int[] usedPorts) {
+            if (usedPorts.length != firstIds.length - 1) {
+                throw new IllegalArgumentException("expected the used ports of " + (firstIds.length - 1)
+                        + " nodes but got " + usedPorts.length);
+            }
+            this.usedPorts = usedPorts.clone();
+        }
+
+        /** @return the ifIndex of the next free port of the node */
+        public int next(int nodeId) {
+            int used = usedPorts[nodeId]++;
+            int amount = getAmountInterfaces(nodeId);
+            if (used >= amount) {
+                sharedPorts++;
+            }
+            return used % amount + 1;
+        }
+
+        /** amount of ports that were handed out although all ports of their node were already used */
+        public long getSharedPorts() {
+            return sharedPorts;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen.ir;
+
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * Links with consecutive ids as struct of arrays: per link only the node and the remote node are stored (8 bytes),
+ * plus the port if the nodes have interfaces (12 bytes), everything else is derived from the ids while encoding. Links
+ * are created in pairs that reference each other, the link of the source has an even id i and the one of the target
+ * i+1.
+ */
+public class LinkChunk {
+
+    private final int firstId;
+    private final int[] nodeIds;
+    private final int[] remoteNodeIds;
+    /** the ports of the links if the nodes have interfaces, see {@link InterfaceLayout} */
+    private int[] ifIndexes;
+    private int size = 0;
+
+    public LinkChunk(int firstId, int capacity) {
+        if ((firstId & 1) != 0) {
+            throw new IllegalArgumentException("a chunk must start with the first link of a pair but was " + firstId);
+        }
+        this.firstId = firstId;
+        this.nodeIds = new int[capacity];
+        this.remoteNodeIds = new int[capacity];
+    }
+
+    /** adds the two links between source and target */
+    public void addPair(int sourceNodeId, int targetNodeId) {
+        nodeIds[size] = sourceNodeId;
+        remoteNodeIds[size++] = targetNodeId;
+        nodeIds[size] = targetNodeId;
+        remoteNodeIds[size++] = sourceNodeId;
+    }
+
+    /** @return true if there is no room for another pair */
+    public boolean isFull() {
+        return size + 2 > nodeIds.length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getId(int index) {
+        return firstId + index;
+    }
+
+    public int getNodeId(int index) {
+        return nodeIds[index];
+    }
+
+    public int getRemoteNodeId(int index) {
+        return remoteNodeIds[index];
+    }
+
+    public void setIfIndex(int index, int ifIndex) {
+        if (ifIndexes == null) {
+            ifIndexes = new int[nodeIds.length];
+        }
+        ifIndexes[index] = ifIndex;
+    }
+
+    /** @return the ifIndex of the port of the link, 0 if not assigned */
+    public int getIfIndex(int index) {
+        return ifIndexes == null ? 0 : ifIndexes[index];
+    }
+
+    /** @return the ifIndex of the port of the remote link, a chunk always holds both links of a pair */
+    public int getRemoteIfIndex(int index) {
+        return getIfIndex(index ^ 1);
+    }
+
+    /** A row per link, created on access - the rows are short lived while the arrays stay compact. */
+    public List<LinkRow> rows() {
+        return new AbstractList<LinkRow>() {
+            @Override
+            public LinkRow get(int index) {
+                if (index < 0 || index >= size) {
+                    throw new IndexOutOfBoundsException("index " + index + " but size " + size);
+                }
+                return new LinkRow(LinkChunk.this, index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /** the rows of the links of the given nodes only, e.g. of one shard - the remote links may be missing */
+    public List<LinkRow> rows(IdRange nodes) {
+        int[] indexes = new int[size];
+        int amount = 0;
+        for (int index = 0; index < size; index++) {
+            if (nodes.contains(nodeIds[index])) {
+                indexes[amount++] = index;
+            }
+        }
+        int amountRows = amount;
+        return new AbstractList<LinkRow>() {
+            @Override
+            public LinkRow get(int index) {
+                if (index < 0 || index >= amountRows) {
+                    throw new IndexOutOfBoundsException("index " + index + " but size " + amountRows);
+                }
+                return new LinkRow(LinkChunk.this, indexes[index]);
+            }
+
+            @Override
+            public int size() {
+                return amountRows;
+            }
+        };
+    }
+}
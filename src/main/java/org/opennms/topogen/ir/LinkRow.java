@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen.ir;
+
+/** One link of a {@link LinkChunk}. */
+public final class LinkRow {
+
+    private final LinkChunk chunk;
+    private final int index;
+
+    LinkRow(LinkChunk chunk, int index) {
+        this.chunk = chunk;
+        this.index = index;
+    }
+
+    public int getId() {
+        return chunk.getId(index);
+    }
+
+    public int getNodeId() {
+        return chunk.getNodeId(index);
+    }
+
+    public int getRemoteNodeId() {
+        return chunk.getRemoteNodeId(index);
+    }
+
+    /** the ifIndex of the port of the link on its node, 0 if the nodes have no interfaces */
+    public int getIfIndex() {
+        return chunk.getIfIndex(index);
+    }
+
+    public int getRemoteIfIndex() {
+        return chunk.getRemoteIfIndex(index);
+    }
+
+    /** the id of the link on the other end, it references this one */
+    public int getRemoteId() {
+        return getId() ^ 1;
+    }
+
+    /** both links of a pair have the same pair index */
+    public int getPairIndex() {
+        return getId() >>> 1;
+    }
+
+    /** true for the link of the source, the first one of the pair */
+    public boolean isSource() {
+        return (getId() & 1) == 0;
+    }
+}
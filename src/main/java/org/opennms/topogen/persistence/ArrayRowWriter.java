@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen.persistence;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Collects the rows of a batch column by column, every column is bound as one array parameter of the statement
+ * {@link Table#getUnnestStatement()}. The arrays have the types the {@link Table} declares for its columns.
+ */
+public class ArrayRowWriter implements RowWriter {
+
+    private final List<String> types;
+    private final Object[][] columns;
+    private final Timestamp now;
+    private int rows = 0;
+    private int index = 0;
+
+    public ArrayRowWriter(List<String> types, int capacity, Timestamp now) {
+        this.types = types;
+        this.columns = new Object[types.size()][capacity];
+        this.now = now;
+    }
+
+    /** Starts a row, must be called before each row is written. */
+    public void nextRow() {
+        rows++;
+        index = 0;
+    }
+
+    /** @return amount of rows in the batch */
+    public int getRows() {
+        return rows;
+    }
+
+    /** Binds every column as array of the rows written so far. */
+    public void bind(Connection c, PreparedStatement stmt) throws SQLException {
+        for (int column = 0; column < columns.length; column++) {
+            stmt.setArray(column + 1, c.createArrayOf(types.get(column), Arrays.copyOf(columns[column], rows)));
+        }
+    }
+
+    /** Empties the batch. */
+    public void clear() {
+        for (Object[] column : columns) {
+            Arrays.fill(column, 0, rows, null);
+        }
+        rows = 0;
+        index = 0;
+    }
+
+    @Override
+    public void writeInt(int value) {
+        write(value);
+    }
+
+    @Override
+    public void writeLong(long value) {
+        write(value);
+    }
+
+    @Override
+    public void writeBoolean(boolean value) {
+        write(value);
+    }
+
+    @Override
+    public void writeString(String value) {
+        write(value);
+    }
+
+    @Override
+    public void writeTimestamp(long epochMillis) {
+        write(new Timestamp(epochMillis));
+    }
+
+    @Override
+    public void writeNow() {
+        write(now);
+    }
+
+    @Override
+    public void writeNull(int sqlType) {
+        write(null);
+    }
+
+    private void write(Object value) {
+        columns[index++][rows - 1] = value;
+    }
+}
@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen.persistence;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.opennms.topogen.util.Phases;
+
+import com.google.common.util.concurrent.RateLimiter;
+
+/**
+ * Loads rows in batches of one statement, each batch is committed in its own transaction. An optional rate limiter is
+ * asked for the rows of a batch before the batch is sent, an optional checkpoint records the ids of every batch. After
+ * a transient error another attempt continues with the first batch that is not committed. The subclasses decide how
+ * the rows of a batch are bound to the statement.
+ */
+public abstract class BatchLoader implements Loader {
+
+    private final DataSource ds;
+    protected final int batchSize;
+    private final LoadMetrics metrics;
+    private final RateLimiter rateLimiter;
+    private final Checkpoint checkpoint;
+    private final Retries retries;
+
+    /**
+     * @param rateLimiter limits the rows per second, null for no limit
+     * @param checkpoint records the committed batches, null to not record them
+     */
+    protected BatchLoader(DataSource ds, int batchSize, LoadMetrics metrics, RateLimiter rateLimiter,
+                          Checkpoint checkpoint, Retries retries) {
+        this.ds = ds;
+        this.batchSize = batchSize;
+        this.metrics = metrics;
+        this.rateLimiter = rateLimiter;
+        this.checkpoint = checkpoint;
+        this.retries = retries;
+    }
+
+    /** the statement that inserts the rows of a batch into the table */
+    protected abstract String getStatement(Table<?> table);
+
+    /**
+     * @param capacity the most rows a batch of this load holds
+     * @param now the time of the *CreateTime columns
+     */
+    protected abstract BatchWriter createWriter(Connection c, PreparedStatement stmt, Table<?> table, int capacity,
+                                                Timestamp now);
+
+    @Override
+    public <T> void load(Table<T> table, List<T> elements) throws SQLException {
+        int[] committed = {0}; // the elements before are committed, another attempt continues after them
+        for (int attempt = 1; ; attempt++) {
+            try {
+                load(table, elements, committed);
+                return;
+            } catch (SQLException e) {
+                retries.beforeRetry(e, attempt, "inserting into " + table.getName());
+            }
+        }
+    }
+
+    private <T> void load(Table<T> table, List<T> elements, int[] committed) throws SQLException {
+        if (committed[0] == elements.size()) {
+            return;
+        }
+        try (Connection c = metrics.getConnection(ds)) {
+            boolean autoCommit = c.getAutoCommit();
+            c.setAutoCommit(false); // one transaction per batch
+            SQLException failure = null;
+            try (PreparedStatement stmt = c.prepareStatement(getStatement(table))) {
+                BatchWriter row = createWriter(c, stmt, table, Math.min(batchSize, elements.size() - committed[0]),
+                        new Timestamp(System.currentTimeMillis()));
+                int rowsInBatch = 0;
+                Phases.Timer encoding = null;
+                for (int index = committed[0]; index < elements.size(); index++) {
+                    if (rowsInBatch == 0) {
+                        encoding = Phases.start(Phases.Phase.ENCODING);
+                    }
+                    row.nextRow();
+                    table.getEncoder().accept(row, elements.get(index));
+                    row.endRow();
+                    if (++rowsInBatch == batchSize || index == elements.size() - 1) { // or the last elements
+                        encoding.stop(rowsInBatch);
+                        executeBatch(c, row, table, elements.subList(committed[0], index + 1));
+                        committed[0] = index + 1;
+                        rowsInBatch = 0;
+                    }
+                }
+            } catch (SQLException e) {
+                Retries.rollback(c, e);
+                failure = e;
+                throw e;
+            } finally {
+                Retries.restoreAutoCommit(c, autoCommit, failure);
+            }
+        }
+    }
+
+    private <T> void executeBatch(Connection c, BatchWriter row, Table<T> table, List<T> batch) throws SQLException {
+        if (rateLimiter != null) {
+            rateLimiter.acquire(batch.size());
+        }
+        long start = System.nanoTime();
+        Phases.Timer execution = Phases.start(Phases.Phase.EXECUTION);
+        row.execute();
+        execution.stop(batch.size());
+        Phases.Timer commit = Phases.start(Phases.Phase.COMMIT);
+        if (checkpoint != null) {
+            checkpoint.record(c, table, table.getId(batch.get(0)), table.getId(batch.get(batch.size() - 1)));
+        }
+        c.commit();
+        commit.stop(batch.size());
+        metrics.recordBatch(batch.size(), System.nanoTime() - start);
+    }
+
+    /** Writes the rows of the batches of one load into its statement. */
+    protected interface BatchWriter extends RowWriter {
+
+        /** Starts a row, called before each row is written. */
+        void nextRow();
+
+        /** Ends the row that was written last. */
+        void endRow() throws SQLException;
+
+        /** Executes the statement with the rows that were written since the last batch. */
+        void execute() throws SQLException;
+    }
+}
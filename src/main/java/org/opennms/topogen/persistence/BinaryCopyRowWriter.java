@@ -0,0 +1,192 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen.persistence;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Encodes rows in the binary format of the Postgres COPY command into a reusable byte buffer: every row starts with
+ * its amount of columns, every column with its length in bytes (-1 for null) followed by the value in the binary
+ * representation of its type, see {@link Table#getTypes()}. All numbers are big endian. A file also needs the
+ * {@link #HEADER} before the first row and the {@link #TRAILER} after the last.
+ */
+public class BinaryCopyRowWriter implements BufferedRowWriter {
+
+    /** the signature, no flags and no header extension */
+    final static byte[] HEADER = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xff, '\r', '\n', 0,
+            0, 0, 0, 0, 0, 0, 0, 0};
+    /** -1 as amount of columns */
+    final static byte[] TRAILER = {(byte) 0xff, (byte) 0xff};
+
+    /** timestamps count microseconds since 2000-01-01 */
+    private final static long POSTGRES_EPOCH_MILLIS = 946_684_800_000L;
+
+    private final List<String> types;
+    private final long now;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private byte[] buffer;
+    private int length = 0;
+    private int column = 0;
+    // like the text format a timestamp is the local time, its offset changes rarely => we look it up once per second
+    private long cachedSecond = Long.MIN_VALUE;
+    private long cachedOffsetMillis;
+
+    public BinaryCopyRowWriter(List<String> types, long now, int initialCapacity) {
+        this.types = types;
+        this.now = now;
+        this.buffer = new byte[initialCapacity];
+    }
+
+    @Override
+    public void endRow() {
+        if (column != types.size()) {
+            throw new IllegalStateException(String.format("row has %d columns but %d were written", types.size(),
+                    column));
+        }
+        column = 0;
+    }
+
+    @Override
+    public byte[] getBuffer() {
+        return buffer;
+    }
+
+    @Override
+    public int getLength() {
+        return length;
+    }
+
+    @Override
+    public void clear() {
+        length = 0;
+        column = 0;
+    }
+
+    @Override
+    public void writeInt(int value) {
+        if ("int8".equals(startColumn())) {
+            writeField(value);
+        } else {
+            ensureCapacity(8);
+            putInt(4);
+            putInt(value);
+        }
+    }
+
+    @Override
+    public void writeLong(long value) {
+        startColumn();
+        writeField(value);
+    }
+
+    @Override
+    public void writeBoolean(boolean value) {
+        startColumn();
+        ensureCapacity(5);
+        putInt(1);
+        buffer[length++] = (byte) (value ? 1 : 0);
+    }
+
+    @Override
+    public void writeString(String value) {
+        startColumn();
+        if (value == null) {
+            writeNullValue();
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        ensureCapacity(4 + bytes.length);
+        putInt(bytes.length);
+        System.arraycopy(bytes, 0, buffer, length, bytes.length);
+        length += bytes.length;
+    }
+
+    @Override
+    public void writeTimestamp(long epochMillis) {
+        startColumn();
+        long second = Math.floorDiv(epochMillis, 1000);
+        if (second != cachedSecond) {
+            cachedOffsetMillis = zone.getRules().getOffset(Instant.ofEpochSecond(second)).getTotalSeconds() * 1000L;
+            cachedSecond = second;
+        }
+        writeField((epochMillis + cachedOffsetMillis - POSTGRES_EPOCH_MILLIS) * 1000);
+    }
+
+    @Override
+    public void writeNow() {
+        writeTimestamp(now);
+    }
+
+    @Override
+    public void writeNull(int sqlType) {
+        startColumn();
+        writeNullValue();
+    }
+
+    /** @return the type of the column that is written next */
+    private String startColumn() {
+        if (column == 0) {
+            ensureCapacity(2);
+            buffer[length++] = (byte) (types.size() >>> 8);
+            buffer[length++] = (byte) types.size();
+        }
+        return types.get(column++);
+    }
+
+    private void writeNullValue() {
+        ensureCapacity(4);
+        putInt(-1);
+    }
+
+    /** an int8 column */
+    private void writeField(long value) {
+        ensureCapacity(12);
+        putInt(8);
+        putInt((int) (value >>> 32));
+        putInt((int) value);
+    }
+
+    /** Caller must ensure capacity for 4 bytes. */
+    private void putInt(int value) {
+        buffer[length++] = (byte) (value >>> 24);
+        buffer[length++] = (byte) (value >>> 16);
+        buffer[length++] = (byte) (value >>> 8);
+        buffer[length++] = (byte) value;
+    }
+
+    private void ensureCapacity(int additionalBytes) {
+        if (length + additionalBytes > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + additionalBytes));
+        }
+    }
+}
@@ -0,0 +1,218 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen.persistence;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Records the id range of every committed batch in the table topogen_checkpoint, in the same transaction as the batch.
+ * A resumed load generates the topology again from the same seed and {@link #remaining} skips the rows that are
+ * already committed. Relies on the rows of a load being ordered by their id, the first column of every table. The
+ * ranges are kept per shard, so the shards of a topology can fail and resume independently.
+ */
+public class Checkpoint {
+
+    private final static Logger LOG = LoggerFactory.getLogger(Checkpoint.class);
+
+    private final static String CREATE = "CREATE TABLE IF NOT EXISTS topogen_checkpoint "
+            + "(shard varchar(32) NOT NULL, tablename varchar(64) NOT NULL, firstid integer NOT NULL, "
+            + "lastid integer NOT NULL)";
+    private final static String INSERT = "INSERT INTO topogen_checkpoint (shard, tablename, firstid, lastid) "
+            + "VALUES (?, ?, ?, ?)";
+    private final static String SELECT = "SELECT tablename, firstid, lastid FROM topogen_checkpoint WHERE shard = ? "
+            + "ORDER BY tablename, firstid";
+    private final static String EXISTS = "SELECT to_regclass('topogen_checkpoint') IS NOT NULL";
+    private final static String DELETE = "DELETE FROM topogen_checkpoint WHERE shard = ?";
+    private final static String DROP = "DROP TABLE IF EXISTS topogen_checkpoint";
+
+    /** the shard the ranges belong to, e.g. 2/4 */
+    private final String shard;
+    /** the committed ranges per table, only known when resuming */
+    private final Map<String, CommittedIds> committed;
+
+    Checkpoint(String shard, Map<String, CommittedIds> committed) {
+        this.shard = shard;
+        this.committed = committed;
+    }
+
+    /**
+     * @param shard the ranges of this shard are recorded and skipped
+     * @param resume true to skip the ranges that are recorded already, false to only record
+     */
+    public static Checkpoint create(DataSource ds, String shard, boolean resume) throws SQLException {
+        Map<String, CommittedIds> committed = new HashMap<>();
+        try (Connection c = ds.getConnection()) {
+            try (Statement stmt = c.createStatement()) {
+                stmt.execute(CREATE);
+            }
+            if (resume) {
+                try (PreparedStatement stmt = c.prepareStatement(SELECT)) {
+                    stmt.setString(1, shard);
+                    try (ResultSet result = stmt.executeQuery()) {
+                        while (result.next()) {
+                            committed.computeIfAbsent(result.getString(1), table -> new CommittedIds())
+                                    .add(result.getInt(2), result.getInt(3));
+                        }
+                    }
+                }
+                committed.forEach((table, ids) -> LOG.info("resuming {}: {} rows are committed already", table,
+                        ids.getAmount()));
+            }
+        }
+        return new Checkpoint(shard, committed);
+    }
+
+    /** Forgets all recorded ranges of all shards, e.g. once the topology is complete. */
+    public static void clear(DataSource ds) throws SQLException {
+        try (Connection c = ds.getConnection(); Statement stmt = c.createStatement()) {
+            stmt.execute(DROP);
+        }
+    }
+
+    /** Forgets the recorded ranges of one shard, the other shards may still need theirs. */
+    public static void clear(DataSource ds, String shard) throws SQLException {
+        try (Connection c = ds.getConnection()) {
+            try (Statement stmt = c.createStatement(); ResultSet exists = stmt.executeQuery(EXISTS)) {
+                if (!exists.next() || !exists.getBoolean(1)) {
+                    return; // nothing was ever recorded
+                }
+            }
+            try (PreparedStatement stmt = c.prepareStatement(DELETE)) {
+                stmt.setString(1, shard);
+                stmt.executeUpdate();
+            }
+        }
+    }
+
+    /** Records the range within the transaction of the batch, so it is committed if and only if the batch is. */
+    public void record(Connection c, Table<?> table, int firstId, int lastId) throws SQLException {
+        try (PreparedStatement stmt = c.prepareStatement(INSERT)) {
+            stmt.setString(1, shard);
+            stmt.setString(2, table.getName());
+            stmt.setInt(3, firstId);
+            stmt.setInt(4, lastId);
+            stmt.executeUpdate();
+        }
+    }
+
+    /** @return the parts of the elements that are not committed yet */
+    public <T> List<List<T>> remaining(Table<T> table, List<T> elements) throws SQLException {
+        CommittedIds ids = committed.get(table.getName());
+        if (ids == null) {
+            return elements.isEmpty() ? new ArrayList<>() : Arrays.asList(elements);
+        }
+        List<List<T>> remaining = new ArrayList<>();
+        int index = 0;
+        while (index < elements.size()) {
+            int id = table.getId(elements.get(index));
+            int range = ids.rangeOf(id);
+            if (range >= 0) {
+                index = firstIndexAbove(table, elements, index, ids.lastIds[range]); // skip the committed ones
+            } else {
+                int next = -range - 1; // the first range after the id
+                int end = next < ids.size ? firstIndexAbove(table, elements, index, ids.firstIds[next] - 1)
+                        : elements.size();
+                remaining.add(elements.subList(index, end));
+                index = end;
+            }
+        }
+        return remaining;
+    }
+
+    /** binary search for the first element from index on with an id larger than the given one */
+    private static <T> int firstIndexAbove(Table<T> table, List<T> elements, int index, int id) throws SQLException {
+        int low = index;
+        int high = elements.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (table.getId(elements.get(middle)) <= id) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /** sorted and merged id ranges as two int arrays */
+    static class CommittedIds {
+        private int[] firstIds = new int[16];
+        private int[] lastIds = new int[16];
+        private int size = 0;
+
+        /** the ranges must be added ordered by their first id */
+        void add(int firstId, int lastId) {
+            if (size > 0 && firstId <= lastIds[size - 1] + 1L) {
+                lastIds[size - 1] = Math.max(lastIds[size - 1], lastId); // adjacent or overlapping
+                return;
+            }
+            if (size == firstIds.length) {
+                firstIds = Arrays.copyOf(firstIds, 2 * size);
+                lastIds = Arrays.copyOf(lastIds, 2 * size);
+            }
+            firstIds[size] = firstId;
+            lastIds[size++] = lastId;
+        }
+
+        /** @return the index of the range that contains the id, otherwise (-(index of the next range) - 1) */
+        int rangeOf(int id) {
+            int position = Arrays.binarySearch(firstIds, 0, size, id);
+            if (position >= 0) {
+                return position;
+            }
+            int previous = -position - 2;
+            if (previous >= 0 && id <= lastIds[previous]) {
+                return previous;
+            }
+            return position;
+        }
+
+        long getAmount() {
+            long amount = 0;
+            for (int i = 0; i < size; i++) {
+                amount += lastIds[i] - (long) firstIds[i] + 1;
+            }
+            return amount;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen.persistence;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Collects elements into chunks and hands every full chunk over to a background thread that persists it while the
+ * next chunk is being filled. At most one chunk waits in the queue, so no more than 3 chunks (filling, waiting,
+ * persisting) are held in memory at any time, regardless of the amount of elements added.
+ */
+public class ChunkedPersister<T> implements AutoCloseable {
+
+    private final static Logger LOG = LoggerFactory.getLogger(ChunkedPersister.class);
+
+    private final String name;
+    private final int chunkSize;
+    private final ConsumerWithException<List<T>> persister;
+    private final BlockingQueue<List<T>> queue = new ArrayBlockingQueue<>(1);
+    private final Thread consumer;
+    private final long start = System.nanoTime();
+    private List<T> chunk;
+    private long amountElements = 0;
+    private volatile Exception failure;
+
+    public ChunkedPersister(String name, int chunkSize, ConsumerWithException<List<T>> persister) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be at least 1 but was " + chunkSize);
+        }
+        this.name = name;
+        this.chunkSize = chunkSize;
+        this.persister = persister;
+        this.chunk = new ArrayList<>(chunkSize);
+        this.consumer = new Thread(this::consume, "persist-" + name);
+        this.consumer.setDaemon(true);
+        this.consumer.start();
+    }
+
+    public void add(T element) throws SQLException {
+        chunk.add(element);
+        amountElements++;
+        if (chunk.size() >= chunkSize) {
+            handOver(chunk);
+            chunk = new ArrayList<>(chunkSize);
+        }
+    }
+
+    /** Hands over a chunk that was filled elsewhere, e.g. a view on primitive arrays. */
+    public void addChunk(List<T> elements) throws SQLException {
+        if (elements.isEmpty()) {
+            return; // would signal the end
+        }
+        if (!chunk.isEmpty()) {
+            handOver(chunk); // keep the order
+            chunk = new ArrayList<>(chunkSize);
+        }
+        amountElements += elements.size();
+        handOver(elements);
+    }
+
+    /** Persists the remaining elements and waits until all chunks are written. */
+    @Override
+    public void close() throws SQLException {
+        if (!chunk.isEmpty()) {
+            handOver(chunk);
+            chunk = new ArrayList<>();
+        }
+        put(Collections.emptyList()); // signals the end
+        try {
+            consumer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for " + name + " to be persisted", e);
+        }
+        rethrowFailure();
+        long durationInMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        LOG.info("created and persisted {} {} in {} ms ({} rows/sec).", amountElements, name, durationInMillis,
+                amountElements * 1000L / durationInMillis);
+    }
+
+    private void handOver(List<T> fullChunk) throws SQLException {
+        rethrowFailure(); // fail fast, no need to produce more if we can't persist
+        put(fullChunk);
+    }
+
+    private void put(List<T> elements) {
+        try {
+            queue.put(elements); // blocks while the previous chunk is still waiting => bounded memory
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while handing over " + name, e);
+        }
+    }
+
+    private void consume() {
+        while (true) {
+            List<T> elements;
+            try {
+                elements = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (elements.isEmpty()) {
+                return; // end reached
+            }
+            if (failure != null) {
+                continue; // drain the queue so that the producer doesn't block forever
+            }
+            try {
+                persister.accept(elements);
+            } catch (SQLException | RuntimeException e) {
+                failure = e;
+            }
+        }
+    }
+
+    /** wraps the failure into a new exception since add() and close() might both report it */
+    private void rethrowFailure() throws SQLException {
+        Exception e = failure;
+        if (e instanceof SQLException) {
+            throw new SQLException("persisting of " + name + " failed: " + e.getMessage(), e);
+        } else if (e != null) {
+            throw new IllegalStateException("persisting of " + name + " failed: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen.persistence;
+
+import java.util.List;
+
+/** The formats of the Postgres COPY command we can write. */
+public enum CopyFormat {
+    /** tab separated, null as \N, special characters escaped with a backslash */
+    text("copy", ""),
+    /** comma separated, strings quoted, null as empty field */
+    csv("csv", " WITH (FORMAT csv)"),
+    /** the binary representation of the column types, see {@link BinaryCopyRowWriter} */
+    binary("bin", " WITH (FORMAT binary)");
+
+    private final String fileExtension;
+    private final String options;
+
+    CopyFormat(String fileExtension, String options) {
+        this.fileExtension = fileExtension;
+        this.options = options;
+    }
+
+    public String getFileExtension() {
+        return fileExtension;
+    }
+
+    /** the encoder of the rows of the table */
+    public BufferedRowWriter createRowWriter(Table<?> table, long now, int initialCapacity) {
+        return this == binary ? new BinaryCopyRowWriter(table.getTypes(), now, initialCapacity)
+                : new CopyRowWriter(now, initialCapacity, this);
+    }
+
+    /** the bytes of a file before its first row */
+    public byte[] getHeader() {
+        return this == binary ? BinaryCopyRowWriter.HEADER.clone() : new byte[0];
+    }
+
+    /** the bytes of a file after its last row */
+    public byte[] getTrailer() {
+        return this == binary ? BinaryCopyRowWriter.TRAILER.clone() : new byte[0];
+    }
+
+    /** e.g. COPY node (nodeid, nodelabel) FROM STDIN WITH (FORMAT csv) */
+    public String copyStatement(String table, List<String> columns) {
+        return String.format("COPY %s (%s) FROM STDIN%s", table, String.join(", ", columns), options);
+    }
+}
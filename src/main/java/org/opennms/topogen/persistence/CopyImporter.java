@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen.persistence;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.zip.GZIPInputStream;
+
+import javax.sql.DataSource;
+
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** Streams an exported file into its table via COPY, the rows are handed over to Postgres as they are. */
+public class CopyImporter {
+
+    private final static Logger LOG = LoggerFactory.getLogger(CopyImporter.class);
+    private final static int BUFFER_SIZE = 256 * 1024;
+
+    private final DataSource ds;
+
+    public CopyImporter(DataSource ds) {
+        this.ds = ds;
+    }
+
+    public void importFile(Path directory, ExportManifest manifest, ExportManifest.Entry entry) throws SQLException, IOException {
+        long start = System.nanoTime();
+        try (Connection c = ds.getConnection();
+             InputStream in = open(directory.resolve(entry.getFile()), manifest.isGzip())) {
+            boolean autoCommit = c.getAutoCommit();
+            c.setAutoCommit(false);
+            try {
+                long rows = c.unwrap(PGConnection.class).getCopyAPI()
+                        .copyIn(manifest.getCopyStatement(entry), in, BUFFER_SIZE);
+                if (rows != entry.getRows()) {
+                    throw new SQLException(String.format("expected %s rows in %s but found %s", entry.getRows(),
+                            entry.getFile(), rows));
+                }
+                c.commit();
+            } catch (SQLException | IOException e) {
+                c.rollback();
+                throw e;
+            } finally {
+                c.setAutoCommit(autoCommit);
+            }
+        }
+        long durationInMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        LOG.info("imported {} rows into {} in {} ms ({} rows/sec).", entry.getRows(), entry.getTable(), durationInMillis,
+                entry.getRows() * 1000L / durationInMillis);
+    }
+
+    private static InputStream open(Path file, boolean gzip) throws IOException {
+        InputStream in = Files.newInputStream(file);
+        return gzip ? new GZIPInputStream(in, BUFFER_SIZE) : in;
+    }
+}
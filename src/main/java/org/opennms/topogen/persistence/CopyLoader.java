@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen.persistence;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.opennms.topogen.util.Phases;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+import com.google.common.util.concurrent.RateLimiter;
+
+/**
+ * Streams rows into the database via the Postgres COPY command (text format). The rows are encoded directly into a
+ * buffer which is handed over to the driver whenever it reaches {@link #FLUSH_THRESHOLD} bytes, such a flush counts as
+ * one batch for the metrics and the optional rate limiter. All rows are committed in one transaction, together with
+ * their range in the optional checkpoint, so another attempt after a transient error starts over.
+ */
+public class CopyLoader implements Loader {
+
+    private final static int FLUSH_THRESHOLD = 256 * 1024;
+
+    private final DataSource ds;
+    private final LoadMetrics metrics;
+    private final RateLimiter rateLimiter;
+    private final Checkpoint checkpoint;
+    private final Retries retries;
+
+    public CopyLoader(DataSource ds) {
+        this(ds, new LoadMetrics(), null, null, Retries.NONE);
+    }
+
+    /**
+     * @param rateLimiter limits the rows per second, null for no limit
+     * @param checkpoint records the committed rows, null to not record them
+     */
+    public CopyLoader(DataSource ds, LoadMetrics metrics, RateLimiter rateLimiter, Checkpoint checkpoint,
+                      Retries retries) {
+        this.ds = ds;
+        this.metrics = metrics;
+        this.rateLimiter = rateLimiter;
+        this.checkpoint = checkpoint;
+        this.retries = retries;
+    }
+
+    @Override
+    public <T> void load(Table<T> table, List<T> elements) throws SQLException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                copy(table, elements);
+                return;
+            } catch (SQLException e) {
+                retries.beforeRetry(e, attempt, "copying into " + table.getName());
+            }
+        }
+    }
+
+    private <T> void copy(Table<T> table, List<T> elements) throws SQLException {
+        CopyRowWriter row = new CopyRowWriter(System.currentTimeMillis(), FLUSH_THRESHOLD + 4 * 1024);
+        try (Connection c = metrics.getConnection(ds)) {
+            boolean autoCommit = c.getAutoCommit();
+            c.setAutoCommit(false);
+            SQLException failure = null;
+            try {
+                CopyIn copyIn = c.unwrap(PGConnection.class).getCopyAPI().copyIn(table.getCopyStatement());
+                try {
+                    int rowsInBuffer = 0;
+                    Phases.Timer encoding = Phases.start(Phases.Phase.ENCODING);
+                    for (T element : elements) {
+                        table.getEncoder().accept(row, element);
+                        row.endRow();
+                        rowsInBuffer++;
+                        if (row.getLength() >= FLUSH_THRESHOLD) {
+                            encoding.stop(rowsInBuffer);
+                            flush(copyIn, row, rowsInBuffer);
+                            rowsInBuffer = 0;
+                            encoding = Phases.start(Phases.Phase.ENCODING);
+                        }
+                    }
+                    encoding.stop(rowsInBuffer);
+                    if (row.getLength() > 0) {
+                        flush(copyIn, row, rowsInBuffer);
+                    }
+                    Phases.Timer execution = Phases.start(Phases.Phase.EXECUTION);
+                    copyIn.endCopy();
+                    execution.stop(0);
+                } finally {
+                    if (copyIn.isActive()) {
+                        copyIn.cancelCopy();
+                    }
+                }
+                Phases.Timer commit = Phases.start(Phases.Phase.COMMIT);
+                if (checkpoint != null && !elements.isEmpty()) {
+                    checkpoint.record(c, table, table.getId(elements.get(0)),
+                            table.getId(elements.get(elements.size() - 1)));
+                }
+                c.commit();
+                commit.stop(elements.size());
+            } catch (SQLException e) {
+                Retries.rollback(c, e);
+                failure = e;
+                throw e;
+            } finally {
+                Retries.restoreAutoCommit(c, autoCommit, failure);
+            }
+        }
+    }
+
+    private void flush(CopyIn copyIn, CopyRowWriter row, int rowsInBuffer) throws SQLException {
+        if (rateLimiter != null) {
+            rateLimiter.acquire(rowsInBuffer);
+        }
+        long start = System.nanoTime();
+        Phases.Timer execution = Phases.start(Phases.Phase.EXECUTION);
+        copyIn.writeToCopy(row.getBuffer(), 0, row.getLength());
+        execution.stop(rowsInBuffer);
+        row.clear();
+        metrics.recordBatch(rowsInBuffer, System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,261 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen.persistence;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+
+/**
+ * Encodes rows in the text format of the Postgres COPY command into a reusable byte buffer:
+ * columns are separated by tabs, rows are terminated by a newline and null is written as \N.
+ * Alternatively encodes the csv format: columns are separated by commas, strings are quoted and null is empty.
+ */
+public class CopyRowWriter implements BufferedRowWriter {
+
+    private final static DateTimeFormatter SECONDS_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")
+            .withZone(ZoneId.systemDefault());
+    private final static byte[] NULL = {'\\', 'N'};
+
+    private byte[] buffer;
+    private int length = 0;
+    private boolean firstColumn = true;
+
+    private final long now;
+    private final boolean csv;
+    // most timestamps of a run fall into the same few seconds => we format the seconds part only once
+    private long cachedSecond = Long.MIN_VALUE;
+    private byte[] cachedSecondFormatted;
+
+    public CopyRowWriter(long now) {
+        this(now, 64 * 1024);
+    }
+
+    public CopyRowWriter(long now, int initialCapacity) {
+        this(now, initialCapacity, CopyFormat.text);
+    }
+
+    public CopyRowWriter(long now, int initialCapacity, CopyFormat format) {
+        this.now = now;
+        this.csv = CopyFormat.csv == format;
+        this.buffer = new byte[initialCapacity];
+    }
+
+    @Override
+    public void endRow() {
+        ensureCapacity(1);
+        buffer[length++] = '\n';
+        firstColumn = true;
+    }
+
+    @Override
+    public byte[] getBuffer() {
+        return buffer;
+    }
+
+    @Override
+    public int getLength() {
+        return length;
+    }
+
+    @Override
+    public void clear() {
+        length = 0;
+        firstColumn = true;
+    }
+
+    @Override
+    public void writeInt(int value) {
+        writeLong(value);
+    }
+
+    @Override
+    public void writeLong(long value) {
+        startColumn();
+        if (value == Long.MIN_VALUE) {
+            writeAscii(Long.toString(value));
+            return;
+        }
+        ensureCapacity(20);
+        if (value < 0) {
+            buffer[length++] = '-';
+            value = -value;
+        }
+        int start = length;
+        do {
+            buffer[length++] = (byte) ('0' + (value % 10));
+            value /= 10;
+        } while (value != 0);
+        reverse(start, length - 1);
+    }
+
+    @Override
+    public void writeBoolean(boolean value) {
+        startColumn();
+        ensureCapacity(1);
+        buffer[length++] = (byte) (value ? 't' : 'f');
+    }
+
+    @Override
+    public void writeString(String value) {
+        startColumn();
+        if (value == null) {
+            writeNullValue();
+            return;
+        }
+        if (csv) {
+            writeQuoted(value);
+            return;
+        }
+        ensureCapacity(value.length() * 2);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x80) {
+                // rare case: not plain ascii, let the jdk do the utf-8 encoding of the rest
+                writeEscaped(value.substring(i).getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            writeEscaped((byte) c);
+        }
+    }
+
+    @Override
+    public void writeTimestamp(long epochMillis) {
+        startColumn();
+        long second = Math.floorDiv(epochMillis, 1000);
+        if (second != cachedSecond) {
+            cachedSecondFormatted = SECONDS_FORMAT.format(Instant.ofEpochSecond(second)).getBytes(StandardCharsets.US_ASCII);
+            cachedSecond = second;
+        }
+        writeBytes(cachedSecondFormatted);
+        int millis = (int) Math.floorMod(epochMillis, 1000);
+        ensureCapacity(4);
+        buffer[length++] = '.';
+        buffer[length++] = (byte) ('0' + millis / 100);
+        buffer[length++] = (byte) ('0' + millis / 10 % 10);
+        buffer[length++] = (byte) ('0' + millis % 10);
+    }
+
+    @Override
+    public void writeNow() {
+        writeTimestamp(now);
+    }
+
+    @Override
+    public void writeNull(int sqlType) {
+        startColumn();
+        writeNullValue();
+    }
+
+    private void writeNullValue() {
+        if (!csv) {
+            writeBytes(NULL);
+        }
+    }
+
+    /** csv: the string in quotes, quotes inside are doubled. Quoting even empty strings tells them apart from null. */
+    private void writeQuoted(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        ensureCapacity(bytes.length * 2 + 2);
+        buffer[length++] = '"';
+        for (byte b : bytes) {
+            if (b == '"') {
+                buffer[length++] = '"';
+            }
+            buffer[length++] = b;
+        }
+        buffer[length++] = '"';
+    }
+
+    private void startColumn() {
+        if (firstColumn) {
+            firstColumn = false;
+        } else {
+            ensureCapacity(1);
+            buffer[length++] = (byte) (csv ? ',' : '\t');
+        }
+    }
+
+    private void writeEscaped(byte[] bytes) {
+        ensureCapacity(bytes.length * 2);
+        for (byte b : bytes) {
+            writeEscaped(b);
+        }
+    }
+
+    /** Caller must ensure capacity for 2 bytes. */
+    private void writeEscaped(byte b) {
+        switch (b) {
+            case '\\':
+                buffer[length++] = '\\';
+                buffer[length++] = '\\';
+                break;
+            case '\t':
+                buffer[length++] = '\\';
+                buffer[length++] = 't';
+                break;
+            case '\n':
+                buffer[length++] = '\\';
+                buffer[length++] = 'n';
+                break;
+            case '\r':
+                buffer[length++] = '\\';
+                buffer[length++] = 'r';
+                break;
+            default:
+                buffer[length++] = b;
+        }
+    }
+
+    private void writeAscii(String value) {
+        writeBytes(value.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private void writeBytes(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, length, bytes.length);
+        length += bytes.length;
+    }
+
+    private void reverse(int from, int to) {
+        while (from < to) {
+            byte tmp = buffer[from];
+            buffer[from++] = buffer[to];
+            buffer[to--] = tmp;
+        }
+    }
+
+    private void ensureCapacity(int additionalBytes) {
+        if (length + additionalBytes > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + additionalBytes));
+        }
+    }
+}
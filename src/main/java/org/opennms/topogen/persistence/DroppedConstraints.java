@@ -0,0 +1,175 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen.persistence;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Drops the foreign keys and secondary indexes of tables before a bulk load and recreates them afterwards: building an
+ * index once is much cheaper than maintaining it for every inserted row. Primary keys and indexes that back a
+ * constraint are kept. The definitions are logged before dropping so they can be restored by hand if the process dies.
+ */
+public class DroppedConstraints {
+
+    private final static Logger LOG = LoggerFactory.getLogger(DroppedConstraints.class);
+
+    private final static String SELECT_FOREIGN_KEYS = "SELECT conrelid::regclass::text, conname, pg_get_constraintdef(oid)"
+            + " FROM pg_constraint WHERE contype = 'f' AND conrelid = ANY(?::regclass[])";
+    private final static String SELECT_SECONDARY_INDEXES = "SELECT i.indexrelid::regclass::text, pg_get_indexdef(i.indexrelid)"
+            + " FROM pg_index i WHERE i.indrelid = ANY(?::regclass[]) AND NOT i.indisprimary"
+            + " AND NOT EXISTS (SELECT 1 FROM pg_constraint c WHERE c.conindid = i.indexrelid)";
+
+    private final DataSource ds;
+    private final List<String> dropForeignKeys = new ArrayList<>();
+    private final List<String> dropIndexes = new ArrayList<>();
+    private final List<String> restoreIndexes = new ArrayList<>();
+    private final List<String> restoreForeignKeys = new ArrayList<>();
+
+    DroppedConstraints(DataSource ds) {
+        this.ds = ds;
+    }
+
+    /**
+     * @param table the name as regclass text, quoted already where needed
+     * @param constraint the plain name, it is quoted here
+     * @param definition as returned by pg_get_constraintdef()
+     */
+    void addForeignKey(String table, String constraint, String definition) {
+        dropForeignKeys.add("ALTER TABLE " + table + " DROP CONSTRAINT " + quote(constraint));
+        restoreForeignKeys.add("ALTER TABLE " + table + " ADD CONSTRAINT " + quote(constraint) + " " + definition);
+    }
+
+    /**
+     * @param index the name as regclass text, quoted already where needed
+     * @param definition as returned by pg_get_indexdef()
+     */
+    void addIndex(String index, String definition) {
+        dropIndexes.add("DROP INDEX " + index);
+        restoreIndexes.add(definition);
+    }
+
+    /** the foreign keys first, they may depend on an index */
+    List<String> getDropStatements() {
+        List<String> statements = new ArrayList<>(dropForeignKeys);
+        statements.addAll(dropIndexes);
+        return statements;
+    }
+
+    /** statements that restore what was dropped, indexes first since foreign keys are validated faster with them */
+    List<String> getRestoreStatements() {
+        List<String> statements = new ArrayList<>(restoreIndexes);
+        statements.addAll(restoreForeignKeys);
+        return statements;
+    }
+
+    public static DroppedConstraints drop(DataSource ds, List<String> tables) throws SQLException {
+        DroppedConstraints dropped = new DroppedConstraints(ds);
+        long start = System.nanoTime();
+        try (Connection c = ds.getConnection()) {
+            boolean autoCommit = c.getAutoCommit();
+            c.setAutoCommit(false);
+            try {
+                String[] tableNames = tables.toArray(new String[0]);
+                try (PreparedStatement stmt = c.prepareStatement(SELECT_FOREIGN_KEYS)) {
+                    stmt.setArray(1, c.createArrayOf("text", tableNames));
+                    try (ResultSet result = stmt.executeQuery()) {
+                        while (result.next()) {
+                            dropped.addForeignKey(result.getString(1), result.getString(2), result.getString(3));
+                        }
+                    }
+                }
+                try (PreparedStatement stmt = c.prepareStatement(SELECT_SECONDARY_INDEXES)) {
+                    stmt.setArray(1, c.createArrayOf("text", tableNames));
+                    try (ResultSet result = stmt.executeQuery()) {
+                        while (result.next()) {
+                            dropped.addIndex(result.getString(1), result.getString(2));
+                        }
+                    }
+                }
+                for (String restore : dropped.getRestoreStatements()) {
+                    LOG.info("dropping, restore with: {};", restore);
+                }
+                try (Statement stmt = c.createStatement()) {
+                    for (String sql : dropped.getDropStatements()) {
+                        stmt.execute(sql);
+                    }
+                }
+                c.commit();
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            } finally {
+                c.setAutoCommit(autoCommit);
+            }
+        }
+        LOG.info("dropped {} foreign keys and {} indexes in {} ms", dropped.restoreForeignKeys.size(),
+                dropped.restoreIndexes.size(), (System.nanoTime() - start) / 1_000_000);
+        return dropped;
+    }
+
+    /** Recreates all dropped indexes and foreign keys in one transaction. */
+    public void restore() throws SQLException {
+        long start = System.nanoTime();
+        List<String> restoreStatements = getRestoreStatements();
+        try (Connection c = ds.getConnection()) {
+            boolean autoCommit = c.getAutoCommit();
+            c.setAutoCommit(false);
+            try (Statement stmt = c.createStatement()) {
+                for (String sql : restoreStatements) {
+                    long statementStart = System.nanoTime();
+                    stmt.execute(sql);
+                    LOG.debug("{} took {} ms", sql, (System.nanoTime() - statementStart) / 1_000_000);
+                }
+                c.commit();
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            } finally {
+                c.setAutoCommit(autoCommit);
+            }
+        }
+        LOG.info("restored {} indexes and foreign keys in {} ms", restoreStatements.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static String quote(String identifier) {
+        return '"' + identifier.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen.persistence;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Describes the files of an export: format, compression and per table the file, the amount of rows and the columns.
+ * Stored as manifest.properties next to the files, the tables are listed in the order they were written.
+ */
+@Getter
+public class ExportManifest {
+
+    public final static String FILE_NAME = "manifest.properties";
+
+    private final CopyFormat format;
+    private final boolean gzip;
+    private final List<Entry> entries;
+
+    @Getter
+    @AllArgsConstructor
+    public static class Entry {
+        private final String table;
+        private final String file;
+        private final long rows;
+        private final List<String> columns;
+    }
+
+    public ExportManifest(CopyFormat format, boolean gzip, List<Entry> entries) {
+        this.format = format;
+        this.gzip = gzip;
+        this.entries = Collections.unmodifiableList(new ArrayList<>(entries));
+    }
+
+    public String getCopyStatement(Entry entry) {
+        return format.copyStatement(entry.getTable(), entry.getColumns());
+    }
+
+    public void write(Path directory) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(directory.resolve(FILE_NAME), StandardCharsets.UTF_8)) {
+            out.write("# topology export, load it with: --import " + directory + "\n");
+            out.write("format=" + format + "\n");
+            out.write("gzip=" + gzip + "\n");
+            List<String> tables = new ArrayList<>();
+            for (Entry entry : entries) {
+                tables.add(entry.getTable());
+            }
+            out.write("tables=" + String.join(",", tables) + "\n");
+            for (Entry entry : entries) {
+                out.write(entry.getTable() + ".file=" + entry.getFile() + "\n");
+                out.write(entry.getTable() + ".rows=" + entry.getRows() + "\n");
+                out.write(entry.getTable() + ".columns=" + String.join(",", entry.getColumns()) + "\n");
+            }
+        }
+    }
+
+    public static ExportManifest read(Path directory) throws IOException {
+        Properties properties = new Properties();
+        try (BufferedReader in = Files.newBufferedReader(directory.resolve(FILE_NAME), StandardCharsets.UTF_8)) {
+            properties.load(in);
+        }
+        List<Entry> entries = new ArrayList<>();
+        for (String table : get(properties, "tables").split(",")) {
+            entries.add(new Entry(table,
+                    get(properties, table + ".file"),
+                    Long.parseLong(get(properties, table + ".rows")),
+                    Arrays.asList(get(properties, table + ".columns").split(","))));
+        }
+        return new ExportManifest(CopyFormat.valueOf(get(properties, "format")),
+                Boolean.parseBoolean(get(properties, "gzip")), entries);
+    }
+
+    private static String get(Properties properties, String key) throws IOException {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            throw new IOException(FILE_NAME + " is missing " + key);
+        }
+        return value;
+    }
+}
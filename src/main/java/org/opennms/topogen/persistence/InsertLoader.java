@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen.persistence;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+import javax.sql.DataSource;
+
+import com.google.common.util.concurrent.RateLimiter;
+
+/**
+ * Loads rows via batched INSERT statements: every row binds its columns as parameters and is added to the JDBC batch
+ * of the statement. See {@link BatchLoader} for the transactions, rate limiting, checkpoint and retries.
+ */
+public class InsertLoader extends BatchLoader {
+
+    public InsertLoader(DataSource ds, int batchSize) {
+        this(ds, batchSize, new LoadMetrics(), null, null, Retries.NONE);
+    }
+
+    /**
+     * @param rateLimiter limits the rows per second, null for no limit
+     * @param checkpoint records the committed batches, null to not record them
+     */
+    public InsertLoader(DataSource ds, int batchSize, LoadMetrics metrics, RateLimiter rateLimiter,
+                        Checkpoint checkpoint, Retries retries) {
+        super(ds, batchSize, metrics, rateLimiter, checkpoint, retries);
+    }
+
+    @Override
+    protected String getStatement(Table<?> table) {
+        return table.getInsertStatement();
+    }
+
+    @Override
+    protected BatchWriter createWriter(Connection c, PreparedStatement stmt, Table<?> table, int capacity,
+                                       Timestamp now) {
+        return new JdbcBatchWriter(stmt, now);
+    }
+
+    private static class JdbcBatchWriter extends StatementRowWriter implements BatchWriter {
+        private final PreparedStatement stmt;
+
+        private JdbcBatchWriter(PreparedStatement stmt, Timestamp now) {
+            super(stmt, now);
+            this.stmt = stmt;
+        }
+
+        @Override
+        public void endRow() throws SQLException {
+            stmt.addBatch();
+        }
+
+        @Override
+        public void execute() throws SQLException {
+            stmt.executeBatch();
+        }
+    }
+}
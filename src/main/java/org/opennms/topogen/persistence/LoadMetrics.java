@@ -0,0 +1,250 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen.persistence;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.sql.DataSource;
+
+import org.opennms.topogen.util.Phases;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Counts the rows and batches the loaders write and keeps the latencies of the most recent batches and connection
+ * pool waits. {@link #start(int)} reports the rolling throughput and the percentiles periodically and registers the
+ * metrics as MXBean, {@link #toPrometheus()} renders them in the Prometheus text format.
+ */
+public class LoadMetrics implements LoadMetricsMXBean, AutoCloseable {
+
+    private final static Logger LOG = LoggerFactory.getLogger(LoadMetrics.class);
+
+    public final static String OBJECT_NAME = "org.opennms.topogen:type=LoadMetrics";
+
+    private final static int WINDOW_SIZE = 4096;
+
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LatencyWindow batchLatencies = new LatencyWindow(WINDOW_SIZE);
+    private final LatencyWindow poolWaits = new LatencyWindow(WINDOW_SIZE);
+    private ScheduledExecutorService reporter;
+    private ObjectName objectName;
+    private long lastReportNanos = System.nanoTime();
+    private long lastReportRows = 0;
+    private volatile long rowsPerSecond = 0;
+
+    /** Takes a connection from the pool and records how long it took. */
+    public Connection getConnection(DataSource ds) throws SQLException {
+        long start = System.nanoTime();
+        Phases.Timer timer = Phases.start(Phases.Phase.POOL_WAIT);
+        Connection connection = ds.getConnection();
+        timer.stop(0);
+        poolWaits.add(System.nanoTime() - start);
+        return connection;
+    }
+
+    public void recordBatch(int rowsInBatch, long durationInNanos) {
+        rows.add(rowsInBatch);
+        batches.increment();
+        batchLatencies.add(durationInNanos);
+    }
+
+    /** Registers the MXBean and reports every intervalInSeconds until closed. */
+    public synchronized void start(int intervalInSeconds) {
+        if (reporter != null) {
+            return;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(this, name);
+                objectName = name;
+            }
+        } catch (JMException e) {
+            LOG.warn("could not register the load metrics as {}: {}", OBJECT_NAME, e.getMessage());
+        }
+        reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "load-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleAtFixedRate(this::report, intervalInSeconds, intervalInSeconds, TimeUnit.SECONDS);
+    }
+
+    /** Updates the rolling throughput and logs it, stays silent while nothing is written. */
+    synchronized void report() {
+        long now = System.nanoTime();
+        long rowsNow = rows.sum();
+        long durationInMillis = Math.max(1, (now - lastReportNanos) / 1_000_000);
+        rowsPerSecond = (rowsNow - lastReportRows) * 1000L / durationInMillis;
+        boolean written = rowsNow > lastReportRows;
+        lastReportNanos = now;
+        lastReportRows = rowsNow;
+        if (written) {
+            LOG.info("{} rows/sec, batch latency p50 {} ms p99 {} ms, pool wait p50 {} ms p99 {} ms", rowsPerSecond,
+                    format(getBatchLatencyP50Millis()), format(getBatchLatencyP99Millis()),
+                    format(getPoolWaitP50Millis()), format(getPoolWaitP99Millis()));
+        }
+    }
+
+    @Override
+    public long getRows() {
+        return rows.sum();
+    }
+
+    @Override
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    @Override
+    public long getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    @Override
+    public double getBatchLatencyP50Millis() {
+        return batchLatencies.percentile(0.5) / 1e6;
+    }
+
+    @Override
+    public double getBatchLatencyP99Millis() {
+        return batchLatencies.percentile(0.99) / 1e6;
+    }
+
+    @Override
+    public double getPoolWaitP50Millis() {
+        return poolWaits.percentile(0.5) / 1e6;
+    }
+
+    @Override
+    public double getPoolWaitP99Millis() {
+        return poolWaits.percentile(0.99) / 1e6;
+    }
+
+    /** the metrics in the Prometheus text exposition format, latencies in seconds */
+    public String toPrometheus() {
+        StringBuilder text = new StringBuilder();
+        appendMetric(text, "topogen_rows_total", "counter", "rows written to the database", getRows());
+        appendMetric(text, "topogen_batches_total", "counter", "batches written to the database", getBatches());
+        appendMetric(text, "topogen_rows_per_second", "gauge", "rows per second during the last report interval",
+                getRowsPerSecond());
+        appendSummary(text, "topogen_batch_latency_seconds", "duration of the recent batches", batchLatencies);
+        appendSummary(text, "topogen_pool_wait_seconds", "wait for a pooled connection", poolWaits);
+        return text.toString();
+    }
+
+    private static void appendMetric(StringBuilder text, String name, String type, String help, long value) {
+        text.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        text.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        text.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void appendSummary(StringBuilder text, String name, String help, LatencyWindow window) {
+        text.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        text.append("# TYPE ").append(name).append(" summary\n");
+        for (double quantile : new double[]{0.5, 0.99}) {
+            text.append(name).append("{quantile=\"").append(quantile).append("\"} ")
+                    .append(window.percentile(quantile) / 1e9).append('\n');
+        }
+        text.append(name).append("_sum ").append(window.getSum() / 1e9).append('\n');
+        text.append(name).append("_count ").append(window.getCount()).append('\n');
+    }
+
+    private static String format(double millis) {
+        return String.format(Locale.ROOT, "%.1f", millis);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (reporter != null) {
+            reporter.shutdown();
+            reporter = null;
+        }
+        if (objectName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            } catch (JMException e) {
+                LOG.warn("could not unregister the load metrics: {}", e.getMessage());
+            }
+            objectName = null;
+        }
+    }
+
+    /** Ring buffer of the most recent durations, the percentiles are computed from a sorted copy. */
+    static class LatencyWindow {
+        private final long[] durations;
+        private long count = 0;
+        private long sum = 0;
+
+        LatencyWindow(int size) {
+            this.durations = new long[size];
+        }
+
+        synchronized void add(long durationInNanos) {
+            durations[(int) (count % durations.length)] = durationInNanos;
+            count++;
+            sum += durationInNanos;
+        }
+
+        /** nearest rank percentile of the recent durations in nanos, 0 if there are none */
+        long percentile(double quantile) {
+            long[] recent;
+            synchronized (this) {
+                recent = Arrays.copyOf(durations, (int) Math.min(count, durations.length));
+            }
+            if (recent.length == 0) {
+                return 0;
+            }
+            Arrays.sort(recent);
+            int rank = (int) Math.ceil(quantile * recent.length);
+            return recent[Math.max(0, rank - 1)];
+        }
+
+        synchronized long getCount() {
+            return count;
+        }
+
+        synchronized long getSum() {
+            return sum;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen.persistence;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Splits the elements into contiguous partitions - since the elements are ordered by id these are id ranges - and
+ * loads each partition with its own writer (thread + pooled connection). Returns only after all writers are done, so
+ * callers can rely on one table being complete before the next (dependent) one is loaded.
+ */
+public class ParallelLoader implements Loader {
+
+    private final static Logger LOG = LoggerFactory.getLogger(ParallelLoader.class);
+
+    private final Loader delegate;
+    private final ExecutorService executor;
+    private final int writers;
+
+    public ParallelLoader(Loader delegate, ExecutorService executor, int writers) {
+        this.delegate = delegate;
+        this.executor = executor;
+        this.writers = writers;
+    }
+
+    @Override
+    public <T> void load(Table<T> table, List<T> elements) throws SQLException {
+        int partitionSize = (elements.size() + writers - 1) / writers;
+        List<Future<String>> results = new ArrayList<>();
+        for (int from = 0, writer = 0; from < elements.size(); from += partitionSize, writer++) {
+            List<T> partition = elements.subList(from, Math.min(from + partitionSize, elements.size()));
+            int writerId = writer;
+            results.add(executor.submit(() -> {
+                long start = System.nanoTime();
+                delegate.load(table, partition);
+                long durationInMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+                return String.format("#%s: %s rows/sec", writerId, partition.size() * 1000L / durationInMillis);
+            }));
+        }
+
+        // wait for all writers, even if one of them failed, so that nothing is written anymore once we return
+        List<String> throughputs = new ArrayList<>();
+        SQLException failure = null;
+        for (Future<String> result : results) {
+            try {
+                throughputs.add(result.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("interrupted while waiting for writers of " + table.getName(), e);
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = new SQLException("writing to " + table.getName() + " failed: " + e.getCause().getMessage(), e.getCause());
+                } else {
+                    failure.addSuppressed(e.getCause());
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        LOG.info("throughput per writer for {}: {}", table.getName(), String.join(", ", throughputs));
+    }
+}
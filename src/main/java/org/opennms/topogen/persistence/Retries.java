@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen.persistence;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Decides which errors are worth another attempt - lost connections, deadlocks, serialization failures, a full disk
+ * or a restarting server - and waits before it, twice as long after every attempt.
+ */
+public class Retries {
+
+    private final static Logger LOG = LoggerFactory.getLogger(Retries.class);
+
+    public final static int DEFAULT_RETRIES = 3;
+    public final static Retries NONE = new Retries(0);
+
+    private final static long FIRST_BACKOFF_MILLIS = 500;
+    private final static long MAX_BACKOFF_MILLIS = 30_000;
+
+    private final int maxRetries;
+
+    public Retries(int maxRetries) {
+        if (maxRetries < 0) {
+            throw new IllegalArgumentException("retries must not be negative but was " + maxRetries);
+        }
+        this.maxRetries = maxRetries;
+    }
+
+    /**
+     * Waits before the next attempt, or rethrows the error if it is not transient or there are no attempts left.
+     * @param attempt the failed attempt, counting from 1
+     */
+    public void beforeRetry(SQLException e, int attempt, String what) throws SQLException {
+        if (attempt > maxRetries || !isTransient(e)) {
+            throw e;
+        }
+        long backoff = Math.min(MAX_BACKOFF_MILLIS, FIRST_BACKOFF_MILLIS << Math.min(attempt - 1, 16));
+        LOG.warn("{} failed ({}), retry {} of {} in {} ms", what, e.getMessage(), attempt, maxRetries, backoff);
+        try {
+            Thread.sleep(backoff);
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
+
+    /** Rolls back after the error, a failing rollback (e.g. of a lost connection) doesn't hide the error. */
+    public static void rollback(Connection c, SQLException e) {
+        try {
+            c.rollback();
+        } catch (SQLException rollbackFailure) {
+            e.addSuppressed(rollbackFailure);
+        }
+    }
+
+    /**
+     * Restores the auto commit mode after a load. A failing restore after an error of the load doesn't hide that error.
+     * @param failure the error of the load, null if it succeeded
+     */
+    public static void restoreAutoCommit(Connection c, boolean autoCommit, SQLException failure) throws SQLException {
+        try {
+            c.setAutoCommit(autoCommit);
+        } catch (SQLException restoreFailure) {
+            if (failure == null) {
+                throw restoreFailure;
+            }
+            failure.addSuppressed(restoreFailure);
+        }
+    }
+
+    /** true if the error or one of its causes or chained exceptions is transient */
+    public static boolean isTransient(SQLException e) {
+        for (Throwable t = e; t != null; t = t.getCause() != null ? t.getCause()
+                : t instanceof SQLException ? ((SQLException) t).getNextException() : null) {
+            if (t instanceof SQLTransientException || t instanceof SQLRecoverableException) {
+                return true;
+            }
+            if (t instanceof SQLException && isTransient(((SQLException) t).getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * connection exceptions (08), transaction rollbacks like deadlocks (40), insufficient resources like a full disk
+     * (53) and an administrator shutting down the server (57P01-57P03)
+     */
+    static boolean isTransient(String sqlState) {
+        return sqlState != null && (sqlState.startsWith("08") || sqlState.startsWith("40")
+                || sqlState.startsWith("53") || sqlState.startsWith("57P"));
+    }
+}
@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen.persistence;
+
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Date;
+
+/** Receives the columns of one row in the order they are declared in the {@link Table}. */
+public interface RowWriter {
+
+    void writeInt(int value) throws SQLException;
+
+    void writeLong(long value) throws SQLException;
+
+    void writeBoolean(boolean value) throws SQLException;
+
+    /** value can be null. */
+    void writeString(String value) throws SQLException;
+
+    void writeTimestamp(long epochMillis) throws SQLException;
+
+    /** Writes the start time of the current load, used for the *CreateTime columns. */
+    void writeNow() throws SQLException;
+
+    void writeNull(int sqlType) throws SQLException;
+
+    default void writeInt(Integer value) throws SQLException {
+        if (value == null) {
+            writeNull(Types.INTEGER);
+        } else {
+            writeInt(value.intValue());
+        }
+    }
+
+    default void writeLong(Long value) throws SQLException {
+        if (value == null) {
+            writeNull(Types.BIGINT);
+        } else {
+            writeLong(value.longValue());
+        }
+    }
+
+    default void writeBoolean(Boolean value) throws SQLException {
+        if (value == null) {
+            writeNull(Types.BOOLEAN);
+        } else {
+            writeBoolean(value.booleanValue());
+        }
+    }
+
+    default void writeTimestamp(Date value) throws SQLException {
+        if (value == null) {
+            writeNull(Types.TIMESTAMP);
+        } else {
+            writeTimestamp(value.getTime());
+        }
+    }
+}
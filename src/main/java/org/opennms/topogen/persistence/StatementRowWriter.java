@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen.persistence;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+/** Binds the columns of a row as parameters of a {@link PreparedStatement}. */
+public class StatementRowWriter implements RowWriter {
+
+    private final PreparedStatement stmt;
+    private final Timestamp now;
+    private int index = 1;
+
+    public StatementRowWriter(PreparedStatement stmt, Timestamp now) {
+        this.stmt = stmt;
+        this.now = now;
+    }
+
+    /** Must be called before the next row is written. */
+    public void nextRow() {
+        index = 1;
+    }
+
+    @Override
+    public void writeInt(int value) throws SQLException {
+        stmt.setInt(index++, value);
+    }
+
+    @Override
+    public void writeLong(long value) throws SQLException {
+        stmt.setLong(index++, value);
+    }
+
+    @Override
+    public void writeBoolean(boolean value) throws SQLException {
+        stmt.setBoolean(index++, value);
+    }
+
+    @Override
+    public void writeString(String value) throws SQLException {
+        stmt.setString(index++, value);
+    }
+
+    @Override
+    public void writeTimestamp(long epochMillis) throws SQLException {
+        stmt.setTimestamp(index++, new Timestamp(epochMillis));
+    }
+
+    @Override
+    public void writeNow() throws SQLException {
+        stmt.setTimestamp(index++, now);
+    }
+
+    @Override
+    public void writeNull(int sqlType) throws SQLException {
+        stmt.setNull(index++, sqlType);
+    }
+}
@@ -0,0 +1,123 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen.persistence;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import lombok.Getter;
+
+/**
+ * Describes a database table: its columns, their types and how to encode an element into a row of it. The first column
+ * is the id.
+ */
+@Getter
+public class Table<T> {
+
+    private final String name;
+    private final List<String> columns;
+    /** the Postgres type of each column as the encoder writes it, e.g. int4, int8, bool, text or timestamp */
+    private final List<String> types;
+    private final BiConsumerWithException<RowWriter, T> encoder;
+    private final String insertStatement;
+    private final String copyStatement;
+    /**
+     * Inserts all rows of a batch with one parameter per column: the values of the column as array of its type. See
+     * {@link ArrayRowWriter}.
+     */
+    private final String unnestStatement;
+
+    public Table(String name, List<String> columns, List<String> types, BiConsumerWithException<RowWriter, T> encoder) {
+        if (columns.size() != types.size()) {
+            throw new IllegalArgumentException(String.format("table %s has %d columns but %d types", name,
+                    columns.size(), types.size()));
+        }
+        this.name = name;
+        this.columns = Collections.unmodifiableList(columns);
+        this.types = Collections.unmodifiableList(types);
+        this.encoder = encoder;
+        String columnList = String.join(", ", columns);
+        this.insertStatement = String.format("INSERT INTO %s (%s) VALUES (%s)", name, columnList,
+                String.join(", ", Collections.nCopies(columns.size(), "?")));
+        this.copyStatement = String.format("COPY %s (%s) FROM STDIN", name, columnList);
+        List<String> arrays = new ArrayList<>();
+        for (String type : types) {
+            arrays.add("?::" + type + "[]");
+        }
+        this.unnestStatement = String.format("INSERT INTO %s (%s) SELECT * FROM unnest(%s)", name, columnList,
+                String.join(", ", arrays));
+    }
+
+    /** the id of the element, the first column of its row */
+    public int getId(T element) throws SQLException {
+        IdRowWriter row = new IdRowWriter();
+        encoder.accept(row, element);
+        return row.id;
+    }
+
+    /** keeps the first int, ignores everything else */
+    private static class IdRowWriter implements RowWriter {
+        private int id;
+        private boolean first = true;
+
+        @Override
+        public void writeInt(int value) {
+            if (first) {
+                id = value;
+                first = false;
+            }
+        }
+
+        @Override
+        public void writeLong(long value) {
+        }
+
+        @Override
+        public void writeBoolean(boolean value) {
+        }
+
+        @Override
+        public void writeString(String value) {
+        }
+
+        @Override
+        public void writeTimestamp(long epochMillis) {
+        }
+
+        @Override
+        public void writeNow() {
+        }
+
+        @Override
+        public void writeNull(int sqlType) {
+        }
+    }
+}
@@ -29,95 +29,107 @@
 package org.opennms.topogen.protocol;
 
 import java.sql.SQLException;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
-import java.util.UUID;
 
-import org.apache.commons.lang3.tuple.Pair;
 import org.opennms.netmgt.model.CdpElement;
 import org.opennms.netmgt.model.CdpLink;
 import org.opennms.netmgt.model.OnmsNode;
 import org.opennms.netmgt.model.OspfElement;
 import org.opennms.topogen.TopologyGenerator;
-import org.opennms.topogen.TopologyPersister;
-import org.opennms.topogen.topology.PairGenerator;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.opennms.topogen.TopologySettings;
+import org.opennms.topogen.TopologySink;
+import org.opennms.topogen.TopologyTables;
+import org.opennms.topogen.ir.LinkRow;
+import org.opennms.topogen.persistence.BiConsumerWithException;
+import org.opennms.topogen.persistence.RowWriter;
+import org.opennms.topogen.persistence.Table;
 
 import lombok.Getter;
 
 public class CdpProtocol extends Protocol<CdpElement> {
-    private final static Logger LOG = LoggerFactory.getLogger(CdpProtocol.class);
     @Getter
     private TopologyGenerator.Protocol protocol = TopologyGenerator.Protocol.cdp;
 
-    public CdpProtocol(TopologyGenerator.Topology topology, int amountNodes, int amountLinks,
-                       int amountElements, int amountSnmpInterfaces, int amountIpInterfaces, TopologyPersister persister){
-        super(topology, amountNodes, amountLinks, amountElements, amountSnmpInterfaces, amountIpInterfaces, persister);
+    @Getter
+    private final Table<Integer> elementTable = new Table<>("cdpelement", TopologyTables.CDP_ELEMENTS.getColumns(),
+            TopologyTables.CDP_ELEMENTS.getTypes(), new BiConsumerWithException<RowWriter, Integer>() {
+                @Override
+                public void accept(RowWriter row, Integer id) throws SQLException {
+                    row.writeInt(id);
+                    row.writeInt(id); // we use the same id for simplicity
+                    row.writeInt(OspfElement.TruthValue.FALSE.getValue());
+                    row.writeString(globalDeviceId(id));
+                    row.writeNow();
+                    row.writeNow();
+                }
+            });
+
+    @Getter
+    private final Table<LinkRow> linkTable = new Table<>("cdplink", TopologyTables.CDP_LINKS.getColumns(),
+            TopologyTables.CDP_LINKS.getTypes(), new BiConsumerWithException<RowWriter, LinkRow>() {
+                @Override
+                public void accept(RowWriter row, LinkRow link) throws SQLException {
+                    row.writeInt(link.getId());
+                    row.writeInt(link.getNodeId());
+                    row.writeInt(ifIndex(link, 33));
+                    row.writeString(identifiers.get().portId(link.getId()));
+                    row.writeInt(CdpLink.CiscoNetworkProtocolType.chaos.getValue());
+                    row.writeString("CdpCacheAddress");
+                    row.writeString("CdpCacheVersion");
+                    row.writeString(globalDeviceId(link.getRemoteNodeId()));
+                    row.writeString(identifiers.get().portId(link.getRemoteId()));
+                    row.writeString("CdpCacheDevicePlatform");
+                    row.writeNow();
+                    row.writeInt(33);
+                    row.writeNow();
+                }
+            });
+
+    public CdpProtocol(TopologySettings settings, TopologySink sink){
+        super(settings, sink);
     }
 
     @Override
-    public void createAndPersistProtocolSpecificEntities(List<OnmsNode> nodes) throws SQLException {
-        List<CdpElement> cdpElements = createCdpElements(nodes);
-        persister.persistCdpElements(cdpElements);
-        List<CdpLink> links = createCdpLinks(cdpElements);
-        persister.persistCdpLinks(links);
+    public void createAndPersistProtocolSpecificEntities() throws SQLException {
+        createAndPersistElements(elementTable);
+        createAndPersistLinks("CdpLinks", linkTable);
     }
 
-    private List<CdpElement> createCdpElements(List<OnmsNode> nodes) {
-        ArrayList<CdpElement> cdpElements = new ArrayList<>();
-        for (int i = 0; i < amountElements; i++) {
-            OnmsNode node = nodes.get(i);
-            cdpElements.add(createCdpElement(node));
-        }
-        return cdpElements;
+    @Override
+    public List<Table<?>> getTables() {
+        return Arrays.asList(NODES, elementTable, linkTable);
     }
 
-    private CdpElement createCdpElement(OnmsNode node) {
+    private static String globalDeviceId(int nodeId) {
+        return "CdpElementForNode" + nodeId;
+    }
+
+    /** the element as model object, the same as the row of {@link #getElementTable()} */
+    public CdpElement toElement(int id) {
         CdpElement cdpElement = new CdpElement();
-        cdpElement.setId(node.getId()); // we use the same id for simplicity
-        cdpElement.setNode(node);
-        cdpElement.setCdpGlobalDeviceId("CdpElementForNode" + node.getId());
+        cdpElement.setId(id); // we use the same id for simplicity
+        cdpElement.setNode(toNode(id));
+        cdpElement.setCdpGlobalDeviceId(globalDeviceId(id));
         cdpElement.setCdpGlobalRun(OspfElement.TruthValue.FALSE);
         cdpElement.setCdpNodeLastPollTime(new Date());
         return cdpElement;
     }
 
-    private List<CdpLink> createCdpLinks(List<CdpElement> cdpElements) {
-        PairGenerator<CdpElement> pairs = createPairGenerator(cdpElements);
-        List<CdpLink> links = new ArrayList<>();
-        for (int i = 0; i < amountLinks; i++) {
-
-            // We create 2 links that reference each other, see also LinkdToplologyProvider.matchCdpLinks()
-            Pair<CdpElement, CdpElement> pair = pairs.next();
-            CdpElement sourceCdpElement = pair.getLeft();
-            CdpElement targetCdpElement = pair.getRight();
-            CdpLink sourceLink = createCdpLink(i,
-                    sourceCdpElement.getNode(),
-                    UUID.randomUUID().toString(),
-                    UUID.randomUUID().toString(),
-                    targetCdpElement.getCdpGlobalDeviceId()
-            );
-            links.add(sourceLink);
-
-            String targetCdpCacheDevicePort = sourceLink.getCdpInterfaceName();
-            String targetCdpInterfaceName = sourceLink.getCdpCacheDevicePort();
-            String targetCdpGlobalDeviceId = sourceCdpElement.getCdpGlobalDeviceId();
-            CdpLink targetLink = createCdpLink(++i,
-                    targetCdpElement.getNode(),
-                    targetCdpInterfaceName,
-                    targetCdpCacheDevicePort,
-                    targetCdpGlobalDeviceId
-            );
-            links.add(targetLink);
-            LOG.debug("Linked node {} with node {}", sourceCdpElement.getNode().getLabel(), targetCdpElement.getNode().getLabel());
-        }
-        return links;
+    /** the link as model object, the same as the row of {@link #getLinkTable()} */
+    public CdpLink toLink(LinkRow link) {
+        return createCdpLink(link.getId(),
+                toNode(link.getNodeId()),
+                identifiers.get().portId(link.getId()),
+                identifiers.get().portId(link.getRemoteId()),
+                globalDeviceId(link.getRemoteNodeId()),
+                ifIndex(link, 33)
+        );
     }
 
     private CdpLink createCdpLink(int id, OnmsNode node, String cdpInterfaceName, String cdpCacheDevicePort,
-                                  String cdpCacheDeviceId) {
+                                  String cdpCacheDeviceId, int cdpCacheIfIndex) {
         CdpLink link = new CdpLink();
         link.setId(id);
         link.setCdpCacheDeviceId(cdpCacheDeviceId);
@@ -128,7 +140,7 @@ public class CdpProtocol extends Protocol<CdpElement> {
         link.setCdpCacheAddress("CdpCacheAddress");
         link.setCdpCacheDeviceIndex(33);
         link.setCdpCacheDevicePlatform("CdpCacheDevicePlatform");
-        link.setCdpCacheIfIndex(33);
+        link.setCdpCacheIfIndex(cdpCacheIfIndex);
         link.setCdpCacheVersion("CdpCacheVersion");
         link.setCdpLinkLastPollTime(new Date());
         return link;
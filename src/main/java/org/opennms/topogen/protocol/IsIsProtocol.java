@@ -29,88 +29,106 @@
 package org.opennms.topogen.protocol;
 
 import java.sql.SQLException;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 
-import org.apache.commons.lang3.tuple.Pair;
 import org.opennms.netmgt.model.IsIsElement;
 import org.opennms.netmgt.model.IsIsLink;
 import org.opennms.netmgt.model.OnmsNode;
 import org.opennms.topogen.TopologyGenerator;
-import org.opennms.topogen.TopologyPersister;
-import org.opennms.topogen.topology.PairGenerator;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.opennms.topogen.TopologySettings;
+import org.opennms.topogen.TopologySink;
+import org.opennms.topogen.TopologyTables;
+import org.opennms.topogen.ir.LinkRow;
+import org.opennms.topogen.persistence.BiConsumerWithException;
+import org.opennms.topogen.persistence.RowWriter;
+import org.opennms.topogen.persistence.Table;
 
 import lombok.Getter;
 
 public class IsIsProtocol extends Protocol<IsIsElement> {
-    private final static Logger LOG = LoggerFactory.getLogger(IsIsProtocol.class);
     @Getter
     private TopologyGenerator.Protocol protocol = TopologyGenerator.Protocol.isis;
-    public IsIsProtocol(TopologyGenerator.Topology topology, int amountNodes, int amountLinks,
-                        int amountElements, int amountSnmpInterfaces, int amountIpInterfaces, TopologyPersister persister){
-        super(topology, amountNodes, amountLinks, amountElements, amountSnmpInterfaces, amountIpInterfaces, persister);
+
+    @Getter
+    private final Table<Integer> elementTable = new Table<>("isiselement", TopologyTables.ISIS_ELEMENTS.getColumns(),
+            TopologyTables.ISIS_ELEMENTS.getTypes(), new BiConsumerWithException<RowWriter, Integer>() {
+                @Override
+                public void accept(RowWriter row, Integer id) throws SQLException {
+                    row.writeInt(id);
+                    row.writeInt(id); // we use the same id for simplicity
+                    row.writeInt(IsIsElement.IsisAdminState.on.getValue());
+                    row.writeString(sysId(id));
+                    row.writeNow();
+                    row.writeNow();
+                }
+            });
+
+    @Getter
+    private final Table<LinkRow> linkTable = new Table<>("isislink", TopologyTables.ISIS_LINKS.getColumns(),
+            TopologyTables.ISIS_LINKS.getTypes(), new BiConsumerWithException<RowWriter, LinkRow>() {
+                @Override
+                public void accept(RowWriter row, LinkRow link) throws SQLException {
+                    row.writeInt(link.getId());
+                    row.writeInt(link.getNodeId());
+                    row.writeInt(3);
+                    row.writeInt(adjIndex(link));
+                    row.writeInt(ifIndex(link, 3));
+                    row.writeInt(IsIsElement.IsisAdminState.on.getValue());
+                    row.writeInt(IsIsLink.IsisISAdjState.up.getValue());
+                    row.writeString("isisISAdjNeighSNPAAddress");
+                    row.writeInt(IsIsLink.IsisISAdjNeighSysType.l1_IntermediateSystem.getValue());
+                    row.writeString(sysId(link.getRemoteNodeId()));
+                    row.writeInt(3);
+                    row.writeNow();
+                    row.writeNow();
+                }
+            });
+
+    public IsIsProtocol(TopologySettings settings, TopologySink sink){
+        super(settings, sink);
     }
 
     @Override
-    public void createAndPersistProtocolSpecificEntities(List<OnmsNode> nodes) throws SQLException {
-        List<IsIsElement> elements = createElements(nodes);
-        persister.persistIsIsElements(elements);
-        List<IsIsLink> links = createLinks(elements);
-        persister.persistIsIsLinks(links);
+    public void createAndPersistProtocolSpecificEntities() throws SQLException {
+        createAndPersistElements(elementTable);
+        createAndPersistLinks("IsIsLinks", linkTable);
+    }
+
+    @Override
+    public List<Table<?>> getTables() {
+        return Arrays.asList(NODES, elementTable, linkTable);
+    }
+
+    private static String sysId(int nodeId) {
+        return "IsIsElementForNode" + nodeId;
     }
 
-    private List<IsIsElement> createElements(List<OnmsNode> nodes) {
-        ArrayList<IsIsElement> elements = new ArrayList<>();
-        for (int i = 0; i < amountElements; i++) {
-            OnmsNode node = nodes.get(i);
-            elements.add(createElement(node));
-        }
-        return elements;
+    /** both links of a pair share the adjacency index, counting from 1 */
+    private static int adjIndex(LinkRow link) {
+        return link.getPairIndex() + 1;
     }
 
-    private IsIsElement createElement(OnmsNode node) {
+    /** the element as model object, the same as the row of {@link #getElementTable()} */
+    public IsIsElement toElement(int id) {
         IsIsElement element = new IsIsElement();
-        element.setId(node.getId()); // we use the same id for simplicity
-        element.setNode(node);
-        element.setIsisSysID("IsIsElementForNode" + node.getId());
+        element.setId(id); // we use the same id for simplicity
+        element.setNode(toNode(id));
+        element.setIsisSysID(sysId(id));
         element.setIsisSysAdminState(IsIsElement.IsisAdminState.on);
         element.setIsisNodeLastPollTime(new Date());
         return element;
     }
 
-    private List<IsIsLink> createLinks(List<IsIsElement> elements) {
-        PairGenerator<IsIsElement> pairs = createPairGenerator(elements);
-        List<IsIsLink> links = new ArrayList<>();
-        Integer isisISAdjIndex = 0;
-
-        for (int i = 0; i < amountLinks; i++) {
-
-            // We create 2 links that reference each other, see also LinkdToplologyProvider.match...Links()
-            Pair<IsIsElement, IsIsElement> pair = pairs.next();
-            IsIsElement sourceElement = pair.getLeft();
-            IsIsElement targetElement = pair.getRight();
-            isisISAdjIndex++;
-            IsIsLink sourceLink = createLink(i,
-                    sourceElement.getNode(),
-                    isisISAdjIndex, targetElement.getIsisSysID()
-            );
-            links.add(sourceLink);
-
-            IsIsLink targetLink = createLink(++i,
-                    targetElement.getNode(),
-                    isisISAdjIndex,
-                    sourceElement.getIsisSysID()
-            );
-            links.add(targetLink);
-            LOG.debug("Linked node {} with node {}", sourceElement.getNode().getLabel(), targetElement.getNode().getLabel());
-        }
-        return links;
+    /** the link as model object, the same as the row of {@link #getLinkTable()} */
+    public IsIsLink toLink(LinkRow link) {
+        return createLink(link.getId(), toNode(link.getNodeId()), adjIndex(link), sysId(link.getRemoteNodeId()),
+                ifIndex(link, 3));
     }
 
-    private IsIsLink createLink(int id, OnmsNode node, Integer isisISAdjIndex, String isisISAdjNeighSysID) {
+    private IsIsLink createLink(int id, OnmsNode node, Integer isisISAdjIndex, String isisISAdjNeighSysID,
+                                int isisCircIfIndex) {
         IsIsLink link = new IsIsLink();
         link.setId(id);
         link.setIsisISAdjIndex(isisISAdjIndex);
@@ -123,7 +141,7 @@ public class IsIsProtocol extends Protocol<IsIsElement> {
         link.setIsisISAdjNeighSNPAAddress("isisISAdjNeighSNPAAddress");
         link.setIsisISAdjNeighSysType(IsIsLink.IsisISAdjNeighSysType.l1_IntermediateSystem);
         link.setIsisISAdjNbrExtendedCircID(3);
-        link.setIsisCircIfIndex(3);
+        link.setIsisCircIfIndex(isisCircIfIndex);
         link.setIsisCircAdminState(IsIsElement.IsisAdminState.on);
         return link;
     }
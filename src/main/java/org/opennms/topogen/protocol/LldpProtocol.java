@@ -29,97 +29,110 @@
 package org.opennms.topogen.protocol;
 
 import java.sql.SQLException;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
-import java.util.UUID;
 
-import org.apache.commons.lang3.tuple.Pair;
 import org.opennms.core.utils.LldpUtils;
 import org.opennms.netmgt.model.LldpElement;
 import org.opennms.netmgt.model.LldpLink;
 import org.opennms.netmgt.model.OnmsNode;
 import org.opennms.topogen.TopologyGenerator;
-import org.opennms.topogen.TopologyPersister;
-import org.opennms.topogen.topology.PairGenerator;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.opennms.topogen.TopologySettings;
+import org.opennms.topogen.TopologySink;
+import org.opennms.topogen.TopologyTables;
+import org.opennms.topogen.ir.LinkRow;
+import org.opennms.topogen.persistence.BiConsumerWithException;
+import org.opennms.topogen.persistence.RowWriter;
+import org.opennms.topogen.persistence.Table;
 
 import lombok.Getter;
 
 public class LldpProtocol extends Protocol<LldpElement> {
-    private final static Logger LOG = LoggerFactory.getLogger(IsIsProtocol.class);
     @Getter
     private TopologyGenerator.Protocol protocol = TopologyGenerator.Protocol.lldp;
-    public LldpProtocol(TopologyGenerator.Topology topology, int amountNodes, int amountLinks,
-                        int amountElements, int amountSnmpInterfaces, int amountIpInterfaces, TopologyPersister persister){
-        super(topology, amountNodes, amountLinks, amountElements, amountSnmpInterfaces, amountIpInterfaces, persister);
+
+    @Getter
+    private final Table<Integer> elementTable = new Table<>("lldpelement", TopologyTables.LLDP_ELEMENTS.getColumns(),
+            TopologyTables.LLDP_ELEMENTS.getTypes(), new BiConsumerWithException<RowWriter, Integer>() {
+                @Override
+                public void accept(RowWriter row, Integer id) throws SQLException {
+                    row.writeInt(id);
+                    row.writeInt(id);
+                    row.writeInt(LldpUtils.LldpChassisIdSubType.LLDP_CHASSISID_SUBTYPE_CHASSISCOMPONENT.getValue());
+                    row.writeString("LldpSysname");
+                    row.writeString(identifiers.get().chassisId(id));
+                    row.writeNow();
+                    row.writeNow();
+                }
+            });
+
+    // the port id subtype is mac address, the id of each of the two links gives its own address
+    @Getter
+    private final Table<LinkRow> linkTable = new Table<>("lldplink", TopologyTables.LLDP_LINKS.getColumns(),
+            TopologyTables.LLDP_LINKS.getTypes(), new BiConsumerWithException<RowWriter, LinkRow>() {
+                @Override
+                public void accept(RowWriter row, LinkRow link) throws SQLException {
+                    row.writeInt(link.getId());
+                    row.writeInt(link.getNodeId());
+                    row.writeInt(ifIndex(link, 123));
+                    row.writeInt(LldpUtils.LldpPortIdSubType.LLDP_PORTID_SUBTYPE_MACADDRESS.getValue());
+                    row.writeString(identifiers.get().macAddress(link.getId()));
+                    row.writeString("lldpPortDescr");
+                    row.writeInt(ifIndex(link, 123));
+                    row.writeString(identifiers.get().chassisId(link.getRemoteNodeId()));
+                    row.writeString("lldpRemSysname");
+                    row.writeInt(LldpUtils.LldpChassisIdSubType.LLDP_CHASSISID_SUBTYPE_CHASSISCOMPONENT.getValue());
+                    row.writeInt(LldpUtils.LldpPortIdSubType.LLDP_PORTID_SUBTYPE_MACADDRESS.getValue());
+                    row.writeString(identifiers.get().macAddress(link.getRemoteId()));
+                    row.writeString("lldpRemPortDescr");
+                    row.writeNow();
+                    row.writeNow();
+                }
+            });
+
+    public LldpProtocol(TopologySettings settings, TopologySink sink){
+        super(settings, sink);
     }
 
     @Override
-    public void createAndPersistProtocolSpecificEntities(List<OnmsNode> nodes) throws SQLException {
-        List<LldpElement> elements = createElements(nodes);
-        persister.persistLldpElements(elements);
-        List<LldpLink> links = createLinks(elements);
-        persister.persistLldpLinks(links);
+    public void createAndPersistProtocolSpecificEntities() throws SQLException {
+        createAndPersistElements(elementTable);
+        createAndPersistLinks("LldpLinks", linkTable);
     }
 
-    private List<LldpElement> createElements(List<OnmsNode> nodes) {
-        ArrayList<LldpElement> elements = new ArrayList<>();
-        for (int i = 0; i < amountElements; i++) {
-            OnmsNode node = nodes.get(i);
-            String lLdpChassisId = "lLdpChassisId"+UUID.randomUUID();
-            elements.add(createElement(node, lLdpChassisId));
-        }
-        return elements;
+    @Override
+    public List<Table<?>> getTables() {
+        return Arrays.asList(NODES, elementTable, linkTable);
     }
 
-    private LldpElement createElement(OnmsNode node, String lLdpChassisId) {
+    /** the element as model object, the same as the row of {@link #getElementTable()} */
+    public LldpElement toElement(int id) {
         LldpElement element = new LldpElement();
-        element.setId(node.getId());
-        element.setNode(node);
-        element.setLldpChassisId(lLdpChassisId);
+        element.setId(id);
+        element.setNode(toNode(id));
+        element.setLldpChassisId(identifiers.get().chassisId(id));
         element.setLldpChassisIdSubType(LldpUtils.LldpChassisIdSubType.LLDP_CHASSISID_SUBTYPE_CHASSISCOMPONENT);
         element.setLldpNodeLastPollTime(new Date());
         element.setLldpSysname("LldpSysname");
         return element;
     }
 
-
-    private List<LldpLink> createLinks(List<LldpElement> elements) {
-        PairGenerator<LldpElement> pairs = createPairGenerator(elements);
-        List<LldpLink> links = new ArrayList<>();
-        for (int i = 0; i < amountLinks; i++) {
-
-            // We create 2 links that reference each other, see also LinkdToplologyProvider.match...Links()
-            Pair<LldpElement, LldpElement> pair = pairs.next();
-            LldpElement sourceElement = pair.getLeft();
-            LldpElement targetElement = pair.getRight();
-
-            String portId = UUID.randomUUID().toString();
-            String portIdRemote = UUID.randomUUID().toString();
-            LldpUtils.LldpPortIdSubType portIdSubType = LldpUtils.LldpPortIdSubType.LLDP_PORTID_SUBTYPE_MACADDRESS;
-            LldpUtils.LldpPortIdSubType portIdSubTypeRemote = LldpUtils.LldpPortIdSubType.LLDP_PORTID_SUBTYPE_MACADDRESS;
-
-            LldpLink sourceLink = createLink(i,
-                    sourceElement.getNode(),
-                    portId, portIdSubType, portIdRemote, portIdSubTypeRemote, targetElement.getLldpChassisId()
-            );
-            links.add(sourceLink);
-            LldpLink targetLink = createLink(++i,
-                    targetElement.getNode(),
-                    portIdRemote, portIdSubTypeRemote, portId, portIdSubType, sourceElement.getLldpChassisId()
-            );
-
-            links.add(targetLink);
-            LOG.debug("Linked node {} with node {}", sourceElement.getNode().getLabel(), targetElement.getNode().getLabel());
-        }
-        return links;
+    /** the link as model object, the same as the row of {@link #getLinkTable()} */
+    public LldpLink toLink(LinkRow link) {
+        LldpUtils.LldpPortIdSubType portIdSubType = LldpUtils.LldpPortIdSubType.LLDP_PORTID_SUBTYPE_MACADDRESS;
+        return createLink(link.getId(),
+                toNode(link.getNodeId()),
+                identifiers.get().macAddress(link.getId()), portIdSubType,
+                identifiers.get().macAddress(link.getRemoteId()), portIdSubType,
+                identifiers.get().chassisId(link.getRemoteNodeId()),
+                ifIndex(link, 123)
+        );
     }
 
-
     private LldpLink createLink(int id, OnmsNode node, String portId, LldpUtils.LldpPortIdSubType portIdSubType
-            , String remotePortId, LldpUtils.LldpPortIdSubType remotePortIdSubType, String remoteChassisId) {
+            , String remotePortId, LldpUtils.LldpPortIdSubType remotePortIdSubType, String remoteChassisId,
+                                int portIfIndex) {
         LldpLink link = new LldpLink();
         link.setId(id);
         link.setLldpPortId(portId);
@@ -131,10 +144,9 @@ public class LldpProtocol extends Protocol<LldpElement> {
 
         // static attributes:
         link.setLldpRemChassisIdSubType(LldpUtils.LldpChassisIdSubType.LLDP_CHASSISID_SUBTYPE_CHASSISCOMPONENT); // shouldn't be relevant for match => set it fixed
-        link.setLldpLocalPortNum(123);
-        link.setLldpPortIfindex(123);
+        link.setLldpLocalPortNum(portIfIndex);
+        link.setLldpPortIfindex(portIfIndex);
         link.setLldpLinkLastPollTime(new Date());
-        link.setLldpPortDescr("lldpportdescr");
         link.setLldpRemSysname("lldpRemSysname");
         link.setLldpPortDescr("lldpPortDescr");
         link.setLldpRemPortDescr("lldpRemPortDescr");
@@ -30,85 +30,114 @@ package org.opennms.topogen.protocol;
 
 import java.net.InetAddress;
 import java.sql.SQLException;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 
-import org.apache.commons.lang3.tuple.Pair;
+import org.opennms.core.utils.InetAddressUtils;
 import org.opennms.netmgt.model.OnmsNode;
 import org.opennms.netmgt.model.OspfElement;
 import org.opennms.netmgt.model.OspfLink;
 import org.opennms.topogen.TopologyGenerator;
-import org.opennms.topogen.TopologyPersister;
-import org.opennms.topogen.topology.PairGenerator;
+import org.opennms.topogen.TopologySettings;
+import org.opennms.topogen.TopologySink;
+import org.opennms.topogen.TopologyTables;
+import org.opennms.topogen.ir.LinkRow;
+import org.opennms.topogen.persistence.BiConsumerWithException;
+import org.opennms.topogen.persistence.RowWriter;
+import org.opennms.topogen.persistence.Table;
 import org.opennms.topogen.util.InetAddressGenerator;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import lombok.Getter;
 
 public class OspfProtocol extends Protocol<OspfElement> {
-    private final static Logger LOG = LoggerFactory.getLogger(OspfProtocol.class);
     @Getter
     private TopologyGenerator.Protocol protocol = TopologyGenerator.Protocol.ospf;
-    private InetAddressGenerator inetAddressCreator = new InetAddressGenerator();
+    private final InetAddressGenerator linkAddresses;
+    private final int linkPrefixLength;
+    private final InetAddress linkMask;
+    private final String linkMaskText;
+    private final InetAddressGenerator routerIds;
 
-    public OspfProtocol(TopologyGenerator.Topology topology, int amountNodes, int amountLinks,
-                        int amountElements, int amountSnmpInterfaces, int amountIpInterfaces, TopologyPersister persister){
-        super(topology, amountNodes, amountLinks, amountElements, amountSnmpInterfaces, amountIpInterfaces, persister);
+    // both links of a pair share a point-to-point subnet, the source has the first address
+    @Getter
+    private final Table<LinkRow> linkTable = new Table<>("ospflink", TopologyTables.OSPF_LINKS.getColumns(),
+            TopologyTables.OSPF_LINKS.getTypes(), new BiConsumerWithException<RowWriter, LinkRow>() {
+                @Override
+                public void accept(RowWriter row, LinkRow link) throws SQLException {
+                    long subnet = subnet(link);
+                    row.writeInt(link.getId());
+                    row.writeInt(link.getNodeId());
+                    row.writeString(linkAddresses.format(subnet + (link.isSource() ? 0 : 1)));
+                    row.writeString(linkMaskText);
+                    row.writeInt(3);
+                    row.writeInt(ifIndex(link, 3));
+                    row.writeString(routerIds.format(routerIdOffset(link.getRemoteNodeId())));
+                    row.writeString(linkAddresses.format(subnet + (link.isSource() ? 1 : 0)));
+                    row.writeInt(3);
+                    row.writeNow();
+                    row.writeNow();
+                }
+            });
+
+    public OspfProtocol(TopologySettings settings, TopologySink sink){
+        super(settings, sink);
+        this.linkAddresses = new InetAddressGenerator(settings.getLinkPool());
+        this.linkPrefixLength = settings.getLinkPrefixLength();
+        this.linkMask = linkAddresses.netmask(linkPrefixLength);
+        this.linkMaskText = InetAddressUtils.str(linkMask);
+        this.routerIds = new InetAddressGenerator(settings.getRouterIdPool());
     }
 
     @Override
-    public void createAndPersistProtocolSpecificEntities(List<OnmsNode> nodes) throws SQLException {
-        List<OspfLink> links = createLinks(nodes);
-        persister.persistOspfLinks(links);
+    public void createAndPersistProtocolSpecificEntities() throws SQLException {
+        createAndPersistLinks("OspfLinks", linkTable);
     }
 
-    private List<OspfLink> createLinks(List<OnmsNode> nodes) {
-        PairGenerator<OnmsNode> pairs = createPairGenerator(nodes);
-        List<OspfLink> links = new ArrayList<>();
-        for (int i = 0; i < amountLinks; i++) {
+    @Override
+    public List<Table<?>> getTables() {
+        return Arrays.asList(NODES, linkTable);
+    }
 
-            // We create 2 links that reference each other, see also LinkdToplologyProvider.matchCdpLinks()
-            Pair<OnmsNode, OnmsNode> pair = pairs.next();
-            OnmsNode sourceNode = pair.getLeft();
-            OnmsNode targetNode = pair.getRight();
-            InetAddress ospfIpAddr = inetAddressCreator.next();
-            InetAddress ospfRemIpAddr = inetAddressCreator.next();
-            OspfLink sourceLink = createLink(i,
-                    sourceNode,
-                    ospfIpAddr,
-                    ospfRemIpAddr
-            );
-            links.add(sourceLink);
+    @Override
+    protected int getAmountLinkedVertices() {
+        return amountNodes; // ospf links the nodes directly
+    }
 
-            OspfLink targetLink = createLink(++i,
-                    targetNode,
-                    ospfRemIpAddr,
-                    ospfIpAddr
-            );
-            links.add(targetLink);
-            LOG.debug("Linked node {} with node {}", sourceNode.getLabel(), targetNode.getLabel());
-        }
-        return links;
+    private long subnet(LinkRow link) {
+        return linkAddresses.pointToPoint(link.getPairIndex(), linkPrefixLength);
     }
 
-    private OspfLink createLink(int id, OnmsNode node, InetAddress ipAddress, InetAddress remoteAddress) {
+    private static long routerIdOffset(int nodeId) {
+        return nodeId + 1L; // skip the network address
+    }
+
+    /** the link as model object, the same as the row of {@link #getLinkTable()} */
+    public OspfLink toLink(LinkRow link) {
+        long subnet = subnet(link);
+        return createLink(link.getId(),
+                toNode(link.getNodeId()),
+                linkAddresses.get(subnet + (link.isSource() ? 0 : 1)),
+                linkAddresses.get(subnet + (link.isSource() ? 1 : 0)),
+                routerIds.get(routerIdOffset(link.getRemoteNodeId())),
+                ifIndex(link, 3)
+        );
+    }
+
+    private OspfLink createLink(int id, OnmsNode node, InetAddress ipAddress, InetAddress remoteAddress,
+                                InetAddress remoteRouterId, int ifIndex) {
         OspfLink link = new OspfLink();
         link.setId(id);
         link.setNode(node);
         link.setOspfIpAddr(ipAddress);
         link.setOspfRemIpAddr(remoteAddress);
 
-        link.setOspfIpMask(this.inetAddressCreator.next());
+        link.setOspfIpMask(linkMask);
         link.setOspfAddressLessIndex(3);
-        link.setOspfIfIndex(3);
-        link.setOspfRemRouterId(this.inetAddressCreator.next());
+        link.setOspfIfIndex(ifIndex);
+        link.setOspfRemRouterId(remoteRouterId);
         link.setOspfRemAddressLessIndex(3);
         link.setOspfLinkLastPollTime(new Date());
-
-
-
         return link;
     }
 }
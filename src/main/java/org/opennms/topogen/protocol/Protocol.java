@@ -28,41 +28,166 @@
 
 package org.opennms.topogen.protocol;
 
+import java.io.IOException;
 import java.net.InetAddress;
 import java.sql.SQLException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Collectors;
 
 import org.opennms.netmgt.model.OnmsIpInterface;
 import org.opennms.netmgt.model.OnmsNode;
 import org.opennms.netmgt.model.OnmsSnmpInterface;
 import org.opennms.netmgt.model.monitoringLocations.OnmsMonitoringLocation;
+import org.opennms.topogen.Shard;
 import org.opennms.topogen.TopologyGenerator;
-import org.opennms.topogen.TopologyPersister;
+import org.opennms.topogen.TopologySettings;
+import org.opennms.topogen.TopologySink;
+import org.opennms.topogen.TopologyTables;
+import org.opennms.topogen.graph.GraphWriter;
+import org.opennms.topogen.ir.IdRange;
+import org.opennms.topogen.ir.InterfaceLayout;
+import org.opennms.topogen.ir.LinkChunk;
+import org.opennms.topogen.ir.LinkRow;
+import org.opennms.topogen.persistence.BiConsumerWithException;
+import org.opennms.topogen.persistence.ChunkedPersister;
+import org.opennms.topogen.persistence.RowWriter;
+import org.opennms.topogen.persistence.Table;
+import org.opennms.topogen.topology.BarabasiAlbertPairGenerator;
+import org.opennms.topogen.topology.IndexBasedPairGenerator;
+import org.opennms.topogen.topology.IndexPairGenerator;
 import org.opennms.topogen.topology.LinkedPairGenerator;
-import org.opennms.topogen.topology.PairGenerator;
 import org.opennms.topogen.topology.RandomConnectedPairGenerator;
+import org.opennms.topogen.topology.RandomSimplePairGenerator;
+import org.opennms.topogen.topology.RangePairGenerator;
 import org.opennms.topogen.topology.UndirectedPairGenerator;
+import org.opennms.topogen.topology.WattsStrogatzPairGenerator;
+import org.opennms.topogen.util.IdentifierGenerator;
 import org.opennms.topogen.util.InetAddressGenerator;
+import org.opennms.topogen.util.Phases;
+import org.opennms.topogen.util.RandomStreams;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import lombok.RequiredArgsConstructor;
+import lombok.Getter;
 
-
-@RequiredArgsConstructor
+/**
+ * Creates the topology of one protocol. Nodes, elements and links are not created as OpenNMS model objects but as ids
+ * (see {@link IdRange}) and primitive arrays (see {@link LinkChunk}), the tables of each protocol derive all columns
+ * from them while encoding. The model objects are still available as a view, e.g. toLink(LinkRow), and are created
+ * for the interfaces only.
+ */
 public abstract class Protocol<Element> {
 
     private final static Logger LOG = LoggerFactory.getLogger(CdpProtocol.class);
 
+    private final static int BLOCK_SIZE = RandomStreams.BLOCK_SIZE;
+
+    protected final static String LOCATION = "Default";
+
+    public final static Table<Integer> NODES = new Table<>("node", TopologyTables.NODES.getColumns(),
+            TopologyTables.NODES.getTypes(), new BiConsumerWithException<RowWriter, Integer>() {
+                @Override
+                public void accept(RowWriter row, Integer id) throws SQLException {
+                    row.writeInt(id);
+                    row.writeString("Node" + id);
+                    row.writeString(LOCATION);
+                    row.writeNow();
+                }
+            });
+
     protected final TopologyGenerator.Topology topology;
     protected final int amountNodes;
     protected final int amountLinks;
     protected final int amountElements;
     private final int amountSnmpInterfaces;
     private final int amountIpInterfaces;
-    protected final TopologyPersister persister;
+    private final InetAddressGenerator interfaceAddresses;
+    protected final int chunkSize;
+    private final double rewiringProbability;
+    protected final RandomStreams randomStreams;
+    /** per thread since the tables encode the rows on the writer threads and the generator reuses its buffer */
+    protected final ThreadLocal<IdentifierGenerator> identifiers;
+    protected final TopologySink sink;
+    private final Shard shard;
+    /** the nodes of this shard, everything else that is created belongs to one of them */
+    protected final IdRange ownNodes;
+    /** the interfaces of all nodes, null if only the first nodes have one interface each */
+    protected final InterfaceLayout interfaces;
+    /** the ports per node the other protocols of a {@link ProtocolGroup} use before this one, null if none */
+    private int[] portsOfOtherProtocols;
+    private final OnmsMonitoringLocation location = createMonitoringLocation();
+
+    /** the snmp interfaces of the {@link #interfaces}, the ifIndexes of a node count from 1 */
+    @Getter
+    private final Table<Integer> snmpInterfaceTable = new Table<>("snmpinterface",
+            TopologyTables.SNMP_INTERFACES.getColumns(), TopologyTables.SNMP_INTERFACES.getTypes(),
+            new BiConsumerWithException<RowWriter, Integer>() {
+                @Override
+                public void accept(RowWriter row, Integer id) throws SQLException {
+                    int ifIndex = interfaces.getIfIndex(id);
+                    row.writeInt(id);
+                    row.writeString(null);
+                    row.writeInt(ifIndex);
+                    row.writeString(ifName(ifIndex));
+                    row.writeInt(4);
+                    row.writeString(ifName(ifIndex));
+                    row.writeLong(5);
+                    row.writeInt(6);
+                    row.writeInt(7);
+                    row.writeString(null);
+                    row.writeNow();
+                    row.writeString("N");
+                    row.writeString("N");
+                    row.writeNow();
+                    row.writeInt(interfaces.getNodeId(id));
+                    row.writeBoolean(false);
+                }
+            });
+
+    /** an ip interface per snmp interface of the {@link #interfaces}, with the same id */
+    @Getter
+    private final Table<Integer> ipInterfaceTable = new Table<>("ipinterface",
+            TopologyTables.IP_INTERFACES.getColumns(), TopologyTables.IP_INTERFACES.getTypes(),
+            new BiConsumerWithException<RowWriter, Integer>() {
+                @Override
+                public void accept(RowWriter row, Integer id) throws SQLException {
+                    row.writeInt(id);
+                    row.writeString(null);
+                    row.writeString("M");
+                    row.writeNow();
+                    row.writeString("N");
+                    row.writeInt(interfaces.getNodeId(id));
+                    row.writeInt(id);
+                    row.writeString(interfaceAddresses.format(id + 1L));
+                    row.writeString(null);
+                }
+            });
+
+    public Protocol(TopologySettings settings, TopologySink sink) {
+        this.topology = settings.getTopology();
+        this.amountNodes = settings.getAmountNodes();
+        this.amountLinks = settings.getAmountLinks();
+        this.amountElements = settings.getAmountElements();
+        this.amountSnmpInterfaces = settings.getAmountSnmpInterfaces();
+        this.amountIpInterfaces = settings.getAmountIpInterfaces();
+        this.interfaceAddresses = new InetAddressGenerator(settings.getInterfacePool());
+        this.chunkSize = settings.getChunkSize();
+        this.rewiringProbability = settings.getRewiringProbability();
+        this.randomStreams = new RandomStreams(settings.getSeed());
+        long seed = settings.getSeed();
+        this.identifiers = ThreadLocal.withInitial(() -> IdentifierGenerator.seeded(seed));
+        this.sink = sink;
+        this.shard = settings.getShard();
+        this.ownNodes = shard.slice(amountNodes);
+        this.interfaces = settings.getMinInterfacesPerNode() == 0 ? null : new InterfaceLayout(amountNodes,
+                settings.getMinInterfacesPerNode(), settings.getMaxInterfacesPerNode(), randomStreams);
+    }
 
     public void createAndPersistNetwork() throws SQLException {
         LOG.info("creating {} {} topology with {} {}, {} {}, {} {}, {} {}, {} {}.",
@@ -73,35 +198,247 @@ public abstract class Protocol<Element> {
                 this.amountLinks, "Links",
                 this.amountSnmpInterfaces, "SnmpInterfaces",
                 this.amountIpInterfaces, "IpInterfaces");
-        List<OnmsNode> nodes = createNodes(amountNodes);
-        persister.persistNodes(nodes);
+        createAndPersistNodes();
+        createAndPersistProtocolSpecificEntities();
+        createAndPersistInterfaces();
+    }
 
-        createAndPersistProtocolSpecificEntities(nodes);
+    /** the nodes don't depend on the protocol, several protocols can share them, see {@link ProtocolGroup} */
+    public void createAndPersistNodes() throws SQLException {
+        if (!shard.isAll()) {
+            LOG.info("creating shard {} with the nodes {}.", shard, ownNodes);
+        }
+        Phases.Timer timer = Phases.start(Phases.Phase.NODES);
+        sink.write(NODES, ownNodes);
+        timer.stop(ownNodes.size());
+    }
+
+    /** the elements of the protocol, one for each of the first amountElements nodes */
+    protected void createAndPersistElements(Table<Integer> table) throws SQLException {
+        IdRange ids = ownIds(amountElements);
+        Phases.Timer timer = Phases.start(Phases.Phase.ELEMENTS);
+        sink.write(table, ids);
+        timer.stop(ids.size());
+    }
 
+    /**
+     * the snmp and ip interfaces of the nodes, they don't depend on the protocol either: with the {@link #interfaces}
+     * the ip interfaces of the first amountIpInterfaces snmp interfaces, otherwise one snmp interface on each of the
+     * first amountSnmpInterfaces nodes and one ip interface on the first amountIpInterfaces of them
+     */
+    public void createAndPersistInterfaces() throws SQLException {
+        Phases.Timer timer = Phases.start(Phases.Phase.INTERFACES);
+        if (interfaces != null) {
+            IdRange ids = interfaces.getIds(ownNodes);
+            IdRange ipIds = ids.limit(amountIpInterfaces);
+            sink.write(snmpInterfaceTable, ids);
+            sink.write(ipInterfaceTable, ipIds);
+            timer.stop(ids.size() + ipIds.size());
+            return;
+        }
+        // the interfaces rely on the defaults of the model, only the nodes that get one are created as objects
+        List<OnmsNode> nodes = createNodes(ownIds(amountSnmpInterfaces));
         List<OnmsSnmpInterface> snmpInterfaces = createSnmpInterfaces(nodes);
-        persister.persistOnmsInterfaces(snmpInterfaces);
+        sink.persistOnmsInterfaces(snmpInterfaces);
         List<OnmsIpInterface> ipInterfaces = createIpInterfaces(snmpInterfaces);
-        persister.persistIpInterfaces(ipInterfaces);
+        sink.persistIpInterfaces(ipInterfaces);
+        timer.stop(snmpInterfaces.size() + ipInterfaces.size());
+    }
+
+    /**
+     * Writes only the structure of the topology: the same pairs as {@link #createAndPersistNetwork()} creates, but as
+     * vertex indexes without any rows. Every pair is one edge, it stands for the two links that reference each other.
+     */
+    public void exportGraph(GraphWriter graph) throws IOException {
+        int vertices = getAmountLinkedVertices();
+        IndexPairGenerator pairs = createPairGenerator(new IdRange(0, vertices));
+        long edges = (amountLinks + 1L) / 2;
+        graph.start(vertices, edges);
+        int[] pair = new int[2];
+        for (long block = 0; block * BLOCK_SIZE < edges; block++) {
+            IndexPairGenerator pairsOfBlock = pairsOfBlock(pairs, block);
+            for (long i = block * BLOCK_SIZE; i < Math.min(edges, (block + 1) * BLOCK_SIZE); i++) {
+                pairsOfBlock.nextInto(pair);
+                graph.edge(pair[0], pair[1]);
+            }
+        }
+    }
+
+    /** the ids of this shard that are less than amount, elements and interfaces have the id of their node */
+    protected IdRange ownIds(int amount) {
+        return ownNodes.limit(amount);
+    }
+
+    /**
+     * The amount of links of every node, the same pairs as {@link #createAndPersistLinks(String, Table)} creates but
+     * without any rows, so the protocols of a group can share the ports of the nodes.
+     */
+    int[] countLinksPerNode() {
+        int[] links = new int[amountNodes];
+        IndexPairGenerator pairs = createPairGenerator(new IdRange(0, getAmountLinkedVertices()));
+        long amountPairs = (amountLinks + 1L) / 2;
+        int[] pair = new int[2];
+        for (long block = 0; block * BLOCK_SIZE < amountPairs; block++) {
+            IndexPairGenerator pairsOfBlock = pairsOfBlock(pairs, block);
+            for (long i = block * BLOCK_SIZE; i < Math.min(amountPairs, (block + 1) * BLOCK_SIZE); i++) {
+                pairsOfBlock.nextInto(pair);
+                links[pair[0]]++;
+                links[pair[1]]++;
+            }
+        }
+        return links;
+    }
+
+    /** the links of this protocol use the ports of a node after the given amount of ports per node */
+    void setPortsOfOtherProtocols(int[] portsPerNode) {
+        this.portsOfOtherProtocols = portsPerNode;
+    }
+
+    /** amount of elements (or nodes) the links are created between */
+    protected int getAmountLinkedVertices() {
+        return amountElements;
+    }
+
+    /**
+     * Creates the links between the vertices (element ids are node ids) in chunks. Every pair results in 2 links that
+     * reference each other, see also LinkdToplologyProvider.match...Links(): the link of the source gets the even id.
+     * The pairs are created in blocks of {@link RandomStreams#BLOCK_SIZE}, in parallel on the common fork/join pool if
+     * the topology allows to generate ranges of pairs independently, see {@link RangePairGenerator}. Either way the
+     * links only depend on the seed. A shard creates all pairs but keeps only the links of its own nodes, the remote
+     * links are created by the shards of the remote nodes.
+     */
+    protected void createAndPersistLinks(String name, Table<LinkRow> table) throws SQLException {
+        IndexPairGenerator pairs = createPairGenerator(new IdRange(0, getAmountLinkedVertices()));
+        long amountPairs = (amountLinks + 1L) / 2;
+        long blocks = (amountPairs + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        InterfaceLayout.Ports ports = interfaces == null ? null
+                : portsOfOtherProtocols == null ? interfaces.new Ports() : interfaces.new Ports(portsOfOtherProtocols);
+        Phases.Timer timer = Phases.start(Phases.Phase.LINKS);
+        long written = 0;
+        try (ChunkedPersister<LinkRow> links = new ChunkedPersister<>(name, chunkSize, rows -> sink.write(table, rows))) {
+            if (!(pairs instanceof RangePairGenerator)) {
+                // every pair depends on the ones before
+                for (long block = 0; block < blocks; block++) {
+                    written += addChunks(links, createLinkChunks(pairs, block, amountPairs), ports);
+                }
+                return;
+            }
+            ForkJoinPool pool = ForkJoinPool.commonPool();
+            int maxPendingBlocks = 2 * pool.getParallelism(); // bounds the memory, the persister takes them in order
+            Deque<ForkJoinTask<List<LinkChunk>>> pendingBlocks = new ArrayDeque<>();
+            for (long block = 0; block < blocks || !pendingBlocks.isEmpty(); ) {
+                while (block < blocks && pendingBlocks.size() < maxPendingBlocks) {
+                    long currentBlock = block++;
+                    pendingBlocks.add(pool.submit(() -> createLinkChunks(pairsOfBlock(pairs, currentBlock),
+                            currentBlock, amountPairs)));
+                }
+                written += addChunks(links, pendingBlocks.remove().join(), ports);
+            }
+        } finally {
+            timer.stop(written);
+            if (ports != null && ports.getSharedPorts() > 0) {
+                LOG.warn("{}: {} links share a port with another link since all ports of their node were used",
+                        name, ports.getSharedPorts());
+            }
+        }
     }
 
-    protected abstract void createAndPersistProtocolSpecificEntities(List<OnmsNode> nodes) throws SQLException;
+    /**
+     * Hands the chunks over in order. The ports are assigned here, in the order of the links, so every shard assigns
+     * the same ports, before it keeps only the links of its own nodes.
+     *
+     * @return the amount of links that were kept
+     */
+    private int addChunks(ChunkedPersister<LinkRow> links, List<LinkChunk> chunks, InterfaceLayout.Ports ports)
+            throws SQLException {
+        int kept = 0;
+        for (LinkChunk chunk : chunks) {
+            if (ports != null) {
+                for (int index = 0; index < chunk.size(); index++) {
+                    chunk.setIfIndex(index, ports.next(chunk.getNodeId(index)));
+                }
+            }
+            List<LinkRow> rows = shard.isAll() ? chunk.rows() : chunk.rows(ownNodes);
+            links.addChunk(rows);
+            kept += rows.size();
+        }
+        return kept;
+    }
+
+    /** the links of the pairs of one block, in chunks of at most chunkSize links that never span a block */
+    private List<LinkChunk> createLinkChunks(IndexPairGenerator pairs, long block, long amountPairs) {
+        Phases.Timer timer = Phases.start(Phases.Phase.LINK_GENERATION);
+        List<LinkChunk> chunks = new ArrayList<>();
+        int pairsPerChunk = (chunkSize + 1) / 2;
+        long end = Math.min(amountPairs, (block + 1) * BLOCK_SIZE);
+        int[] pair = new int[2];
+        for (long first = block * BLOCK_SIZE; first < end; first += pairsPerChunk) {
+            int pairsOfChunk = (int) Math.min(pairsPerChunk, end - first);
+            LinkChunk chunk = new LinkChunk((int) (2 * first), 2 * pairsOfChunk);
+            for (int i = 0; i < pairsOfChunk; i++) {
+                pairs.nextInto(pair);
+                chunk.addPair(pair[0], pair[1]);
+            }
+            chunks.add(chunk);
+        }
+        timer.stop(2 * Math.max(0, end - block * BLOCK_SIZE));
+        return chunks;
+    }
+
+    /** an independent generator for the pairs of the block if possible, otherwise the shared sequential one */
+    private IndexPairGenerator pairsOfBlock(IndexPairGenerator pairs, long block) {
+        if (pairs instanceof RangePairGenerator) {
+            return ((RangePairGenerator) pairs).range(block * BLOCK_SIZE,
+                    randomStreams.stream(RandomStreams.Purpose.PAIRS, block));
+        }
+        return pairs;
+    }
+
+    /** the elements and links of the protocol, they reference the nodes by id */
+    public abstract void createAndPersistProtocolSpecificEntities() throws SQLException;
+
+    public abstract TopologyGenerator.Protocol getProtocol();
+
+    /** the tables this protocol writes rows of ids or {@link LinkRow}s to, the nodes first */
+    public abstract List<Table<?>> getTables();
+
+    public abstract Table<LinkRow> getLinkTable();
+
+    /** @return the table of the elements, the element of a node has its id - null if the links connect the nodes */
+    public Table<Integer> getElementTable() {
+        return null;
+    }
+
+    /** @return the amount of snmp interfaces of all nodes */
+    public long getAmountInterfaces() {
+        return interfaces != null ? interfaces.getAmountInterfaces() : amountSnmpInterfaces;
+    }
 
-    protected abstract TopologyGenerator.Protocol getProtocol();
+    /** the ifIndex of the port of the link, the fixed one if the nodes have no {@link #interfaces} */
+    protected static int ifIndex(LinkRow link, int fixedIfIndex) {
+        return link.getIfIndex() == 0 ? fixedIfIndex : link.getIfIndex();
+    }
+
+    private static String ifName(int ifIndex) {
+        return "if" + ifIndex;
+    }
 
     private OnmsMonitoringLocation createMonitoringLocation() {
         OnmsMonitoringLocation location = new OnmsMonitoringLocation();
-        location.setLocationName("Default");
+        location.setLocationName(LOCATION);
         location.setMonitoringArea("localhost");
         return location;
     }
 
-    protected List<OnmsNode> createNodes(int amountNodes) {
-        OnmsMonitoringLocation location = createMonitoringLocation();
-        ArrayList<OnmsNode> nodes = new ArrayList<>();
-        for (int i = 0; i < amountNodes; i++) {
-            nodes.add(createNode(i, location));
-        }
-        return nodes;
+    protected List<OnmsNode> createNodes(IdRange ids) {
+        return ids.parallelStream()
+                .map(this::toNode)
+                .collect(Collectors.toList());
+    }
+
+    /** the node as model object, the same as the row of {@link #NODES} */
+    public OnmsNode toNode(int id) {
+        return createNode(id, location);
     }
 
     protected OnmsNode createNode(int count, OnmsMonitoringLocation location) {
@@ -113,14 +450,10 @@ public abstract class Protocol<Element> {
     }
 
     protected List<OnmsSnmpInterface> createSnmpInterfaces(List<OnmsNode> nodes) {
-        ArrayList<OnmsSnmpInterface> interfaces = new ArrayList<>();
-        for (OnmsNode node : nodes) {
-            if(interfaces.size() >= this.amountSnmpInterfaces){
-                break;
-            }
-            interfaces.add(createSnmpInterface(node));
-        }
-        return interfaces;
+        return nodes.parallelStream()
+                .filter(node -> node.getId() < this.amountSnmpInterfaces)
+                .map(this::createSnmpInterface)
+                .collect(Collectors.toList());
     }
 
     private OnmsSnmpInterface createSnmpInterface(OnmsNode node) {
@@ -141,15 +474,26 @@ public abstract class Protocol<Element> {
     }
 
     protected List<OnmsIpInterface> createIpInterfaces(List<OnmsSnmpInterface> snmps) {
-        ArrayList<OnmsIpInterface> interfaces = new ArrayList<>();
-        InetAddressGenerator inetGenerator = new InetAddressGenerator();
-        for (OnmsSnmpInterface snmp : snmps) {
-            if(interfaces.size() >= this.amountIpInterfaces){
-                break;
-            }
-            interfaces.add(createIpInterface(snmp, inetGenerator.next()));
-        }
-        return interfaces;
+        // the address of an interface depends on its id only: the same ones as handed out by next()
+        return snmps.parallelStream()
+                .filter(snmp -> snmp.getId() < this.amountIpInterfaces)
+                .map(snmp -> createIpInterface(snmp, interfaceAddresses.get(snmp.getId() + 1L)))
+                .collect(Collectors.toList());
+    }
+
+    /** the snmp interface as model object, the same as the row of {@link #getSnmpInterfaceTable()} */
+    public OnmsSnmpInterface toSnmpInterface(int id) {
+        OnmsSnmpInterface snmpInterface = createSnmpInterface(toNode(interfaces.getNodeId(id)));
+        snmpInterface.setId(id);
+        snmpInterface.setIfIndex(interfaces.getIfIndex(id));
+        snmpInterface.setIfName(ifName(interfaces.getIfIndex(id)));
+        snmpInterface.setIfDescr(ifName(interfaces.getIfIndex(id)));
+        return snmpInterface;
+    }
+
+    /** the ip interface as model object, the same as the row of {@link #getIpInterfaceTable()} */
+    public OnmsIpInterface toIpInterface(int id) {
+        return createIpInterface(toSnmpInterface(id), interfaceAddresses.get(id + 1L));
     }
 
     private OnmsIpInterface createIpInterface(OnmsSnmpInterface snmp, InetAddress inetAddress) {
@@ -164,15 +508,30 @@ public abstract class Protocol<Element> {
 
 
 
-    protected <E> PairGenerator<E> createPairGenerator(List<E> elements){
+    protected <E> IndexBasedPairGenerator<E> createPairGenerator(List<E> elements){
         if(TopologyGenerator.Topology.complete == topology){
             return new UndirectedPairGenerator<>(elements);
         } else if(TopologyGenerator.Topology.ring == topology) {
             return new LinkedPairGenerator<>(elements);
         } else if (TopologyGenerator.Topology.random == topology){
-            return new RandomConnectedPairGenerator<>(elements);
+            // our elements have unique ids
+            return new RandomConnectedPairGenerator<>(elements, false, randomStreams.stream(RandomStreams.Purpose.PAIRS));
+        } else if (TopologyGenerator.Topology.random_simple == topology){
+            return new RandomSimplePairGenerator<>(elements, randomStreams.stream(RandomStreams.Purpose.PAIRS));
+        } else if (TopologyGenerator.Topology.scale_free == topology){
+            return new BarabasiAlbertPairGenerator<>(elements, edgesPerElement(elements),
+                    randomStreams.stream(RandomStreams.Purpose.PAIRS));
+        } else if (TopologyGenerator.Topology.small_world == topology){
+            return new WattsStrogatzPairGenerator<>(elements, edgesPerElement(elements), rewiringProbability,
+                    randomStreams.stream(RandomStreams.Purpose.PAIRS));
         } else {
             throw new IllegalArgumentException("unknown topology: "+ topology);
         }
     }
+
+    /** every pair results in 2 links => amount of pairs per element to get to amountLinks */
+    private int edgesPerElement(List<?> elements) {
+        long amountPairs = (amountLinks + 1L) / 2;
+        return (int) Math.max(1, (amountPairs + elements.size() - 1) / elements.size());
+    }
 }
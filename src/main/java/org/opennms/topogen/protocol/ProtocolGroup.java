@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen.protocol;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Creates the topologies of several protocols over the same nodes, as in networks that run e.g. LLDP, CDP and OSPF at
+ * the same time. The nodes and interfaces are created once, the elements and links of the protocols concurrently, each
+ * protocol on its own thread. The protocols write to different tables, so every protocol has its own id space. The
+ * links of all protocols share the ports of a node: each protocol starts after the ports of the protocols before it.
+ */
+public class ProtocolGroup {
+
+    private final static Logger LOG = LoggerFactory.getLogger(ProtocolGroup.class);
+
+    private final List<Protocol<?>> protocols;
+
+    public ProtocolGroup(List<Protocol<?>> protocols) {
+        if (protocols.isEmpty()) {
+            throw new IllegalArgumentException("need at least 1 protocol");
+        }
+        this.protocols = protocols;
+    }
+
+    public void createAndPersistNetwork() throws SQLException {
+        if (protocols.size() == 1) {
+            protocols.get(0).createAndPersistNetwork();
+            return;
+        }
+        LOG.info("creating the topologies of {} over the same nodes.", protocols.stream()
+                .map(Protocol::getProtocol)
+                .collect(Collectors.toList()));
+        Protocol<?> first = protocols.get(0);
+        first.createAndPersistNodes();
+        sharePorts();
+        createAndPersistProtocolSpecificEntities();
+        first.createAndPersistInterfaces();
+    }
+
+    /**
+     * Counts the links per node of every protocol but the last one, so every protocol knows the ports of the ones before
+     * it. The order doesn't depend on the threads, the same seed gives the same ports.
+     */
+    private void sharePorts() {
+        if (protocols.get(0).interfaces == null) {
+            return;
+        }
+        int[] usedPorts = null;
+        for (int i = 0; i < protocols.size(); i++) {
+            Protocol<?> protocol = protocols.get(i);
+            if (usedPorts != null) {
+                protocol.setPortsOfOtherProtocols(usedPorts.clone());
+            }
+            if (i == protocols.size() - 1) {
+                break;
+            }
+            int[] links = protocol.countLinksPerNode();
+            if (usedPorts == null) {
+                usedPorts = links;
+            } else {
+                for (int node = 0; node < links.length; node++) {
+                    usedPorts[node] += links[node];
+                }
+            }
+        }
+    }
+
+    /** runs the protocols concurrently and waits for all of them, even if one fails */
+    private void createAndPersistProtocolSpecificEntities() throws SQLException {
+        ExecutorService executor = Executors.newFixedThreadPool(protocols.size());
+        try {
+            List<Future<Void>> results = new ArrayList<>();
+            for (Protocol<?> protocol : protocols) {
+                results.add(executor.submit(() -> {
+                    Thread.currentThread().setName("protocol-" + protocol.getProtocol());
+                    protocol.createAndPersistProtocolSpecificEntities();
+                    return null;
+                }));
+            }
+            SQLException failure = null;
+            for (Future<Void> result : results) {
+                try {
+                    result.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("interrupted while waiting for the protocols", e);
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = new SQLException("creating the topology failed: " + e.getCause().getMessage(), e.getCause());
+                    } else {
+                        failure.addSuppressed(e.getCause());
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen.topology;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.opennms.topogen.util.RandomStreams;
+
+/**
+ * Scale-free topology via preferential attachment (Barabási–Albert): the elements join one after the other and each
+ * connects to edgesPerElement distinct elements that joined before. The probability to be picked is proportional to
+ * the degree, which creates a few hubs with very high degree. The degrees are kept implicitly in a primitive array
+ * that contains every endpoint of every edge: picking a random entry of it is a degree proportional pick in O(1).
+ * Once all elements joined, further pairs are drawn preferentially among all elements.
+ */
+public class BarabasiAlbertPairGenerator<E> extends IndexBasedPairGenerator<E> {
+
+    private final static int MAX_PREFERENTIAL_TRIES = 32;
+
+    private final int size;
+    private final int edgesPerElement;
+    private final SplittableRandom random;
+
+    private int[] endpoints;
+    private int amountEndpoints = 0;
+
+    private int joiningElement = 1; // element 0 is the start of the graph
+    private final int[] targetsOfJoiningElement;
+    private int amountTargetsOfJoiningElement = 0;
+
+    public BarabasiAlbertPairGenerator(List<E> elements, int edgesPerElement) {
+        this(elements, edgesPerElement, new SplittableRandom(RandomStreams.DEFAULT_SEED));
+    }
+
+    public BarabasiAlbertPairGenerator(List<E> elements, int edgesPerElement, SplittableRandom random) {
+        super(elements);
+        this.random = random;
+        if (edgesPerElement < 1) {
+            throw new IllegalArgumentException("edgesPerElement must be at least 1 but was " + edgesPerElement);
+        }
+        this.size = elements.size();
+        this.edgesPerElement = Math.min(edgesPerElement, size - 1);
+        this.targetsOfJoiningElement = new int[this.edgesPerElement];
+        long expectedEndpoints = 2L * this.edgesPerElement * size;
+        this.endpoints = new int[(int) Math.min(expectedEndpoints, Integer.MAX_VALUE - 8)];
+    }
+
+    @Override
+    public void nextInto(int[] pair) {
+        if (joiningElement >= size) {
+            // all elements joined => keep the degree distribution and draw both ends preferentially
+            int left = endpoints[random.nextInt(amountEndpoints)];
+            int right = endpoints[random.nextInt(amountEndpoints)];
+            while (right == left) {
+                right = endpoints[random.nextInt(amountEndpoints)];
+            }
+            pair[0] = left;
+            pair[1] = right;
+            return;
+        }
+        int target = pickTarget();
+        targetsOfJoiningElement[amountTargetsOfJoiningElement++] = target;
+        pair[0] = joiningElement;
+        pair[1] = target;
+        addEndpoint(joiningElement);
+        addEndpoint(target);
+        if (amountTargetsOfJoiningElement == Math.min(edgesPerElement, joiningElement)) {
+            joiningElement++;
+            amountTargetsOfJoiningElement = 0;
+        }
+    }
+
+    private int pickTarget() {
+        if (joiningElement <= edgesPerElement) {
+            // not enough elements yet to choose from => connect to all of them
+            return amountTargetsOfJoiningElement;
+        }
+        for (int i = 0; i < MAX_PREFERENTIAL_TRIES; i++) {
+            int candidate = endpoints[random.nextInt(amountEndpoints)];
+            // the joining element is already part of the endpoints after its first edge
+            if (candidate != joiningElement && !isTargetOfJoiningElement(candidate)) {
+                return candidate;
+            }
+        }
+        // a few hubs own almost all of the degree => fall back to a uniform pick
+        int candidate;
+        do {
+            candidate = random.nextInt(joiningElement);
+        } while (isTargetOfJoiningElement(candidate));
+        return candidate;
+    }
+
+    private boolean isTargetOfJoiningElement(int candidate) {
+        for (int i = 0; i < amountTargetsOfJoiningElement; i++) {
+            if (targetsOfJoiningElement[i] == candidate) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void addEndpoint(int element) {
+        if (amountEndpoints == endpoints.length) {
+            endpoints = Arrays.copyOf(endpoints, (int) Math.min(endpoints.length * 2L + 2, Integer.MAX_VALUE - 8));
+        }
+        endpoints[amountEndpoints++] = element;
+    }
+}
@@ -0,0 +1,53 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen.topology;
+
+import java.util.List;
+
+import org.apache.commons.lang3.tuple.Pair;
+
+/** Base for generators that compute pairs on the positions of the elements only and never look at the elements. */
+public abstract class IndexBasedPairGenerator<E> implements PairGenerator<E>, IndexPairGenerator {
+
+    protected final List<E> elements;
+    private final int[] pair = new int[2];
+
+    protected IndexBasedPairGenerator(List<E> elements) {
+        if(elements == null || elements.size()<2){
+            throw new IllegalArgumentException("Need at least 2 elements in list to make a pair");
+        }
+        this.elements = elements;
+    }
+
+    @Override
+    public Pair<E, E> next(){
+        nextInto(pair);
+        return Pair.of(elements.get(pair[0]), elements.get(pair[1]));
+    }
+}
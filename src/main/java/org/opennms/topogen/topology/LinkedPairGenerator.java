@@ -29,29 +29,36 @@
 package org.opennms.topogen.topology;
 
 import java.util.List;
+import java.util.SplittableRandom;
 
-import org.apache.commons.lang3.tuple.Pair;
+public class LinkedPairGenerator<E> extends IndexBasedPairGenerator<E> implements RangePairGenerator {
 
-public class LinkedPairGenerator<E> implements PairGenerator<E>{
-
-    private final List<E> elements;
     private final int lastIndexInList;
     private int indexLeft = -1;
     private int indexRight = 0;
 
     @Override
-    public Pair<E, E> next(){
+    public void nextInto(int[] pair){
         compute();
-        return Pair.of(elements.get(indexLeft), elements.get(indexRight));
+        pair[0] = indexLeft;
+        pair[1] = indexRight;
     }
 
     public LinkedPairGenerator(List<E> elements){
-        if(elements == null || elements.size()<2){
-            throw new IllegalArgumentException("Need at least 2 elements in list to make a pair");
-        }
-        this.elements = elements;
+        this(elements, 0);
+    }
+
+    private LinkedPairGenerator(List<E> elements, long firstPair){
+        super(elements);
         lastIndexInList = elements.size() - 1;
+        // the n-th pair links the n-th element with the following one
+        indexRight = (int) (firstPair % elements.size());
+        indexLeft = indexRight - 1;
+    }
 
+    @Override
+    public IndexPairGenerator range(long firstPair, SplittableRandom random) {
+        return new LinkedPairGenerator<>(elements, firstPair);
     }
 
     private void compute() {
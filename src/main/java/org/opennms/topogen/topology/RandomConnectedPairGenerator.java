@@ -30,41 +30,50 @@ package org.opennms.topogen.topology;
 
 import java.util.HashSet;
 import java.util.List;
-import java.util.Random;
+import java.util.SplittableRandom;
 
-import org.apache.commons.lang3.tuple.Pair;
+import org.opennms.topogen.util.RandomStreams;
 
 /** pairs elements randomly but not the same element to itself */
-public class RandomConnectedPairGenerator<E> implements PairGenerator<E>{
-    private final List<E> elements;
-    private Random random = new Random(42);
+public class RandomConnectedPairGenerator<E> extends IndexBasedPairGenerator<E> implements RangePairGenerator {
+    private final int size;
+    private final SplittableRandom random;
 
     public RandomConnectedPairGenerator(List<E> elements){
-        if(elements == null || elements.size()<2){
-            throw new IllegalArgumentException("Need at least 2 elements in list to make a pair");
-        }
-        if(new HashSet<>(elements).size() < elements.size()){
+        this(elements, true);
+    }
+
+    public RandomConnectedPairGenerator(List<E> elements, boolean checkForDuplicates){
+        this(elements, checkForDuplicates, new SplittableRandom(RandomStreams.DEFAULT_SEED));
+    }
+
+    /**
+     * @param checkForDuplicates pass false if the elements are known to be distinct (e.g. they have unique ids), the
+     *                           check builds a HashSet of all elements which is expensive for large lists.
+     */
+    public RandomConnectedPairGenerator(List<E> elements, boolean checkForDuplicates, SplittableRandom random){
+        super(elements);
+        this.random = random;
+        if(checkForDuplicates && new HashSet<>(elements).size() < elements.size()){
             throw new IllegalArgumentException("List contains at least one duplicate");
         }
-        this.elements = elements;
+        this.size = elements.size();
     }
 
     @Override
-    public Pair<E, E> next(){
-        E leftElement = getRandomElement(elements);
-        E rightElement = getRandomElementButNotSame(elements, leftElement);
-        return Pair.of(leftElement, rightElement);
+    public IndexPairGenerator range(long firstPair, SplittableRandom random) {
+        return new RandomConnectedPairGenerator<>(elements, false, random);
     }
 
-    private E getRandomElementButNotSame(List<E> elements,  E notSame){
-        E value = getRandomElement(elements);
-        while (value.equals(notSame)){
-            value = getRandomElement(elements);
+    @Override
+    public void nextInto(int[] pair){
+        int left = random.nextInt(size);
+        // draw from the size-1 other positions and shift past left => never the same, no retries needed
+        int right = random.nextInt(size - 1);
+        if (right >= left) {
+            right++;
         }
-        return value;
-    }
-
-    private E getRandomElement(List<E> list) {
-        return list.get(random.nextInt(list.size()));
+        pair[0] = left;
+        pair[1] = right;
     }
 }
@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen.topology;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.opennms.topogen.util.LongHashSet;
+import org.opennms.topogen.util.RandomStreams;
+
+/**
+ * Pairs elements randomly but never an element with itself and never the same two elements twice, in either order.
+ * Used edges are remembered as a long (both positions packed into it) in a {@link LongHashSet}. Once half of all
+ * n(n-1)/2 possible edges are used, random draws would get rejected too often: the remaining edges are collected and
+ * drawn without replacement from then on. After all edges are used it starts over, the TopologyGenerator rejects
+ * more links than that upfront.
+ */
+public class RandomSimplePairGenerator<E> extends IndexBasedPairGenerator<E> {
+
+    private final int size;
+    private final long amountPossibleEdges;
+    private final SplittableRandom random;
+
+    private LongHashSet usedEdges;
+    private long[] remainingEdges; // null as long as we draw randomly and reject used edges
+    private int amountRemainingEdges;
+
+    public RandomSimplePairGenerator(List<E> elements) {
+        this(elements, new SplittableRandom(RandomStreams.DEFAULT_SEED));
+    }
+
+    public RandomSimplePairGenerator(List<E> elements, SplittableRandom random) {
+        super(elements);
+        this.random = random;
+        this.size = elements.size();
+        this.amountPossibleEdges = (long) size * (size - 1) / 2;
+        this.usedEdges = new LongHashSet();
+    }
+
+    @Override
+    public void nextInto(int[] pair) {
+        if (remainingEdges == null && usedEdges.size() >= amountPossibleEdges / 2) {
+            collectRemainingEdges();
+        }
+        if (remainingEdges == null) {
+            drawUnusedEdge(pair);
+        } else {
+            drawRemainingEdge(pair);
+        }
+    }
+
+    private void drawUnusedEdge(int[] pair) {
+        int left;
+        int right;
+        do {
+            left = random.nextInt(size);
+            right = random.nextInt(size - 1);
+            if (right >= left) {
+                right++;
+            }
+        } while (!usedEdges.add(edge(left, right))); // less than half of the edges are used => < 2 tries expected
+        pair[0] = left;
+        pair[1] = right;
+    }
+
+    private void drawRemainingEdge(int[] pair) {
+        if (amountRemainingEdges == 0) {
+            // all edges are used => start over
+            remainingEdges = null;
+            usedEdges = new LongHashSet();
+            drawUnusedEdge(pair);
+            return;
+        }
+        int index = random.nextInt(amountRemainingEdges);
+        long edge = remainingEdges[index];
+        remainingEdges[index] = remainingEdges[--amountRemainingEdges];
+        int lower = (int) (edge >>> 32);
+        int higher = (int) edge;
+        boolean swap = random.nextBoolean();
+        pair[0] = swap ? higher : lower;
+        pair[1] = swap ? lower : higher;
+    }
+
+    private void collectRemainingEdges() {
+        long amount = amountPossibleEdges - usedEdges.size();
+        if (amount > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("too many remaining edges to collect: " + amount);
+        }
+        remainingEdges = new long[(int) amount];
+        amountRemainingEdges = 0;
+        for (int lower = 0; lower < size; lower++) {
+            for (int higher = lower + 1; higher < size; higher++) {
+                long edge = edge(lower, higher);
+                if (!usedEdges.contains(edge)) {
+                    remainingEdges[amountRemainingEdges++] = edge;
+                }
+            }
+        }
+        usedEdges = null; // not needed anymore, free the memory
+    }
+
+    /** packs an undirected edge into a long: lower position in the upper 32 bits, higher position in the lower ones */
+    private static long edge(int a, int b) {
+        int lower = Math.min(a, b);
+        int higher = Math.max(a, b);
+        return ((long) lower << 32) | higher;
+    }
+}
@@ -29,32 +29,57 @@
 package org.opennms.topogen.topology;
 
 import java.util.List;
-
-import org.apache.commons.lang3.tuple.Pair;
+import java.util.SplittableRandom;
 
 /* Takes a list and generates pairs among its emelents. It tries to distribute the pairs equally as in as least same
 /* pairs as possible. Pair(a,b) counts as equal to Pair(b,a)  */
-public class UndirectedPairGenerator<E> implements PairGenerator<E> {
+public class UndirectedPairGenerator<E> extends IndexBasedPairGenerator<E> implements RangePairGenerator {
 
-    private final List<E> elements;
     private final int lastIndexInList;
     private int indexLeft = 0;
     private int indexRight = 0;
 
     @Override
-    public Pair<E, E> next(){
+    public void nextInto(int[] pair){
         computeIndexForUnique();
-        return Pair.of(elements.get(indexLeft), elements.get(indexRight));
+        pair[0] = indexLeft;
+        pair[1] = indexRight;
     }
 
     public UndirectedPairGenerator(List<E> elements){
-        if(elements == null || elements.size()<2){
-            throw new IllegalArgumentException("Need at least 2 elements in list to make a pair");
-        }
-        this.elements = elements;
+        super(elements);
         lastIndexInList = elements.size() - 1;
     }
 
+    /**
+     * The pairs are (0,1), (0,2), ..., (0,n-1), (1,2), ... - the left position of the n-th pair is found with a binary
+     * search over the amount of pairs before each left position.
+     */
+    @Override
+    public IndexPairGenerator range(long firstPair, SplittableRandom random) {
+        long size = elements.size();
+        long pairIndex = firstPair % (size * (size - 1) / 2);
+        int low = 0;
+        int high = lastIndexInList - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (pairsBefore(middle) <= pairIndex) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        UndirectedPairGenerator<E> range = new UndirectedPairGenerator<>(elements);
+        range.indexLeft = low;
+        range.indexRight = (int) (low + pairIndex - pairsBefore(low)); // the next pair is one further to the right
+        return range;
+    }
+
+    /** amount of pairs with a left position smaller than the given one */
+    private long pairsBefore(long left) {
+        return left * lastIndexInList - left * (left - 1) / 2;
+    }
+
     private void computeIndexForUnique(){
         computeIndex();
         while(indexLeft >= indexRight) {
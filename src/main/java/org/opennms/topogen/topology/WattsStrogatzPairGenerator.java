@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen.topology;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.opennms.topogen.util.LongHashSet;
+import org.opennms.topogen.util.RandomStreams;
+
+/**
+ * Small-world topology (Watts–Strogatz): a ring lattice in which every element is connected to its edgesPerElement
+ * nearest neighbours on one side, each edge is rewired with the given probability to a random element. Edges are
+ * generated by distance, so the first n pairs form a ring and the network stays connected. A rewired edge goes to an
+ * element outside of the lattice neighbourhood, so it never duplicates a lattice edge. Duplicates among the rewired
+ * edges are avoided with a {@link LongHashSet} which holds the rewired edges only. After all edges of the lattice are
+ * emitted it starts over. Generated as ranges (see {@link RangePairGenerator}) duplicates are only avoided within a
+ * range.
+ */
+public class WattsStrogatzPairGenerator<E> extends IndexBasedPairGenerator<E> implements RangePairGenerator {
+
+    private final static int MAX_REWIRE_TRIES = 8;
+
+    private final int size;
+    private final int edgesPerElement;
+    private final double rewiringProbability;
+    private final int amountRewiringCandidates;
+    private final SplittableRandom random;
+    private LongHashSet rewiredEdges = new LongHashSet();
+
+    private int distance = 1;
+    private int element = 0;
+
+    public WattsStrogatzPairGenerator(List<E> elements, int edgesPerElement, double rewiringProbability) {
+        this(elements, edgesPerElement, rewiringProbability, new SplittableRandom(RandomStreams.DEFAULT_SEED));
+    }
+
+    public WattsStrogatzPairGenerator(List<E> elements, int edgesPerElement, double rewiringProbability,
+                                      SplittableRandom random) {
+        super(elements);
+        this.random = random;
+        if (edgesPerElement < 1) {
+            throw new IllegalArgumentException("edgesPerElement must be at least 1 but was " + edgesPerElement);
+        }
+        if (rewiringProbability < 0 || rewiringProbability > 1) {
+            throw new IllegalArgumentException("rewiringProbability must be between 0 and 1 but was " + rewiringProbability);
+        }
+        this.size = elements.size();
+        // we can't have more neighbours on one side than half of the ring
+        this.edgesPerElement = Math.max(1, Math.min(edgesPerElement, (size - 1) / 2));
+        this.rewiringProbability = rewiringProbability;
+        this.amountRewiringCandidates = size - 1 - 2 * this.edgesPerElement;
+    }
+
+    @Override
+    public IndexPairGenerator range(long firstPair, SplittableRandom random) {
+        WattsStrogatzPairGenerator<E> range = new WattsStrogatzPairGenerator<>(elements, edgesPerElement,
+                rewiringProbability, random);
+        long positionInLattice = firstPair % ((long) size * edgesPerElement);
+        range.element = (int) (positionInLattice % size);
+        range.distance = (int) (positionInLattice / size) + 1;
+        return range;
+    }
+
+    @Override
+    public void nextInto(int[] pair) {
+        int left = element;
+        int right = (element + distance) % size;
+        if (amountRewiringCandidates > 0 && random.nextDouble() < rewiringProbability) {
+            right = rewire(left, right);
+        }
+        pair[0] = left;
+        pair[1] = right;
+        advance();
+    }
+
+    private int rewire(int left, int latticeRight) {
+        for (int i = 0; i < MAX_REWIRE_TRIES; i++) {
+            // pick uniformly among the elements that are further away than the lattice neighbours
+            int candidate = (left + edgesPerElement + 1 + random.nextInt(amountRewiringCandidates)) % size;
+            if (rewiredEdges.add(edge(left, candidate))) {
+                return candidate;
+            }
+        }
+        return latticeRight; // very dense => keep the lattice edge
+    }
+
+    private void advance() {
+        element++;
+        if (element == size) {
+            element = 0;
+            distance++;
+            if (distance > edgesPerElement) {
+                // start from the beginning
+                distance = 1;
+                rewiredEdges = new LongHashSet();
+            }
+        }
+    }
+
+    private static long edge(int a, int b) {
+        return ((long) Math.min(a, b) << 32) | Math.max(a, b);
+    }
+}
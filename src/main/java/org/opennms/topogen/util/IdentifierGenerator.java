@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen.util;
+
+/**
+ * Creates identifiers like port ids, chassis ids and mac addresses from a numeric id. Every id is mapped to its own
+ * identifier, so identifiers are unique as long as the ids are - no matter which worker creates them. The text is
+ * formatted into a reused buffer, an instance is therefore not thread safe: use one per worker.
+ */
+public abstract class IdentifierGenerator {
+
+    private final static char[] HEX = "0123456789abcdef".toCharArray();
+    private final static char[] PORT_PREFIX = "Port".toCharArray();
+    private final static char[] CHASSIS_PREFIX = "Chassis".toCharArray();
+
+    private final char[] buffer = new char[32];
+
+    /** Identifiers that show the id they were made from. */
+    public static IdentifierGenerator sequential() {
+        return new IdentifierGenerator() {
+            @Override
+            protected long map(long id, int bits) {
+                return id;
+            }
+        };
+    }
+
+    /** Identifiers that look random, a different seed results in different identifiers. */
+    public static IdentifierGenerator seeded(long seed) {
+        return new IdentifierGenerator() {
+            @Override
+            protected long map(long id, int bits) {
+                return permute(id ^ seed, bits);
+            }
+        };
+    }
+
+    /** Maps the id to a value of the given bit width, different ids must result in different values. */
+    protected abstract long map(long id, int bits);
+
+    /** e.g. Port3f2a9c0e17b4d865 */
+    public String portId(long id) {
+        return hexWithPrefix(PORT_PREFIX, map(id, 64));
+    }
+
+    /** e.g. Chassis3f2a9c0e17b4d865 */
+    public String chassisId(long id) {
+        return hexWithPrefix(CHASSIS_PREFIX, map(id, 64));
+    }
+
+    /** A locally administered unicast mac address, e.g. 02:3f:2a:9c:0e:17, for ids up to 2^40. */
+    public String macAddress(long id) {
+        if (id >>> 40 != 0) {
+            throw new IllegalArgumentException("id must be between 0 and 2^40 but was " + id);
+        }
+        long value = map(id, 40);
+        buffer[0] = '0';
+        buffer[1] = '2';
+        int position = 2;
+        for (int shift = 32; shift >= 0; shift -= 8) {
+            buffer[position++] = ':';
+            buffer[position++] = HEX[(int) (value >>> (shift + 4)) & 0xf];
+            buffer[position++] = HEX[(int) (value >>> shift) & 0xf];
+        }
+        return new String(buffer, 0, position);
+    }
+
+    private String hexWithPrefix(char[] prefix, long value) {
+        System.arraycopy(prefix, 0, buffer, 0, prefix.length);
+        int position = prefix.length;
+        for (int shift = 60; shift >= 0; shift -= 4) {
+            buffer[position++] = HEX[(int) (value >>> shift) & 0xf];
+        }
+        return new String(buffer, 0, position);
+    }
+
+    /** A bijection on the lower bits: multiplications with odd numbers and xor-shifts can be reversed. */
+    static long permute(long value, int bits) {
+        long mask = bits == 64 ? -1L : (1L << bits) - 1;
+        int shift = bits / 2;
+        long x = value & mask;
+        x = (x * 0x9e3779b97f4a7c15L) & mask;
+        x ^= x >>> shift;
+        x = (x * 0xbf58476d1ce4e5b9L) & mask;
+        x ^= x >>> shift;
+        return x;
+    }
+}
@@ -29,14 +29,147 @@
 package org.opennms.topogen.util;
 
 import java.net.InetAddress;
+import java.net.UnknownHostException;
 
 import com.google.common.net.InetAddresses;
 
+/**
+ * Hands out the addresses of a CIDR pool like 10.0.0.0/8 or fd00::/64. An address is kept as its offset into the pool
+ * and only turned into an InetAddress or its text form when it is needed. Apart from {@link #next()} all methods don't
+ * change the state and can be used concurrently.
+ */
 public class InetAddressGenerator {
-    private InetAddress last = InetAddresses.forString("0.0.0.0");
+
+    private final String cidr;
+    private final byte[] network;
+    private final int prefixLength;
+    /** amount of addresses in the pool, capped at Long.MAX_VALUE for large IPv6 pools */
+    private final long capacity;
+    private long cursor = 1; // skip the network address
+
+    public InetAddressGenerator(String cidr) {
+        int slash = cidr.indexOf('/');
+        if (slash < 0) {
+            throw new IllegalArgumentException("expected an address pool like 10.0.0.0/8 but was " + cidr);
+        }
+        this.cidr = cidr;
+        this.network = InetAddresses.forString(cidr.substring(0, slash)).getAddress();
+        this.prefixLength = Integer.parseInt(cidr.substring(slash + 1));
+        int bits = network.length * 8;
+        if (prefixLength < 0 || prefixLength > bits) {
+            throw new IllegalArgumentException("prefix length must be between 0 and " + bits + " but was " + cidr);
+        }
+        byte[] mask = mask(prefixLength, network.length);
+        for (int i = 0; i < network.length; i++) {
+            network[i] &= mask[i];
+        }
+        int hostBits = bits - prefixLength;
+        this.capacity = hostBits >= 63 ? Long.MAX_VALUE : 1L << hostBits;
+    }
+
+    /** amount of addresses in the pool including the network address, capped at Long.MAX_VALUE */
+    public long getCapacity() {
+        return capacity;
+    }
+
+    /** amount of point-to-point subnets of the prefix length in the pool, see {@link #pointToPoint(long, int)} */
+    public long getAmountPointToPoint(int subnetPrefixLength) {
+        int subnetHostBits = network.length * 8 - subnetPrefixLength;
+        if (subnetHostBits != 1 && subnetHostBits != 2 || subnetPrefixLength < prefixLength) {
+            throw new IllegalArgumentException("/" + subnetPrefixLength + " is no point-to-point subnet of " + cidr);
+        }
+        return capacity >>> subnetHostBits;
+    }
+
+    public boolean isIpv4() {
+        return network.length == 4;
+    }
+
+    /** the next address of the pool, starting after the network address */
     public InetAddress next() {
-        InetAddress address = InetAddresses.increment(last);
-        last = address;
+        return get(nextOffset());
+    }
+
+    public long nextOffset() {
+        assertInPool(cursor);
+        return cursor++;
+    }
+
+    /**
+     * Offset of the first address of the index-th point-to-point subnet, the second address follows directly. A /31
+     * (or /127) subnet uses both of its addresses, a /30 (or /126) subnet skips its network address.
+     */
+    public long pointToPoint(long index, int subnetPrefixLength) {
+        if (index < 0 || index >= getAmountPointToPoint(subnetPrefixLength)) {
+            throw new IllegalStateException("address pool " + cidr + " has no point-to-point subnet #" + index);
+        }
+        int subnetHostBits = network.length * 8 - subnetPrefixLength;
+        long subnetSize = 1L << subnetHostBits;
+        long first = index * subnetSize;
+        return subnetHostBits == 2 ? first + 1 : first;
+    }
+
+    public InetAddress get(long offset) {
+        return toInetAddress(toBytes(offset));
+    }
+
+    /** The text form of the address, e.g. 10.0.3.1, without creating an InetAddress for IPv4. */
+    public String format(long offset) {
+        if (!isIpv4()) {
+            return InetAddresses.toAddrString(get(offset));
+        }
+        byte[] address = toBytes(offset);
+        StringBuilder s = new StringBuilder(15);
+        for (int i = 0; i < 4; i++) {
+            if (i > 0) {
+                s.append('.');
+            }
+            s.append(address[i] & 0xff);
+        }
+        return s.toString();
+    }
+
+    /** the netmask of the given prefix length in the address family of this pool, e.g. 255.255.255.252 for 30 */
+    public InetAddress netmask(int prefixLength) {
+        return toInetAddress(mask(prefixLength, network.length));
+    }
+
+    private byte[] toBytes(long offset) {
+        assertInPool(offset);
+        byte[] address = network.clone();
+        // the host bits of the network are 0 and the offset fits into them => no carry needed
+        for (int i = address.length - 1; i >= 0 && offset != 0; i--) {
+            address[i] |= (byte) offset;
+            offset >>>= 8;
+        }
         return address;
     }
+
+    private void assertInPool(long offset) {
+        if (offset < 0 || offset >= capacity) {
+            throw new IllegalStateException("address pool " + cidr + " is exhausted, it has no address #" + offset);
+        }
+    }
+
+    private static byte[] mask(int prefixLength, int length) {
+        byte[] mask = new byte[length];
+        for (int i = 0; i < length; i++) {
+            int bitsInByte = Math.max(0, Math.min(8, prefixLength - i * 8));
+            mask[i] = (byte) (0xff00 >>> bitsInByte);
+        }
+        return mask;
+    }
+
+    private static InetAddress toInetAddress(byte[] address) {
+        try {
+            return InetAddress.getByAddress(address); // no lookup is done for a raw address
+        } catch (UnknownHostException e) {
+            throw new IllegalArgumentException(e); // only happens for an illegal length
+        }
+    }
+
+    @Override
+    public String toString() {
+        return cidr;
+    }
 }
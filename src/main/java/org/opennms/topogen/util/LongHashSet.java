@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen.util;
+
+import java.util.Arrays;
+
+/**
+ * A set of non negative longs backed by a single long[] with open addressing (linear probing). No boxing and no
+ * entry objects: 8 bytes per slot, at most half of the slots are used.
+ */
+public class LongHashSet {
+
+    private final static long EMPTY = -1;
+    private final static int MAX_CAPACITY = 1 << 30;
+
+    private long[] slots;
+    private int size = 0;
+
+    public LongHashSet() {
+        this(16);
+    }
+
+    public LongHashSet(int expectedSize) {
+        int capacity = 16;
+        while (capacity < expectedSize * 2L && capacity < MAX_CAPACITY) {
+            capacity <<= 1;
+        }
+        slots = newSlots(capacity);
+    }
+
+    /** @return true if the value was not contained before */
+    public boolean add(long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("only non negative values are supported but got " + value);
+        }
+        if ((size + 1) * 2L > slots.length) {
+            grow();
+        }
+        return insert(slots, value);
+    }
+
+    public boolean contains(long value) {
+        int mask = slots.length - 1;
+        for (int i = index(value, mask); ; i = (i + 1) & mask) {
+            if (slots[i] == EMPTY) {
+                return false;
+            } else if (slots[i] == value) {
+                return true;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private boolean insert(long[] target, long value) {
+        int mask = target.length - 1;
+        for (int i = index(value, mask); ; i = (i + 1) & mask) {
+            if (target[i] == EMPTY) {
+                target[i] = value;
+                size++;
+                return true;
+            } else if (target[i] == value) {
+                return false;
+            }
+        }
+    }
+
+    private void grow() {
+        if (slots.length >= MAX_CAPACITY) {
+            if (size + 1 >= slots.length) {
+                throw new IllegalStateException("LongHashSet is full, it can hold at most " + (MAX_CAPACITY - 1) + " values");
+            }
+            return; // we accept a higher load factor from here on
+        }
+        long[] oldSlots = slots;
+        slots = newSlots(oldSlots.length * 2);
+        size = 0;
+        for (long value : oldSlots) {
+            if (value != EMPTY) {
+                insert(slots, value);
+            }
+        }
+    }
+
+    private static long[] newSlots(int capacity) {
+        long[] slots = new long[capacity];
+        Arrays.fill(slots, EMPTY);
+        return slots;
+    }
+
+    private static int index(long value, int mask) {
+        // murmur3 finalizer, spreads packed int pairs over all slots
+        long h = value;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+}
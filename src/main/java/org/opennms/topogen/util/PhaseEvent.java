@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One call of a {@link Phases.Phase} as JFR event "org.opennms.topogen.Phase". The event type is defined at runtime
+ * via {@code jdk.jfr.EventFactory} and used through method handles, so the class compiles on Java 8 and the events are
+ * only emitted on JVMs that bring the JFR API (8u262+, 11+).
+ */
+final class PhaseEvent {
+
+    private final static int PHASE = 0;
+    private final static int ROWS = 1;
+    private final static int ALLOCATED_BYTES = 2;
+
+    private final static Type TYPE = Type.create();
+
+    private final Object event;
+
+    private PhaseEvent(Object event) {
+        this.event = event;
+    }
+
+    /** @return false if the JVM has no JFR API, events are never emitted then */
+    static boolean isAvailable() {
+        return TYPE != null;
+    }
+
+    /** @return the started event or null if no recording wants it */
+    static PhaseEvent begin(String phase) {
+        if (TYPE == null) {
+            return null;
+        }
+        try {
+            if (!(boolean) TYPE.isEnabled.invoke()) {
+                return null;
+            }
+            Object event = TYPE.newEvent.invoke();
+            TYPE.set.invoke(event, PHASE, phase);
+            TYPE.begin.invoke(event);
+            return new PhaseEvent(event);
+        } catch (Throwable e) {
+            throw new IllegalStateException("can't emit the JFR event of phase " + phase, e);
+        }
+    }
+
+    void end(long rows, long allocatedBytes) {
+        try {
+            TYPE.end.invoke(event);
+            if ((boolean) TYPE.shouldCommit.invoke(event)) {
+                TYPE.set.invoke(event, ROWS, rows);
+                TYPE.set.invoke(event, ALLOCATED_BYTES, allocatedBytes);
+                TYPE.commit.invoke(event);
+            }
+        } catch (Throwable e) {
+            throw new IllegalStateException("can't emit a JFR event", e);
+        }
+    }
+
+    /** The handles of the event type, bound to its factory. */
+    private static class Type {
+        private MethodHandle isEnabled;
+        private MethodHandle newEvent;
+        private MethodHandle set;
+        private MethodHandle begin;
+        private MethodHandle end;
+        private MethodHandle shouldCommit;
+        private MethodHandle commit;
+
+        /** @return null if the JVM has no JFR API */
+        private static Type create() {
+            try {
+                Class<?> annotationElement = Class.forName("jdk.jfr.AnnotationElement");
+                Class<?> valueDescriptor = Class.forName("jdk.jfr.ValueDescriptor");
+                Class<?> eventFactory = Class.forName("jdk.jfr.EventFactory");
+                Class<?> eventType = Class.forName("jdk.jfr.EventType");
+                Class<?> event = Class.forName("jdk.jfr.Event");
+
+                List<Object> annotations = Arrays.asList(
+                        annotation(annotationElement, "jdk.jfr.Name", "org.opennms.topogen.Phase"),
+                        annotation(annotationElement, "jdk.jfr.Label", "Topology Generator Phase"),
+                        annotation(annotationElement, "jdk.jfr.Category", new String[] { "OpenNMS" }));
+                Constructor<?> field = valueDescriptor.getConstructor(Class.class, String.class, List.class);
+                List<Object> fields = Arrays.asList(
+                        field.newInstance(String.class, "phase",
+                                Collections.singletonList(annotation(annotationElement, "jdk.jfr.Label", "Phase"))),
+                        field.newInstance(long.class, "rows",
+                                Collections.singletonList(annotation(annotationElement, "jdk.jfr.Label", "Rows"))),
+                        field.newInstance(long.class, "allocatedBytes", Arrays.asList(
+                                annotation(annotationElement, "jdk.jfr.Label", "Allocated"),
+                                annotation(annotationElement, "jdk.jfr.DataAmount", "BYTES"))));
+                Object factory = eventFactory.getMethod("create", List.class, List.class)
+                        .invoke(null, annotations, fields);
+
+                MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+                Type type = new Type();
+                Object eventTypeOfFactory = eventFactory.getMethod("getEventType").invoke(factory);
+                type.isEnabled = lookup.findVirtual(eventType, "isEnabled", MethodType.methodType(boolean.class))
+                        .bindTo(eventTypeOfFactory);
+                type.newEvent = lookup.findVirtual(eventFactory, "newEvent", MethodType.methodType(event))
+                        .bindTo(factory);
+                type.set = lookup.findVirtual(event, "set", MethodType.methodType(void.class, int.class, Object.class));
+                type.begin = lookup.findVirtual(event, "begin", MethodType.methodType(void.class));
+                type.end = lookup.findVirtual(event, "end", MethodType.methodType(void.class));
+                type.shouldCommit = lookup.findVirtual(event, "shouldCommit", MethodType.methodType(boolean.class));
+                type.commit = lookup.findVirtual(event, "commit", MethodType.methodType(void.class));
+                return type;
+            } catch (ReflectiveOperationException | LinkageError e) {
+                return null;
+            }
+        }
+
+        private static Object annotation(Class<?> annotationElement, String annotation, Object value)
+                throws ReflectiveOperationException {
+            return annotationElement.getConstructor(Class.class, Object.class)
+                    .newInstance(Class.forName(annotation), value);
+        }
+    }
+}
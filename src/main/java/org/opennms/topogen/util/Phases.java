@@ -0,0 +1,187 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen.util;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Measures the phases of a run: per phase the amount of calls, rows, the latency distribution of the calls and the
+ * bytes the measuring thread allocated. Every call is also emitted as JFR event "org.opennms.topogen.Phase" if the
+ * JVM brings the JFR API and a recording is running, see {@link PhaseEvent}. The generation phases contain the writing
+ * phases of their rows, the time of all phases adds up to more than the time of the run.
+ */
+public final class Phases {
+
+    public enum Phase {
+        /** creating and writing the nodes */
+        NODES,
+        /** creating and writing the elements */
+        ELEMENTS,
+        /** creating and writing the links */
+        LINKS,
+        /** generating the pairs of one block of links, without writing them */
+        LINK_GENERATION,
+        /** creating and writing the snmp and ip interfaces */
+        INTERFACES,
+        /** encoding rows for the database */
+        ENCODING,
+        /** executing a batch or flushing a buffer of COPY data */
+        EXECUTION,
+        /** committing the transaction of a batch or a COPY */
+        COMMIT,
+        /** waiting for a connection of the pool */
+        POOL_WAIT
+    }
+
+    private final static ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private final static boolean ALLOCATIONS = THREADS instanceof com.sun.management.ThreadMXBean
+            && ((com.sun.management.ThreadMXBean) THREADS).isThreadAllocatedMemorySupported()
+            && ((com.sun.management.ThreadMXBean) THREADS).isThreadAllocatedMemoryEnabled();
+    private final static boolean EVENTS = PhaseEvent.isAvailable();
+
+    /** one entry per phase, never replaced: the writers read it without locking */
+    private final static Map<Phase, Stats> STATS = new EnumMap<>(Phase.class);
+
+    static {
+        for (Phase phase : Phase.values()) {
+            STATS.put(phase, new Stats());
+        }
+    }
+
+    private Phases() {
+    }
+
+    public static Timer start(Phase phase) {
+        return new Timer(phase);
+    }
+
+    /** Forgets everything measured so far, calls that are measured meanwhile may be counted partly. */
+    public static void reset() {
+        for (Stats stats : STATS.values()) {
+            stats.reset();
+        }
+    }
+
+    private static Stats get(Phase phase) {
+        return STATS.get(phase);
+    }
+
+    public static long getCalls(Phase phase) {
+        return get(phase).calls.sum();
+    }
+
+    public static long getRows(Phase phase) {
+        return get(phase).rows.sum();
+    }
+
+    /** @return the latency of the calls at the percentile (0-100) in nanos */
+    public static long getLatency(Phase phase, double percentile) {
+        return get(phase).latencies.getValueAtPercentile(percentile);
+    }
+
+    /** the phases that were measured as table, times in ms */
+    public static String summary() {
+        StringBuilder table = new StringBuilder(String.format(Locale.ROOT, "%-16s %10s %12s %12s %10s %10s %10s %10s %10s%n",
+                "phase", "calls", "rows", "total ms", "p50 ms", "p90 ms", "p99 ms", "max ms", "bytes/row"));
+        for (Phase phase : Phase.values()) {
+            Stats stats = get(phase);
+            long calls = stats.calls.sum();
+            if (calls == 0) {
+                continue;
+            }
+            long rows = stats.rows.sum();
+            Histogram latencies = stats.latencies;
+            table.append(String.format(Locale.ROOT, "%-16s %10d %12d %12.1f %10.3f %10.3f %10.3f %10.3f %10s%n",
+                    phase.name().toLowerCase(Locale.ROOT), calls, rows, stats.nanos.sum() / 1e6,
+                    latencies.getValueAtPercentile(50) / 1e6, latencies.getValueAtPercentile(90) / 1e6,
+                    latencies.getValueAtPercentile(99) / 1e6, latencies.getMaxValue() / 1e6,
+                    ALLOCATIONS && rows > 0 ? Long.toString(stats.allocatedBytes.sum() / rows) : "-"));
+        }
+        return table.toString();
+    }
+
+    private static long allocatedBytes() {
+        return ALLOCATIONS
+                ? ((com.sun.management.ThreadMXBean) THREADS).getThreadAllocatedBytes(Thread.currentThread().getId())
+                : 0;
+    }
+
+    private static class Stats {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final LongAdder allocatedBytes = new LongAdder();
+        /** nanos with 3 significant digits, resizes itself */
+        private final Histogram latencies = new ConcurrentHistogram(3);
+
+        private void reset() {
+            calls.reset();
+            rows.reset();
+            nanos.reset();
+            allocatedBytes.reset();
+            latencies.reset();
+        }
+    }
+
+    /** Measures one call of a phase on the current thread. */
+    public static class Timer {
+        private final Stats stats;
+        private final long start;
+        private final long startAllocatedBytes;
+        private final PhaseEvent event;
+
+        private Timer(Phase phase) {
+            this.stats = get(phase);
+            this.event = EVENTS ? PhaseEvent.begin(phase.name()) : null;
+            this.startAllocatedBytes = allocatedBytes();
+            this.start = System.nanoTime();
+        }
+
+        public void stop(long rows) {
+            long duration = System.nanoTime() - start;
+            long allocated = allocatedBytes() - startAllocatedBytes;
+            stats.calls.increment();
+            stats.rows.add(rows);
+            stats.nanos.add(duration);
+            stats.allocatedBytes.add(allocated);
+            stats.latencies.recordValue(duration);
+            if (event != null) {
+                event.end(rows, allocated);
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen.util;
+
+import java.util.SplittableRandom;
+
+/**
+ * Derives independent and reproducible random streams from one seed. A stream is identified by its purpose and a
+ * block number: ids are grouped into blocks of {@link #BLOCK_SIZE} and every block gets its own stream. The values
+ * for an id therefore only depend on the seed and the id, not on how many threads generate or in which order the
+ * blocks are processed - as long as work is split at block boundaries.
+ */
+public class RandomStreams {
+
+    public final static long DEFAULT_SEED = 42;
+    public final static int BLOCK_SIZE = 1 << 16;
+
+    public enum Purpose {
+        PAIRS, ELEMENTS, LINKS, INTERFACES, CHANGES
+    }
+
+    private final long seed;
+
+    public RandomStreams(long seed) {
+        this.seed = seed;
+    }
+
+    /** The stream for things that are not split into blocks. */
+    public SplittableRandom stream(Purpose purpose) {
+        return stream(purpose, -1);
+    }
+
+    public SplittableRandom stream(Purpose purpose, long block) {
+        return new SplittableRandom(mix(seed ^ mix((purpose.ordinal() + 1) * 0x9e3779b97f4a7c15L + block)));
+    }
+
+    /** Hands out the stream of the block an id falls into, switching streams at block boundaries. */
+    public Cursor cursor(Purpose purpose) {
+        return new Cursor(purpose);
+    }
+
+    public class Cursor {
+        private final Purpose purpose;
+        private long block = Long.MIN_VALUE;
+        private SplittableRandom random;
+
+        private Cursor(Purpose purpose) {
+            this.purpose = purpose;
+        }
+
+        public SplittableRandom at(long id) {
+            long blockOfId = Math.floorDiv(id, BLOCK_SIZE);
+            if (blockOfId != block) {
+                block = blockOfId;
+                random = stream(purpose, block);
+            }
+            return random;
+        }
+    }
+
+    /** finalizer of SplitMix64 */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,140 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.opennms.netmgt.model.OnmsNode;
+import org.opennms.netmgt.model.monitoringLocations.OnmsMonitoringLocation;
+import org.opennms.topogen.persistence.CopyFormat;
+import org.opennms.topogen.persistence.ExportManifest;
+import org.opennms.topogen.protocol.LldpProtocol;
+
+class FileTopologySinkTest {
+
+    @Test
+    void shouldWriteOneFilePerTable() throws IOException, SQLException {
+        Path directory = Files.createTempDirectory("topology");
+        TopologySettings settings = TopologySettings.builder()
+                .topology(TopologyGenerator.Topology.random)
+                .amountNodes(10)
+                .amountElements(10)
+                .amountLinks(20)
+                .amountSnmpInterfaces(5)
+                .amountIpInterfaces(5)
+                .build();
+        try (FileTopologySink sink = new FileTopologySink(directory)) {
+            new LldpProtocol(settings, sink).createAndPersistNetwork();
+        }
+        assertEquals(10, lines(directory.resolve("node.copy")).size());
+        assertEquals(10, lines(directory.resolve("lldpelement.copy")).size());
+        assertEquals(5, lines(directory.resolve("snmpinterface.copy")).size());
+        assertEquals(5, lines(directory.resolve("ipinterface.copy")).size());
+        List<String> links = lines(directory.resolve("lldplink.copy"));
+        assertEquals(20, links.size());
+        assertEquals(TopologyTables.LLDP_LINKS.getColumns().size(), links.get(0).split("\t", -1).length);
+        assertEquals("0", links.get(0).split("\t")[0]);
+    }
+
+    @Test
+    void shouldWriteManifestForCompressedCsv() throws IOException, SQLException {
+        Path directory = Files.createTempDirectory("topology");
+        try (FileTopologySink sink = new FileTopologySink(directory, CopyFormat.csv, true)) {
+            sink.persistNodes(Arrays.asList(node(1), node(2)));
+        }
+        ExportManifest manifest = ExportManifest.read(directory);
+        assertEquals(CopyFormat.csv, manifest.getFormat());
+        assertTrue(manifest.isGzip());
+        ExportManifest.Entry entry = manifest.getEntries().get(0);
+        assertEquals("node", entry.getTable());
+        assertEquals("node.csv.gz", entry.getFile());
+        assertEquals(2, entry.getRows());
+        assertEquals(TopologyTables.NODES.getColumns(), entry.getColumns());
+        assertEquals("COPY node (nodeid, nodelabel, location, nodecreatetime) FROM STDIN WITH (FORMAT csv)",
+                manifest.getCopyStatement(entry));
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(directory.resolve(entry.getFile()))), StandardCharsets.UTF_8))) {
+            assertTrue(in.readLine().startsWith("1,\"Node1\",\"Default\","));
+        }
+    }
+
+    @Test
+    void shouldWriteBinaryFilesWithHeaderAndTrailer() throws IOException, SQLException {
+        Path directory = Files.createTempDirectory("topology");
+        try (FileTopologySink sink = new FileTopologySink(directory, CopyFormat.binary, false)) {
+            sink.persistNodes(Arrays.asList(node(1), node(2)));
+        }
+        ExportManifest manifest = ExportManifest.read(directory);
+        ExportManifest.Entry entry = manifest.getEntries().get(0);
+        assertEquals("node.bin", entry.getFile());
+        assertEquals("COPY node (nodeid, nodelabel, location, nodecreatetime) FROM STDIN WITH (FORMAT binary)",
+                manifest.getCopyStatement(entry));
+        ByteBuffer file = ByteBuffer.wrap(Files.readAllBytes(directory.resolve(entry.getFile())));
+        file.position(CopyFormat.binary.getHeader().length);
+        for (int id = 1; id <= 2; id++) {
+            assertEquals(TopologyTables.NODES.getColumns().size(), file.getShort());
+            assertEquals(4, file.getInt());
+            assertEquals(id, file.getInt());
+            for (int column = 1; column < TopologyTables.NODES.getColumns().size(); column++) {
+                int length = file.getInt();
+                file.position(file.position() + length);
+            }
+        }
+        assertEquals(-1, file.getShort());
+        assertEquals(0, file.remaining());
+    }
+
+    private static OnmsNode node(int id) {
+        OnmsMonitoringLocation location = new OnmsMonitoringLocation();
+        location.setLocationName("Default");
+        OnmsNode node = new OnmsNode();
+        node.setId(id);
+        node.setLabel("Node" + id);
+        node.setLocation(location);
+        return node;
+    }
+
+    private static List<String> lines(Path file) throws IOException {
+        return Files.readAllLines(file, StandardCharsets.UTF_8);
+    }
+}
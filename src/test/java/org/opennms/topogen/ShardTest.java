@@ -0,0 +1,68 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.opennms.topogen.ir.IdRange;
+
+public class ShardTest {
+
+    @Test
+    void shouldParseShard() {
+        assertEquals(new Shard(2, 4), Shard.parse("2/4"));
+        assertEquals(Shard.ALL, Shard.parse("1/1"));
+        assertTrue(Shard.parse("1/1").isAll());
+        assertEquals("3/5", Shard.parse(" 3 / 5 ").toString());
+    }
+
+    @Test
+    void shouldRejectInvalidShards() {
+        for (String shard : new String[]{"0/4", "5/4", "1/0", "2", "1/2/3", "a/b", ""}) {
+            assertThrows(IllegalArgumentException.class, () -> Shard.parse(shard), shard);
+        }
+    }
+
+    @Test
+    void shouldSliceIdsWithoutGapsOrOverlaps() {
+        for (int amount : new int[]{0, 1, 7, 10, 1001}) {
+            int next = 0;
+            for (int index = 1; index <= 3; index++) {
+                IdRange slice = new Shard(index, 3).slice(amount);
+                assertEquals(next, slice.getFrom());
+                assertTrue(slice.size() >= amount / 3 && slice.size() <= amount / 3 + 1);
+                next = slice.getTo();
+            }
+            assertEquals(amount, next);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+import org.opennms.topogen.protocol.CdpProtocol;
+import org.opennms.topogen.protocol.IsIsProtocol;
+import org.opennms.topogen.protocol.LldpProtocol;
+import org.opennms.topogen.protocol.OspfProtocol;
+
+class TopologyChurnerTest {
+
+    @Test
+    void shouldParseMix() {
+        assertArrayEquals(new int[]{1, 9, 10, 80}, TopologyChurner.parseMix(TopologyChurner.DEFAULT_MIX));
+        assertArrayEquals(new int[]{0, 0, 0, 5}, TopologyChurner.parseMix("update = 5"));
+    }
+
+    @Test
+    void shouldRejectInvalidMix() {
+        assertThrows(IllegalArgumentException.class, () -> TopologyChurner.parseMix("insert=1"));
+        assertThrows(IllegalArgumentException.class, () -> TopologyChurner.parseMix("node"));
+        assertThrows(IllegalArgumentException.class, () -> TopologyChurner.parseMix("node=-1,link=2"));
+        assertThrows(IllegalArgumentException.class, () -> TopologyChurner.parseMix("node=0"));
+    }
+
+    @Test
+    void shouldStartNewPairsWithEvenId() {
+        assertEquals(0, TopologyChurner.nextPairId(-1));
+        assertEquals(6, TopologyChurner.nextPairId(4));
+        assertEquals(6, TopologyChurner.nextPairId(5));
+    }
+
+    @Test
+    void shouldFindPollTimeColumnOfAllLinkTables() {
+        TopologySettings settings = TopologySettings.builder().build();
+        CountingTopologySink sink = new CountingTopologySink();
+        assertEquals("cdplinklastpolltime", TopologyChurner.getPollTimeColumn(new CdpProtocol(settings, sink).getLinkTable()));
+        assertEquals("isisLinkLastPollTime", TopologyChurner.getPollTimeColumn(new IsIsProtocol(settings, sink).getLinkTable()));
+        assertEquals("lldpLinkLastPollTime", TopologyChurner.getPollTimeColumn(new LldpProtocol(settings, sink).getLinkTable()));
+        assertEquals("ospfLinkLastPollTime", TopologyChurner.getPollTimeColumn(new OspfProtocol(settings, sink).getLinkTable()));
+    }
+
+    @Test
+    void shouldUpdateViaArrayOfIds() {
+        assertEquals("UPDATE cdplink SET cdplinklastpolltime = ? WHERE id = ANY(?)",
+                TopologyPersister.createUpdateStatement(TopologyTables.CDP_LINKS, "cdplinklastpolltime"));
+    }
+}
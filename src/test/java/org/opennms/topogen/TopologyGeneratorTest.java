@@ -28,11 +28,17 @@
 
 package org.opennms.topogen;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import org.junit.jupiter.api.Test;
+import org.opennms.topogen.persistence.Table;
 
 class TopologyGeneratorTest {
     @Test
@@ -41,4 +47,191 @@ class TopologyGeneratorTest {
         generator.setTopology("invalid topology");
         assertThrows(IllegalArgumentException.class, generator::assertSetup);
     }
+
+    @Test
+    void shouldAcceptTopologyNamesWithHyphen() throws IOException {
+        TopologyGenerator generator = new TopologyGenerator(null);
+        generator.setTopology("random-simple");
+        generator.assertSetup();
+    }
+
+    @Test
+    void shouldRejectMoreLinksThanSimplePairs() throws IOException {
+        TopologyGenerator generator = new TopologyGenerator(null);
+        generator.setTopology("random-simple");
+        generator.setAmountNodes(4);
+        generator.setAmountLinks(12); // 6 pairs, all there are between 4 nodes
+        generator.assertSetup();
+        generator.setAmountLinks(13);
+        assertThrows(IllegalArgumentException.class, generator::assertSetup);
+    }
+
+    @Test
+    void shouldRejectAddressPoolsThatAreTooSmall() throws IOException {
+        TopologyGenerator generator = new TopologyGenerator(null);
+        generator.setProtocol("ospf");
+        generator.setAmountNodes(7);
+        generator.setAmountLinks(16);
+        generator.setLinkPool("10.0.0.0/28"); // 8 subnets of /31
+        generator.setRouterIdPool("100.64.0.0/29"); // 7 addresses after the network address
+        generator.setAmountSnmpInterfaces(8);
+        generator.setAmountIpInterfaces(7);
+        generator.setInterfacePool("172.16.0.0/29");
+        generator.assertSetup();
+
+        generator.setAmountLinks(17);
+        assertThrows(IllegalArgumentException.class, generator::assertSetup);
+        generator.setAmountLinks(16);
+        generator.setAmountNodes(8);
+        assertThrows(IllegalArgumentException.class, generator::assertSetup);
+        generator.setRouterIdPool("100.64.0.0/28");
+        generator.assertSetup();
+        generator.setAmountSnmpInterfaces(8); // assertSetup limits them to the nodes
+        generator.setAmountIpInterfaces(8);
+        assertThrows(IllegalArgumentException.class, generator::assertSetup);
+    }
+
+    @Test
+    void shouldCheckInterfacePoolAgainstInterfacesOfAllNodes() throws IOException {
+        TopologyGenerator generator = new TopologyGenerator(null);
+        generator.setAmountNodes(4);
+        generator.setInterfacesPerNode("2");
+        generator.setAmountIpInterfaces(100); // but only 8 interfaces
+        generator.setInterfacePool("172.16.0.0/28");
+        generator.assertSetup();
+        generator.setInterfacesPerNode("4");
+        assertThrows(IllegalArgumentException.class, generator::assertSetup);
+    }
+
+    @Test
+    void shouldRejectUnknownLoader() throws IOException {
+        TopologyGenerator generator = new TopologyGenerator(null);
+        generator.setLoader("invalid loader");
+        assertThrows(IllegalArgumentException.class, generator::assertSetup);
+    }
+
+    @Test
+    void shouldRejectBatchSizeSmallerThanOne() throws IOException {
+        TopologyGenerator generator = new TopologyGenerator(null);
+        generator.setBatchSize(0);
+        assertThrows(IllegalArgumentException.class, generator::assertSetup);
+    }
+
+    @Test
+    void shouldAcceptListOfProtocols() throws IOException {
+        TopologyGenerator generator = new TopologyGenerator(null);
+        generator.setProtocol("lldp, cdp,ospf,cdp");
+        generator.assertSetup();
+        assertEquals(Arrays.asList(TopologyGenerator.Protocol.lldp, TopologyGenerator.Protocol.cdp,
+                TopologyGenerator.Protocol.ospf), TopologyGenerator.Protocol.parseList("lldp, cdp,ospf,cdp"));
+    }
+
+    @Test
+    void shouldRejectUnknownProtocolInList() throws IOException {
+        TopologyGenerator generator = new TopologyGenerator(null);
+        generator.setProtocol("cdp,invalid");
+        assertThrows(IllegalArgumentException.class, generator::assertSetup);
+    }
+
+    @Test
+    void shouldRejectUnknownSink() throws IOException {
+        TopologyGenerator generator = new TopologyGenerator(null);
+        generator.setSinkType("invalid sink");
+        assertThrows(IllegalArgumentException.class, generator::assertSetup);
+    }
+
+    @Test
+    void shouldRejectShardThatClearsTheDatabase() throws IOException {
+        TopologyGenerator generator = new TopologyGenerator(null);
+        generator.setShard("2/4");
+        generator.assertSetup();
+        generator.setTruncateExistingTopology(true);
+        assertThrows(IllegalArgumentException.class, generator::assertSetup);
+        generator.setShard("5/4");
+        generator.setTruncateExistingTopology(false);
+        assertThrows(IllegalArgumentException.class, generator::assertSetup);
+    }
+
+    @Test
+    void shouldRejectResumeThatClearsTheDatabase() throws IOException {
+        TopologyGenerator generator = new TopologyGenerator(null);
+        generator.setResume(true);
+        generator.assertSetup();
+        generator.setTruncateExistingTopology(true);
+        assertThrows(IllegalArgumentException.class, generator::assertSetup);
+        generator.setTruncateExistingTopology(false);
+        generator.setSinkType("file");
+        assertThrows(IllegalArgumentException.class, generator::assertSetup);
+    }
+
+    @Test
+    void shouldNotTouchTheCheckpointWithoutBeingAsked() throws Exception {
+        RecordingPersister persister = new RecordingPersister();
+        TopologyGenerator generator = new TopologyGenerator(persister);
+        generator.setAmountNodes(10);
+        generator.setAmountLinks(10);
+        generator.assertSetup();
+        generator.createNetwork();
+        assertTrue(persister.calls.contains("write node"));
+        assertTrue(persister.calls.stream().noneMatch(call -> call.contains("checkpoint")), persister.calls.toString());
+
+        persister = new RecordingPersister();
+        generator = new TopologyGenerator(persister);
+        generator.setAmountNodes(10);
+        generator.setAmountLinks(10);
+        generator.setCheckpoint(true);
+        generator.assertSetup();
+        generator.createNetwork();
+        assertEquals(Arrays.asList("clear checkpoint 1/1", "enable checkpoint 1/1"), persister.calls.subList(0, 2));
+        assertEquals("clear checkpoint 1/1", persister.calls.get(persister.calls.size() - 1));
+    }
+
+    @Test
+    void shouldClaimTheIdsOfShardsBeforeWriting() throws Exception {
+        RecordingPersister persister = new RecordingPersister();
+        TopologyGenerator generator = new TopologyGenerator(persister);
+        generator.setAmountNodes(10);
+        generator.setAmountLinks(10);
+        generator.setShard("2/4");
+        generator.assertSetup();
+        generator.createNetwork();
+        assertEquals("advance sequences", persister.calls.get(0));
+        assertEquals(1, persister.calls.stream().filter("advance sequences"::equals).count());
+    }
+
+    /** a persister without database that records what is asked of it */
+    private static class RecordingPersister extends TopologyPersister {
+        private final List<String> calls = new ArrayList<>();
+
+        private RecordingPersister() throws IOException {
+        }
+
+        @Override
+        public void setUpDatasource() {
+        }
+
+        @Override
+        public void setWriters(int writers) {
+        }
+
+        @Override
+        public void enableCheckpoint(Shard shard, boolean resume) {
+            calls.add("enable checkpoint " + shard);
+        }
+
+        @Override
+        public void clearCheckpoint(Shard shard) {
+            calls.add("clear checkpoint " + shard);
+        }
+
+        @Override
+        public void advanceSequences(long nextNodeId, long nextId) {
+            calls.add("advance sequences");
+        }
+
+        @Override
+        public synchronized <T> void write(Table<T> table, List<T> elements) {
+            calls.add("write " + table.getName());
+        }
+    }
 }
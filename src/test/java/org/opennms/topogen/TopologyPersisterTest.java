@@ -0,0 +1,54 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.opennms.topogen.persistence.Table;
+
+public class TopologyPersisterTest {
+
+    @Test
+    void shouldTruncateEveryTableOfTheTopology() {
+        List<Table<?>> tables = Arrays.asList(TopologyTables.NODES, TopologyTables.CDP_ELEMENTS,
+                TopologyTables.CDP_LINKS, TopologyTables.ISIS_ELEMENTS, TopologyTables.ISIS_LINKS,
+                TopologyTables.LLDP_ELEMENTS, TopologyTables.LLDP_LINKS, TopologyTables.OSPF_LINKS,
+                TopologyTables.SNMP_INTERFACES, TopologyTables.IP_INTERFACES);
+        List<String> truncated = Arrays.asList(TopologyPersister.TOPOLOGY_TRUNCATE
+                .replaceFirst("^TRUNCATE TABLE ", "").replaceFirst(" RESTART IDENTITY CASCADE;$", "").split(", "));
+        for (Table<?> table : tables) {
+            assertTrue(truncated.contains(table.getName()), table.getName() + " is not truncated");
+        }
+        assertTrue(truncated.containsAll(TopologyPersister.BULK_TABLES));
+    }
+}
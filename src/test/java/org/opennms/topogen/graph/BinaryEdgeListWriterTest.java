@@ -0,0 +1,74 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen.graph;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.opennms.topogen.CountingTopologySink;
+import org.opennms.topogen.TopologyGenerator;
+import org.opennms.topogen.TopologySettings;
+import org.opennms.topogen.ir.LinkRow;
+import org.opennms.topogen.protocol.CdpProtocol;
+
+public class BinaryEdgeListWriterTest {
+
+    @Test
+    void shouldExportSameStructureAsTheGeneratedLinks() throws IOException, SQLException {
+        TopologySettings settings = TopologySettings.builder()
+                .topology(TopologyGenerator.Topology.scale_free)
+                .amountNodes(50)
+                .amountElements(50)
+                .amountLinks(200)
+                .build();
+        Path file = Files.createTempFile("topology", ".edges");
+        try (BinaryEdgeListWriter writer = new BinaryEdgeListWriter(file)) {
+            new CdpProtocol(settings, new CountingTopologySink()).exportGraph(writer);
+        }
+        CountingTopologySink sink = new CountingTopologySink(200);
+        CdpProtocol protocol = new CdpProtocol(settings, sink);
+        protocol.createAndPersistNetwork();
+        List<LinkRow> links = sink.getRetained(protocol.getLinkTable());
+
+        BinaryEdgeList edges = BinaryEdgeList.map(file);
+        assertEquals(50, edges.getVertices());
+        assertEquals(100, edges.getEdges());
+        assertEquals(BinaryEdgeList.HEADER_SIZE + 100 * 8, Files.size(file));
+        for (int i = 0; i < edges.getEdges(); i++) {
+            assertEquals(links.get(2 * i).getNodeId(), edges.getSource(i));
+            assertEquals(links.get(2 * i + 1).getNodeId(), edges.getTarget(i));
+        }
+    }
+}
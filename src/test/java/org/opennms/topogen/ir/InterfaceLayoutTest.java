@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen.ir;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.opennms.topogen.util.RandomStreams;
+
+public class InterfaceLayoutTest {
+
+    @Test
+    void shouldParseInterfacesPerNode() {
+        assertArrayEquals(new int[]{48, 48}, InterfaceLayout.parse("48"));
+        assertArrayEquals(new int[]{48, 500}, InterfaceLayout.parse("48-500"));
+        for (String invalid : new String[]{"0", "500-48", "1-2-3", "a", "", "-1"}) {
+            assertThrows(IllegalArgumentException.class, () -> InterfaceLayout.parse(invalid), invalid);
+        }
+    }
+
+    @Test
+    void shouldNumberTheInterfacesOfEveryNode() {
+        InterfaceLayout layout = new InterfaceLayout(1000, 2, 9, new RandomStreams(7));
+        int id = 0;
+        for (int node = 0; node < 1000; node++) {
+            int amount = layout.getAmountInterfaces(node);
+            assertTrue(amount >= 2 && amount <= 9);
+            for (int ifIndex = 1; ifIndex <= amount; ifIndex++, id++) {
+                assertEquals(node, layout.getNodeId(id));
+                assertEquals(ifIndex, layout.getIfIndex(id));
+            }
+        }
+        assertEquals(id, layout.getAmountInterfaces());
+        assertEquals(new IdRange(layout.getIds(new IdRange(0, 10)).getTo(), id), layout.getIds(new IdRange(10, 1000)));
+    }
+
+    @Test
+    void shouldOnlyDependOnTheSeed() {
+        InterfaceLayout layout = new InterfaceLayout(100, 1, 500, new RandomStreams(3));
+        InterfaceLayout same = new InterfaceLayout(100, 1, 500, new RandomStreams(3));
+        for (int node = 0; node < 100; node++) {
+            assertEquals(layout.getAmountInterfaces(node), same.getAmountInterfaces(node));
+        }
+    }
+
+    @Test
+    void shouldHandOutFreePortsFirst() {
+        InterfaceLayout layout = new InterfaceLayout(2, 3, 3, new RandomStreams(1));
+        InterfaceLayout.Ports ports = layout.new Ports();
+        assertEquals(1, ports.next(0));
+        assertEquals(1, ports.next(1));
+        assertEquals(2, ports.next(0));
+        assertEquals(3, ports.next(0));
+        assertEquals(0, ports.getSharedPorts());
+        assertEquals(1, ports.next(0)); // all used
+        assertEquals(1, ports.getSharedPorts());
+    }
+}
@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+public class ArrayRowWriterTest {
+
+    private final Table<Integer> table = new Table<>("sometable", Arrays.asList("id", "label", "flag", "createtime"),
+            Arrays.asList("int8", "text", "bool", "timestamp"), new BiConsumerWithException<RowWriter, Integer>() {
+                @Override
+                public void accept(RowWriter row, Integer id) throws SQLException {
+                    row.writeInt(id);
+                    if (id % 2 == 0) {
+                        row.writeString("label" + id);
+                    } else {
+                        row.writeNull(Types.VARCHAR);
+                    }
+                    row.writeBoolean(id % 2 == 0);
+                    row.writeNow();
+                }
+            });
+
+    @Test
+    void shouldUseDeclaredTypesInUnnestStatement() {
+        assertEquals("INSERT INTO sometable (id, label, flag, createtime) SELECT * FROM " +
+                        "unnest(?::int8[], ?::text[], ?::bool[], ?::timestamp[])",
+                table.getUnnestStatement());
+    }
+
+    @Test
+    void shouldRejectTypesThatDontMatchColumns() {
+        assertThrows(IllegalArgumentException.class, () -> new Table<Integer>("sometable", Arrays.asList("id", "label"),
+                Collections.singletonList("int4"), RowWriter::writeInt));
+    }
+
+    @Test
+    void shouldCollectRowsUntilClear() throws SQLException {
+        ArrayRowWriter writer = new ArrayRowWriter(table.getTypes(), 2, new Timestamp(0));
+        writer.nextRow(); // starts with a null, the type of its column is declared anyway
+        table.getEncoder().accept(writer, 1);
+        writer.nextRow();
+        table.getEncoder().accept(writer, 2);
+        assertEquals(2, writer.getRows());
+        writer.clear();
+        assertEquals(0, writer.getRows());
+        writer.nextRow();
+        table.getEncoder().accept(writer, 3);
+        assertEquals(1, writer.getRows());
+    }
+}
@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+public class BinaryCopyRowWriterTest {
+
+    @Test
+    void shouldWriteColumnsWithTheirLength() {
+        BinaryCopyRowWriter writer = new BinaryCopyRowWriter(
+                Arrays.asList("int4", "int8", "int8", "bool", "text", "text"), 0, 4);
+        writer.writeInt(1);
+        writer.writeInt(2); // widened to the declared int8
+        writer.writeLong(-3);
+        writer.writeBoolean(true);
+        writer.writeString("\u00fc");
+        writer.writeNull(Types.VARCHAR);
+        writer.endRow();
+
+        ByteBuffer row = ByteBuffer.wrap(writer.getBuffer(), 0, writer.getLength());
+        assertEquals(6, row.getShort());
+        assertEquals(4, row.getInt());
+        assertEquals(1, row.getInt());
+        assertEquals(8, row.getInt());
+        assertEquals(2, row.getLong());
+        assertEquals(8, row.getInt());
+        assertEquals(-3, row.getLong());
+        assertEquals(1, row.getInt());
+        assertEquals(1, row.get());
+        assertEquals(2, row.getInt());
+        byte[] text = new byte[2];
+        row.get(text);
+        assertEquals("\u00fc", new String(text, StandardCharsets.UTF_8));
+        assertEquals(-1, row.getInt());
+        assertEquals(0, row.remaining());
+    }
+
+    @Test
+    void shouldWriteTimestampsAsLocalMicrosSince2000() {
+        LocalDateTime time = LocalDateTime.of(2018, 10, 1, 12, 30, 15, 123_000_000);
+        long epochMillis = time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        BinaryCopyRowWriter writer = new BinaryCopyRowWriter(Collections.singletonList("timestamp"), epochMillis, 4);
+        writer.writeNow();
+        writer.endRow();
+
+        ByteBuffer row = ByteBuffer.wrap(writer.getBuffer(), 0, writer.getLength());
+        assertEquals(1, row.getShort());
+        assertEquals(8, row.getInt());
+        assertEquals(ChronoUnit.MICROS.between(LocalDateTime.of(2000, 1, 1, 0, 0), time), row.getLong());
+    }
+
+    @Test
+    void shouldRejectIncompleteRows() {
+        BinaryCopyRowWriter writer = new BinaryCopyRowWriter(Arrays.asList("int4", "int4"), 0, 4);
+        writer.writeInt(1);
+        assertThrows(IllegalStateException.class, writer::endRow);
+    }
+
+    @Test
+    void shouldFrameTheRowsOfAFile() {
+        assertArrayEquals(new byte[]{'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xff, '\r', '\n', 0},
+                Arrays.copyOf(CopyFormat.binary.getHeader(), 11));
+        assertEquals(19, CopyFormat.binary.getHeader().length);
+        assertEquals(-1, ByteBuffer.wrap(CopyFormat.binary.getTrailer()).getShort());
+        assertEquals(0, CopyFormat.text.getHeader().length);
+    }
+}
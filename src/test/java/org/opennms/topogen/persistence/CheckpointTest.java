@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.opennms.topogen.ir.IdRange;
+
+public class CheckpointTest {
+
+    private final static Table<Integer> TABLE = new Table<>("test", Arrays.asList("id", "value"),
+            Arrays.asList("int4", "int4"), (row, id) -> {
+                row.writeInt(id);
+                row.writeInt(2 * id);
+            });
+
+    @Test
+    void shouldSkipCommittedRanges() throws SQLException {
+        Checkpoint.CommittedIds ids = new Checkpoint.CommittedIds();
+        ids.add(0, 9);
+        ids.add(10, 19); // adjacent, merged
+        ids.add(30, 34);
+        ids.add(50, 99);
+        assertEquals(75, ids.getAmount());
+        Checkpoint checkpoint = checkpoint(ids);
+
+        assertEquals(Arrays.asList(new IdRange(20, 30), new IdRange(35, 50), new IdRange(100, 120)),
+                checkpoint.remaining(TABLE, new IdRange(0, 120)));
+        assertEquals(Collections.singletonList(new IdRange(22, 25)), checkpoint.remaining(TABLE, new IdRange(22, 25)));
+        assertEquals(Collections.emptyList(), checkpoint.remaining(TABLE, new IdRange(60, 70)));
+    }
+
+    @Test
+    void shouldSkipCommittedIdsWithGaps() throws SQLException {
+        Checkpoint.CommittedIds ids = new Checkpoint.CommittedIds();
+        ids.add(2, 6);
+        List<Integer> elements = Arrays.asList(0, 2, 4, 6, 8, 10); // e.g. the links of one shard
+        assertEquals(Arrays.asList(Collections.singletonList(0), Arrays.asList(8, 10)),
+                checkpoint(ids).remaining(TABLE, elements));
+    }
+
+    @Test
+    void shouldKeepEverythingOfOtherTables() throws SQLException {
+        List<Integer> elements = new ArrayList<>(new IdRange(0, 10));
+        assertEquals(Collections.singletonList(elements),
+                new Checkpoint("1/1", new HashMap<>()).remaining(TABLE, elements));
+    }
+
+    @Test
+    void shouldGetIdOfRow() throws SQLException {
+        assertEquals(42, TABLE.getId(42));
+    }
+
+    private static Checkpoint checkpoint(Checkpoint.CommittedIds ids) {
+        Map<String, Checkpoint.CommittedIds> committed = new HashMap<>();
+        committed.put(TABLE.getName(), ids);
+        return new Checkpoint("1/1", committed);
+    }
+}
@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class ChunkedPersisterTest {
+
+    @Test
+    void shouldRejectChunkSizeSmallerThanOne() {
+        assertThrows(IllegalArgumentException.class, () -> new ChunkedPersister<>("test", 0, chunk -> {}));
+    }
+
+    @Test
+    void shouldPersistAllElementsInChunks() throws SQLException {
+        List<List<Integer>> chunks = new ArrayList<>();
+        try (ChunkedPersister<Integer> persister = new ChunkedPersister<>("test", 2, chunks::add)) {
+            for (int i = 0; i < 5; i++) {
+                persister.add(i);
+            }
+        }
+        assertEquals(Arrays.asList(Arrays.asList(0, 1), Arrays.asList(2, 3), Arrays.asList(4)), chunks);
+    }
+
+    @Test
+    void shouldPropagateFailureOfPersister() {
+        assertThrows(SQLException.class, () -> {
+            try (ChunkedPersister<Integer> persister = new ChunkedPersister<>("test", 1, chunk -> {
+                throw new SQLException("expected");
+            })) {
+                for (int i = 0; i < 100; i++) {
+                    persister.add(i);
+                }
+            }
+        });
+    }
+}
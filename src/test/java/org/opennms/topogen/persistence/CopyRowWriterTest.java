@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+public class CopyRowWriterTest {
+
+    @Test
+    void shouldSeparateColumnsAndRows() {
+        CopyRowWriter writer = new CopyRowWriter(0, 4);
+        writer.writeInt(1);
+        writer.writeString("a");
+        writer.endRow();
+        writer.writeLong(-1234567890123L);
+        writer.writeBoolean(true);
+        writer.endRow();
+        assertEquals("1\ta\n-1234567890123\tt\n", asString(writer));
+    }
+
+    @Test
+    void shouldEscapeSpecialCharacters() {
+        CopyRowWriter writer = new CopyRowWriter(0);
+        writer.writeString("tab\tnewline\nreturn\rbackslash\\");
+        writer.writeString(null);
+        writer.writeString("\u00fcber\t");
+        writer.endRow();
+        assertEquals("tab\\tnewline\\nreturn\\rbackslash\\\\\t\\N\t\u00fcber\\t\n", asString(writer));
+    }
+
+    @Test
+    void shouldQuoteStringsInCsv() {
+        CopyRowWriter writer = new CopyRowWriter(0, 4, CopyFormat.csv);
+        writer.writeInt(1);
+        writer.writeString("say \"hi\", bye");
+        writer.writeString(null);
+        writer.writeString("");
+        writer.endRow();
+        assertEquals("1,\"say \"\"hi\"\", bye\",,\"\"\n", asString(writer));
+    }
+
+    @Test
+    void shouldReuseBufferAfterClear() {
+        CopyRowWriter writer = new CopyRowWriter(0);
+        writer.writeInt(Integer.MIN_VALUE);
+        writer.endRow();
+        writer.clear();
+        writer.writeInt(0);
+        writer.endRow();
+        assertEquals("0\n", asString(writer));
+    }
+
+    private static String asString(CopyRowWriter writer) {
+        return new String(writer.getBuffer(), 0, writer.getLength(), StandardCharsets.UTF_8);
+    }
+}
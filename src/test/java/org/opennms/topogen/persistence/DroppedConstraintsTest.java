@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+public class DroppedConstraintsTest {
+
+    @Test
+    void shouldQuoteConstraintNames() {
+        DroppedConstraints dropped = new DroppedConstraints(null);
+        dropped.addForeignKey("cdplink", "fk_\"node\"", "FOREIGN KEY (nodeid) REFERENCES node(nodeid)");
+        assertEquals(Arrays.asList("ALTER TABLE cdplink DROP CONSTRAINT \"fk_\"\"node\"\"\""),
+                dropped.getDropStatements());
+        assertEquals(Arrays.asList("ALTER TABLE cdplink ADD CONSTRAINT \"fk_\"\"node\"\"\" "
+                + "FOREIGN KEY (nodeid) REFERENCES node(nodeid)"), dropped.getRestoreStatements());
+    }
+
+    @Test
+    void shouldDropForeignKeysFirstAndRestoreIndexesFirst() {
+        DroppedConstraints dropped = new DroppedConstraints(null);
+        dropped.addForeignKey("lldplink", "fk_nodeid", "FOREIGN KEY (nodeid) REFERENCES node(nodeid)");
+        dropped.addIndex("lldplink_nodeid_idx", "CREATE INDEX lldplink_nodeid_idx ON lldplink (nodeid)");
+        dropped.addForeignKey("ipinterface", "fk_snmpinterface",
+                "FOREIGN KEY (snmpinterfaceid) REFERENCES snmpinterface(id)");
+        assertEquals(Arrays.asList(
+                "ALTER TABLE lldplink DROP CONSTRAINT \"fk_nodeid\"",
+                "ALTER TABLE ipinterface DROP CONSTRAINT \"fk_snmpinterface\"",
+                "DROP INDEX lldplink_nodeid_idx"), dropped.getDropStatements());
+        assertEquals(Arrays.asList(
+                "CREATE INDEX lldplink_nodeid_idx ON lldplink (nodeid)",
+                "ALTER TABLE lldplink ADD CONSTRAINT \"fk_nodeid\" FOREIGN KEY (nodeid) REFERENCES node(nodeid)",
+                "ALTER TABLE ipinterface ADD CONSTRAINT \"fk_snmpinterface\" "
+                        + "FOREIGN KEY (snmpinterfaceid) REFERENCES snmpinterface(id)"),
+                dropped.getRestoreStatements());
+    }
+}
@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Scanner;
+
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.Test;
+
+public class LoadMetricsTest {
+
+    @Test
+    void shouldComputePercentilesOfRecentBatches() {
+        LoadMetrics metrics = new LoadMetrics();
+        assertEquals(0.0, metrics.getBatchLatencyP99Millis());
+        for (int i = 1; i <= 100; i++) {
+            metrics.recordBatch(10, i * 1_000_000L);
+        }
+        assertEquals(1000, metrics.getRows());
+        assertEquals(100, metrics.getBatches());
+        assertEquals(50.0, metrics.getBatchLatencyP50Millis());
+        assertEquals(99.0, metrics.getBatchLatencyP99Millis());
+    }
+
+    @Test
+    void shouldKeepOnlyTheMostRecentLatencies() {
+        LoadMetrics.LatencyWindow window = new LoadMetrics.LatencyWindow(4);
+        for (long duration : new long[]{100, 100, 100, 100, 1, 2, 3, 4}) {
+            window.add(duration);
+        }
+        assertEquals(4, window.percentile(0.99));
+        assertEquals(2, window.percentile(0.5));
+        assertEquals(8, window.getCount());
+        assertEquals(410, window.getSum());
+    }
+
+    @Test
+    void shouldRenderPrometheusText() {
+        LoadMetrics metrics = new LoadMetrics();
+        metrics.recordBatch(1000, 2_000_000_000L);
+        String text = metrics.toPrometheus();
+        assertTrue(text.contains("# TYPE topogen_rows_total counter\ntopogen_rows_total 1000\n"), text);
+        assertTrue(text.contains("topogen_batch_latency_seconds{quantile=\"0.99\"} 2.0\n"), text);
+        assertTrue(text.contains("topogen_batch_latency_seconds_count 1\n"), text);
+        assertTrue(text.contains("topogen_pool_wait_seconds_count 0\n"), text);
+    }
+
+    @Test
+    void shouldExposeMetrics() throws Exception {
+        try (LoadMetrics metrics = new LoadMetrics()) {
+            metrics.start(60);
+            metrics.recordBatch(42, 1_000_000L);
+            assertEquals(42L, ManagementFactory.getPlatformMBeanServer()
+                    .getAttribute(new ObjectName(LoadMetrics.OBJECT_NAME), "Rows"));
+            try (MetricsEndpoint endpoint = new MetricsEndpoint(metrics, 0)) {
+                String text = get(new URL("http://localhost:" + endpoint.getPort() + "/metrics"));
+                assertTrue(text.contains("topogen_rows_total 42\n"), text);
+            }
+        }
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(new ObjectName(LoadMetrics.OBJECT_NAME)));
+    }
+
+    private static String get(URL url) throws IOException {
+        try (InputStream in = url.openStream(); Scanner scanner = new Scanner(in, StandardCharsets.UTF_8.name())) {
+            return scanner.useDelimiter("\\A").next();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Test;
+
+public class ParallelLoaderTest {
+
+    private final static Table<Integer> TABLE = new Table<>("test", Collections.singletonList("id"),
+            Collections.singletonList("int4"), RowWriter::writeInt);
+
+    @Test
+    void shouldLoadContiguousPartitions() throws SQLException {
+        List<List<Integer>> partitions = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            Loader loader = new ParallelLoader(new Loader() {
+                @Override
+                public <T> void load(Table<T> table, List<T> elements) {
+                    partitions.add(new ArrayList<>((List<Integer>) elements));
+                }
+            }, executor, 3);
+            loader.load(TABLE, Arrays.asList(1, 2, 3, 4, 5, 6, 7));
+        } finally {
+            executor.shutdown();
+        }
+        partitions.sort(Comparator.comparing(partition -> partition.get(0)));
+        assertEquals(Arrays.asList(Arrays.asList(1, 2, 3), Arrays.asList(4, 5, 6), Arrays.asList(7)), partitions);
+    }
+
+    @Test
+    void shouldReportFailureOfWriter() {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Loader loader = new ParallelLoader(new Loader() {
+                @Override
+                public <T> void load(Table<T> table, List<T> elements) throws SQLException {
+                    throw new SQLException("expected");
+                }
+            }, executor, 2);
+            assertThrows(SQLException.class, () -> loader.load(TABLE, Arrays.asList(1, 2, 3)));
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
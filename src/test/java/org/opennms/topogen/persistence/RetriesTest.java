@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.BatchUpdateException;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+
+import org.junit.jupiter.api.Test;
+
+public class RetriesTest {
+
+    @Test
+    void shouldDetectTransientErrors() {
+        assertTrue(Retries.isTransient(new SQLException("connection reset", "08006")));
+        assertTrue(Retries.isTransient(new SQLException("deadlock", "40P01")));
+        assertTrue(Retries.isTransient(new SQLException("disk full", "53100")));
+        assertTrue(Retries.isTransient(new SQLException("admin shutdown", "57P01")));
+        assertTrue(Retries.isTransient(new SQLTransientConnectionException("timeout")));
+        assertFalse(Retries.isTransient(new SQLException("duplicate key", "23505")));
+        assertFalse(Retries.isTransient(new SQLException("no state")));
+    }
+
+    @Test
+    void shouldDetectTransientErrorOfBatch() {
+        BatchUpdateException e = new BatchUpdateException("batch failed", "", new int[0]);
+        e.setNextException(new SQLException("connection reset", "08006"));
+        assertTrue(Retries.isTransient(e));
+    }
+
+    @Test
+    void shouldRethrowWhenNotTransientOrExhausted() throws SQLException {
+        Retries retries = new Retries(1);
+        SQLException duplicate = new SQLException("duplicate key", "23505");
+        assertSame(duplicate, assertThrows(SQLException.class, () -> retries.beforeRetry(duplicate, 1, "test")));
+        SQLException lost = new SQLException("connection reset", "08006");
+        assertSame(lost, assertThrows(SQLException.class, () -> Retries.NONE.beforeRetry(lost, 1, "test")));
+        assertSame(lost, assertThrows(SQLException.class, () -> retries.beforeRetry(lost, 2, "test")));
+        retries.beforeRetry(lost, 1, "test"); // waits and returns
+    }
+}
@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen.protocol;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.opennms.topogen.CountingTopologySink;
+import org.opennms.topogen.TopologyGenerator;
+import org.opennms.topogen.TopologySettings;
+import org.opennms.topogen.TopologyTables;
+import org.opennms.topogen.ir.LinkRow;
+
+class ProtocolGroupTest {
+
+    @Test
+    void shouldCreateNodesAndInterfacesOnceForAllProtocols() throws SQLException {
+        TopologySettings settings = TopologySettings.builder()
+                .topology(TopologyGenerator.Topology.random)
+                .amountNodes(100)
+                .amountElements(80)
+                .amountLinks(300)
+                .amountSnmpInterfaces(50)
+                .amountIpInterfaces(40)
+                .build();
+        CountingTopologySink sink = new CountingTopologySink();
+        LldpProtocol lldp = new LldpProtocol(settings, sink);
+        CdpProtocol cdp = new CdpProtocol(settings, sink);
+        OspfProtocol ospf = new OspfProtocol(settings, sink);
+        new ProtocolGroup(Arrays.asList(lldp, cdp, ospf)).createAndPersistNetwork();
+
+        assertEquals(100, sink.getRows(Protocol.NODES));
+        assertEquals(50, sink.getRows(TopologyTables.SNMP_INTERFACES));
+        assertEquals(40, sink.getRows(TopologyTables.IP_INTERFACES));
+        assertEquals(80, sink.getRows(lldp.getElementTable()));
+        assertEquals(80, sink.getRows(cdp.getElementTable()));
+        assertEquals(300, sink.getRows(lldp.getLinkTable()));
+        assertEquals(300, sink.getRows(cdp.getLinkTable()));
+        assertEquals(300, sink.getRows(ospf.getLinkTable()));
+        assertEquals(100 + 50 + 40 + 2 * 80 + 3 * 300, sink.getRows());
+    }
+
+    @Test
+    void shouldShareThePortsOfTheNodesAcrossProtocols() throws SQLException {
+        Map<Integer, List<Integer>> ports = createPortsPerNode();
+        assertEquals(ports, createPortsPerNode()); // doesn't depend on the threads
+        for (Map.Entry<Integer, List<Integer>> node : ports.entrySet()) {
+            Set<Integer> distinct = new HashSet<>(node.getValue());
+            assertTrue(distinct.size() == Math.min(16, node.getValue().size()),
+                    "node " + node.getKey() + " uses ports twice although it has free ports: " + node.getValue());
+        }
+    }
+
+    private static Map<Integer, List<Integer>> createPortsPerNode() throws SQLException {
+        TopologySettings settings = TopologySettings.builder()
+                .topology(TopologyGenerator.Topology.random)
+                .amountNodes(20)
+                .amountElements(20)
+                .amountLinks(60)
+                .minInterfacesPerNode(16)
+                .maxInterfacesPerNode(16)
+                .build();
+        CountingTopologySink sink = new CountingTopologySink(1000);
+        LldpProtocol lldp = new LldpProtocol(settings, sink);
+        CdpProtocol cdp = new CdpProtocol(settings, sink);
+        OspfProtocol ospf = new OspfProtocol(settings, sink);
+        new ProtocolGroup(Arrays.asList(lldp, cdp, ospf)).createAndPersistNetwork();
+
+        Map<Integer, List<Integer>> ports = new HashMap<>();
+        for (List<LinkRow> links : Arrays.asList(sink.getRetained(lldp.getLinkTable()),
+                sink.getRetained(cdp.getLinkTable()), sink.getRetained(ospf.getLinkTable()))) {
+            for (LinkRow link : links) {
+                ports.computeIfAbsent(link.getNodeId(), node -> new ArrayList<>()).add(link.getIfIndex());
+            }
+        }
+        return ports;
+    }
+}
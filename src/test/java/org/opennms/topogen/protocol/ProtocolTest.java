@@ -0,0 +1,320 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen.protocol;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.opennms.topogen.CountingTopologySink;
+import org.opennms.topogen.Shard;
+import org.opennms.topogen.TopologyGenerator;
+import org.opennms.topogen.TopologySettings;
+import org.opennms.topogen.TopologyTables;
+import org.opennms.topogen.graph.GraphWriter;
+import org.opennms.topogen.ir.LinkRow;
+import org.opennms.topogen.persistence.RowWriter;
+import org.opennms.topogen.persistence.Table;
+import org.opennms.topogen.util.RandomStreams;
+
+/** The rows derived from the ids must be the same as the ones of the model objects. */
+class ProtocolTest {
+
+    private final static TopologySettings SETTINGS = TopologySettings.builder()
+            .topology(TopologyGenerator.Topology.random)
+            .amountNodes(20)
+            .amountElements(20)
+            .amountLinks(41)
+            .chunkSize(7)
+            .build();
+
+    @Test
+    void shouldWriteCdpRowsLikeTheModel() throws SQLException {
+        CountingTopologySink sink = new CountingTopologySink(100);
+        CdpProtocol protocol = new CdpProtocol(SETTINGS, sink);
+        for (LinkRow link : createLinks(protocol, sink)) {
+            assertEquals(encode(TopologyTables.CDP_LINKS, protocol.toLink(link)), encode(protocol.getLinkTable(), link));
+        }
+        for (int id = 0; id < 20; id++) {
+            assertEquals(encode(TopologyTables.NODES, protocol.toNode(id)), encode(Protocol.NODES, id));
+            assertEquals(encode(TopologyTables.CDP_ELEMENTS, protocol.toElement(id)),
+                    encode(protocol.getElementTable(), id));
+        }
+    }
+
+    @Test
+    void shouldWriteIsIsRowsLikeTheModel() throws SQLException {
+        CountingTopologySink sink = new CountingTopologySink(100);
+        IsIsProtocol protocol = new IsIsProtocol(SETTINGS, sink);
+        for (LinkRow link : createLinks(protocol, sink)) {
+            assertEquals(encode(TopologyTables.ISIS_LINKS, protocol.toLink(link)), encode(protocol.getLinkTable(), link));
+        }
+        for (int id = 0; id < 20; id++) {
+            assertEquals(encode(TopologyTables.ISIS_ELEMENTS, protocol.toElement(id)),
+                    encode(protocol.getElementTable(), id));
+        }
+    }
+
+    @Test
+    void shouldWriteLldpRowsLikeTheModel() throws SQLException {
+        CountingTopologySink sink = new CountingTopologySink(100);
+        LldpProtocol protocol = new LldpProtocol(SETTINGS, sink);
+        for (LinkRow link : createLinks(protocol, sink)) {
+            assertEquals(encode(TopologyTables.LLDP_LINKS, protocol.toLink(link)), encode(protocol.getLinkTable(), link));
+        }
+        for (int id = 0; id < 20; id++) {
+            assertEquals(encode(TopologyTables.LLDP_ELEMENTS, protocol.toElement(id)),
+                    encode(protocol.getElementTable(), id));
+        }
+    }
+
+    @Test
+    void shouldWriteOspfRowsLikeTheModel() throws SQLException {
+        CountingTopologySink sink = new CountingTopologySink(100);
+        OspfProtocol protocol = new OspfProtocol(SETTINGS, sink);
+        for (LinkRow link : createLinks(protocol, sink)) {
+            assertEquals(encode(TopologyTables.OSPF_LINKS, protocol.toLink(link)), encode(protocol.getLinkTable(), link));
+        }
+    }
+
+    @Test
+    void shouldCreateLinksThatReferenceEachOther() throws SQLException {
+        CountingTopologySink sink = new CountingTopologySink(100);
+        List<LinkRow> links = createLinks(new CdpProtocol(SETTINGS, sink), sink);
+        assertEquals(42, links.size()); // always pairs
+        for (int i = 0; i < links.size(); i += 2) {
+            LinkRow source = links.get(i);
+            LinkRow target = links.get(i + 1);
+            assertEquals(i, source.getId());
+            assertEquals(target.getId(), source.getRemoteId());
+            assertEquals(source.getId(), target.getRemoteId());
+            assertEquals(source.getNodeId(), target.getRemoteNodeId());
+            assertEquals(target.getNodeId(), source.getRemoteNodeId());
+        }
+    }
+
+    @Test
+    void shouldCreateSameLinksAsTheGraphExportAcrossBlocks() throws SQLException, IOException {
+        TopologySettings settings = TopologySettings.builder()
+                .topology(TopologyGenerator.Topology.random)
+                .amountNodes(1000)
+                .amountElements(1000)
+                .amountLinks(3 * RandomStreams.BLOCK_SIZE + 1) // the pairs span 2 blocks
+                .chunkSize(10_000)
+                .build();
+        CountingTopologySink sink = new CountingTopologySink(Integer.MAX_VALUE);
+        CdpProtocol protocol = new CdpProtocol(settings, sink);
+        List<LinkRow> links = createLinks(protocol, sink);
+        CountingTopologySink otherSink = new CountingTopologySink(Integer.MAX_VALUE);
+        CdpProtocol other = new CdpProtocol(settings, otherSink);
+        List<LinkRow> otherLinks = createLinks(other, otherSink);
+
+        List<int[]> edges = new ArrayList<>();
+        protocol.exportGraph(new GraphWriter() {
+            @Override
+            public void start(int vertices, long amountEdges) {
+            }
+
+            @Override
+            public void edge(int source, int target) {
+                edges.add(new int[]{source, target});
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+        assertEquals(2 * edges.size(), links.size());
+        for (int i = 0; i < links.size(); i++) {
+            assertEquals(i, links.get(i).getId()); // in order
+            assertEquals(otherLinks.get(i).getNodeId(), links.get(i).getNodeId());
+            assertEquals(otherLinks.get(i).getRemoteNodeId(), links.get(i).getRemoteNodeId());
+            assertEquals(edges.get(i / 2)[i % 2], links.get(i).getNodeId());
+        }
+    }
+
+    @Test
+    void shouldCreateTheSameTopologyInShards() throws SQLException {
+        TopologySettings.TopologySettingsBuilder settings = TopologySettings.builder()
+                .topology(TopologyGenerator.Topology.random)
+                .amountNodes(20)
+                .amountElements(17)
+                .amountLinks(41)
+                .amountSnmpInterfaces(13)
+                .amountIpInterfaces(11)
+                .chunkSize(7);
+        CountingTopologySink sink = new CountingTopologySink(1000);
+        CdpProtocol whole = new CdpProtocol(settings.build(), sink);
+        whole.createAndPersistNetwork();
+
+        CountingTopologySink shardSink = new CountingTopologySink(1000);
+        for (int index = 1; index <= 3; index++) {
+            CdpProtocol shard = new CdpProtocol(settings.shard(new Shard(index, 3)).build(), shardSink);
+            shard.createAndPersistNetwork();
+        }
+        assertEquals(sink.getRows(), shardSink.getRows());
+        assertEquals(encodeAll(Protocol.NODES, sink), encodeAll(Protocol.NODES, shardSink));
+        assertEquals(encodeAll(whole.getElementTable(), sink), encodeAll(whole.getElementTable(), shardSink));
+        assertEquals(encodeAll(whole.getLinkTable(), sink), encodeAll(whole.getLinkTable(), shardSink));
+        assertEquals(encodeAll(TopologyTables.SNMP_INTERFACES, sink), encodeAll(TopologyTables.SNMP_INTERFACES, shardSink));
+        assertEquals(encodeAll(TopologyTables.IP_INTERFACES, sink), encodeAll(TopologyTables.IP_INTERFACES, shardSink));
+    }
+
+    @Test
+    void shouldConnectLinksToPortsOfTheInterfaces() throws SQLException {
+        TopologySettings.TopologySettingsBuilder settings = TopologySettings.builder()
+                .topology(TopologyGenerator.Topology.random)
+                .amountNodes(20)
+                .amountElements(20)
+                .amountLinks(41)
+                .amountIpInterfaces(50)
+                .minInterfacesPerNode(4)
+                .maxInterfacesPerNode(8)
+                .chunkSize(7);
+        CountingTopologySink sink = new CountingTopologySink(1000);
+        LldpProtocol protocol = new LldpProtocol(settings.build(), sink);
+        protocol.createAndPersistNetwork();
+
+        List<Integer> snmpInterfaces = sink.getRetained(protocol.getSnmpInterfaceTable());
+        assertEquals(protocol.getAmountInterfaces(), snmpInterfaces.size());
+        for (int id : snmpInterfaces) {
+            assertEquals(encode(TopologyTables.SNMP_INTERFACES, protocol.toSnmpInterface(id)),
+                    encode(protocol.getSnmpInterfaceTable(), id));
+        }
+        List<Integer> ipInterfaces = sink.getRetained(protocol.getIpInterfaceTable());
+        assertEquals(50, ipInterfaces.size());
+        for (int id : ipInterfaces) {
+            assertEquals(encode(TopologyTables.IP_INTERFACES, protocol.toIpInterface(id)),
+                    encode(protocol.getIpInterfaceTable(), id));
+        }
+
+        Map<Integer, Set<Integer>> usedPorts = new HashMap<>();
+        List<LinkRow> links = sink.getRetained(protocol.getLinkTable());
+        for (int i = 0; i < links.size(); i += 2) {
+            LinkRow source = links.get(i);
+            LinkRow target = links.get(i + 1);
+            assertEquals(source.getIfIndex(), target.getRemoteIfIndex());
+            assertEquals(target.getIfIndex(), source.getRemoteIfIndex());
+        }
+        for (LinkRow link : links) {
+            assertEquals(encode(TopologyTables.LLDP_LINKS, protocol.toLink(link)), encode(protocol.getLinkTable(), link));
+            assertTrue(link.getIfIndex() >= 1 && link.getIfIndex() <= 8);
+            Set<Integer> ports = usedPorts.computeIfAbsent(link.getNodeId(), node -> new HashSet<>());
+            if (ports.size() < 4) { // a node has at least 4 free ports
+                assertTrue(ports.add(link.getIfIndex()), "port used twice: " + link.getIfIndex());
+            }
+        }
+
+        // the shards assign the same ports
+        CountingTopologySink shardSink = new CountingTopologySink(1000);
+        for (int index = 1; index <= 3; index++) {
+            new LldpProtocol(settings.shard(new Shard(index, 3)).build(), shardSink).createAndPersistNetwork();
+        }
+        assertEquals(encodeAll(protocol.getLinkTable(), sink), encodeAll(protocol.getLinkTable(), shardSink));
+        assertEquals(encodeAll(protocol.getSnmpInterfaceTable(), sink),
+                encodeAll(protocol.getSnmpInterfaceTable(), shardSink));
+        assertEquals(encodeAll(protocol.getIpInterfaceTable(), sink), encodeAll(protocol.getIpInterfaceTable(), shardSink));
+    }
+
+    /** the encoded rows of the table in any order */
+    private static <T> Set<List<String>> encodeAll(Table<T> table, CountingTopologySink sink) throws SQLException {
+        Set<List<String>> rows = new HashSet<>();
+        for (T row : sink.getRetained(table)) {
+            rows.add(encode(table, row));
+        }
+        assertEquals(sink.getRows(table), rows.size()); // no duplicates
+        return rows;
+    }
+
+    private static List<LinkRow> createLinks(Protocol<?> protocol, CountingTopologySink sink) throws SQLException {
+        protocol.createAndPersistProtocolSpecificEntities();
+        return sink.getRetained(protocol.getLinkTable());
+    }
+
+    /** the columns as text, all timestamps are the same */
+    /** encodes the row as strings, every value has to fit the type its table declares for the column */
+    private static <T> List<String> encode(Table<T> table, T row) throws SQLException {
+        List<String> columns = new ArrayList<>();
+        table.getEncoder().accept(new RowWriter() {
+            @Override
+            public void writeInt(int value) {
+                add(Integer.toString(value), "int4", "int8");
+            }
+
+            @Override
+            public void writeLong(long value) {
+                add(Long.toString(value), "int8");
+            }
+
+            @Override
+            public void writeBoolean(boolean value) {
+                add(Boolean.toString(value), "bool");
+            }
+
+            @Override
+            public void writeString(String value) {
+                add(value, "text");
+            }
+
+            @Override
+            public void writeTimestamp(long epochMillis) {
+                add("timestamp", "timestamp");
+            }
+
+            @Override
+            public void writeNow() {
+                add("timestamp", "timestamp");
+            }
+
+            @Override
+            public void writeNull(int sqlType) {
+                columns.add(null);
+            }
+
+            private void add(String value, String... types) {
+                String declared = table.getTypes().get(columns.size());
+                assertTrue(Arrays.asList(types).contains(declared),
+                        table.getName() + "." + table.getColumns().get(columns.size()) + " is declared " + declared);
+                columns.add(value);
+            }
+        }, row);
+        assertEquals(table.getColumns().size(), columns.size());
+        return columns;
+    }
+}
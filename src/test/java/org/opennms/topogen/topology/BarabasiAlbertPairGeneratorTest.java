@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen.topology;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+public class BarabasiAlbertPairGeneratorTest {
+
+    @Test
+    void shouldRejectInvalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> new BarabasiAlbertPairGenerator<>(Collections.emptyList(), 1));
+        assertThrows(IllegalArgumentException.class, () -> new BarabasiAlbertPairGenerator<>(Arrays.asList(1, 2), 0));
+    }
+
+    @Test
+    void shouldAttachEveryElementToEarlierOnes() {
+        int size = 1000;
+        int edgesPerElement = 3;
+        BarabasiAlbertPairGenerator<Integer> generator = new BarabasiAlbertPairGenerator<>(createList(size), edgesPerElement);
+        // 1 + 2 edges for the elements 1 and 2, 3 for every other element
+        int amountEdges = 1 + 2 + (size - 3) * edgesPerElement;
+        int[] degrees = new int[size];
+        Set<String> edges = new HashSet<>();
+        int[] pair = new int[2];
+        for (int i = 0; i < amountEdges; i++) {
+            generator.nextInto(pair);
+            assertTrue(pair[1] < pair[0], "new element must connect to an earlier one");
+            assertTrue(edges.add(pair[0] + "-" + pair[1]), "duplicate edge");
+            degrees[pair[0]]++;
+            degrees[pair[1]]++;
+        }
+        for (int degree : degrees) {
+            assertTrue(degree >= Math.min(edgesPerElement, 1));
+        }
+        // preferential attachment => hubs with a degree way above the average of 6
+        assertTrue(Arrays.stream(degrees).max().getAsInt() > 30);
+
+        // it goes on with the existing elements
+        generator.nextInto(pair);
+        assertNotEquals(pair[0], pair[1]);
+    }
+
+    @Test
+    void shouldWorkWithTwoElements() {
+        BarabasiAlbertPairGenerator<Integer> generator = new BarabasiAlbertPairGenerator<>(createList(2), 5);
+        int[] pair = new int[2];
+        for (int i = 0; i < 3; i++) {
+            generator.nextInto(pair);
+            assertEquals(1, pair[0] + pair[1]);
+        }
+    }
+
+    private static List<Integer> createList(int size) {
+        List<Integer> list = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            list.add(i);
+        }
+        return list;
+    }
+}
@@ -28,12 +28,14 @@
 
 package org.opennms.topogen.topology;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.SplittableRandom;
 
 import org.apache.commons.lang3.tuple.Pair;
 import org.junit.jupiter.api.Test;
@@ -58,4 +60,18 @@ public class LinkedPairGeneratorTest {
         assertEquals(Pair.of("1", "2"), gen.next());
         assertEquals(Pair.of("2", "3"), gen.next());
     }
+
+    @Test
+    void shouldStartRangesAtAnyPosition() {
+        List<String> list = Arrays.asList("1", "2", "3", "4", "5");
+        LinkedPairGenerator<String> gen = new LinkedPairGenerator<>(list);
+        int[] expected = new int[2];
+        int[] actual = new int[2];
+        for (long position = 0; position < 25; position++) {
+            gen.nextInto(expected);
+            IndexPairGenerator range = gen.range(position, new SplittableRandom(position));
+            range.nextInto(actual);
+            assertArrayEquals(expected, actual);
+        }
+    }
 }
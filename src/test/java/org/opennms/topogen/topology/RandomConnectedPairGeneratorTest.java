@@ -28,12 +28,16 @@
 
 package org.opennms.topogen.topology;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.SplittableRandom;
 
 import org.apache.commons.lang3.tuple.Pair;
 import org.junit.jupiter.api.Test;
@@ -63,4 +67,34 @@ public class RandomConnectedPairGeneratorTest {
         }
     }
 
+    @Test
+    void shouldNotPairPositionWithItself() {
+        List<String> list = Arrays.asList("same", "same", "same");
+        RandomConnectedPairGenerator<String> generator = new RandomConnectedPairGenerator<>(list, false);
+        int[] pair = new int[2];
+        boolean[] seenRight = new boolean[list.size()];
+        for (int i = 0; i < 100; i++) {
+            generator.nextInto(pair);
+            assertNotEquals(pair[0], pair[1]);
+            seenRight[pair[1]] = true;
+        }
+        for (boolean seen : seenRight) {
+            assertTrue(seen);
+        }
+    }
+
+    @Test
+    void shouldCreateSameRangeForSameRandom() {
+        List<Integer> list = Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+        RandomConnectedPairGenerator<Integer> generator = new RandomConnectedPairGenerator<>(list);
+        IndexPairGenerator range = generator.range(1000, new SplittableRandom(7));
+        IndexPairGenerator sameRange = generator.range(1000, new SplittableRandom(7));
+        int[] pair = new int[2];
+        int[] samePair = new int[2];
+        for (int i = 0; i < 100; i++) {
+            range.nextInto(pair);
+            sameRange.nextInto(samePair);
+            assertArrayEquals(pair, samePair);
+        }
+    }
 }
@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen.topology;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+public class RandomSimplePairGeneratorTest {
+
+    @Test
+    void shouldRejectListsWithLessThan2Elements() {
+        assertThrows(IllegalArgumentException.class, () -> new RandomSimplePairGenerator<>(null));
+        assertThrows(IllegalArgumentException.class, () -> new RandomSimplePairGenerator<>(Collections.emptyList()));
+    }
+
+    @Test
+    void shouldUseEveryEdgeExactlyOnceBeforeStartingOver() {
+        int size = 50;
+        RandomSimplePairGenerator<Integer> generator = new RandomSimplePairGenerator<>(createList(size));
+        int amountEdges = size * (size - 1) / 2;
+        for (int round = 0; round < 2; round++) {
+            Set<String> edges = new HashSet<>();
+            int[] pair = new int[2];
+            for (int i = 0; i < amountEdges; i++) {
+                generator.nextInto(pair);
+                assertNotEquals(pair[0], pair[1]);
+                String edge = Math.min(pair[0], pair[1]) + "-" + Math.max(pair[0], pair[1]);
+                assertTrue(edges.add(edge), "duplicate edge " + edge);
+            }
+            assertEquals(amountEdges, edges.size());
+        }
+    }
+
+    @Test
+    void shouldWorkWithTwoElements() {
+        RandomSimplePairGenerator<Integer> generator = new RandomSimplePairGenerator<>(createList(2));
+        for (int i = 0; i < 5; i++) {
+            int[] pair = new int[2];
+            generator.nextInto(pair);
+            assertEquals(1, pair[0] + pair[1]);
+        }
+    }
+
+    private static List<Integer> createList(int size) {
+        List<Integer> list = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            list.add(i);
+        }
+        return list;
+    }
+}
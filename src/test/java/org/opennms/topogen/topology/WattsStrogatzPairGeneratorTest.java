@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen.topology;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.jupiter.api.Test;
+
+public class WattsStrogatzPairGeneratorTest {
+
+    @Test
+    void shouldRejectInvalidParameters() {
+        List<String> list = Arrays.asList("1", "2", "3");
+        assertThrows(IllegalArgumentException.class, () -> new WattsStrogatzPairGenerator<>(list, 0, 0.1));
+        assertThrows(IllegalArgumentException.class, () -> new WattsStrogatzPairGenerator<>(list, 1, 1.5));
+    }
+
+    @Test
+    void shouldProduceRingLatticeWithoutRewiring() {
+        List<String> list = Arrays.asList("1", "2", "3", "4", "5");
+        WattsStrogatzPairGenerator<String> gen = new WattsStrogatzPairGenerator<>(list, 2, 0);
+        // ring first
+        assertEquals(Pair.of("1", "2"), gen.next());
+        assertEquals(Pair.of("2", "3"), gen.next());
+        assertEquals(Pair.of("3", "4"), gen.next());
+        assertEquals(Pair.of("4", "5"), gen.next());
+        assertEquals(Pair.of("5", "1"), gen.next());
+        // then the next neighbours
+        assertEquals(Pair.of("1", "3"), gen.next());
+        assertEquals(Pair.of("2", "4"), gen.next());
+        assertEquals(Pair.of("3", "5"), gen.next());
+        assertEquals(Pair.of("4", "1"), gen.next());
+        assertEquals(Pair.of("5", "2"), gen.next());
+        // and it starts from the beginning again:
+        assertEquals(Pair.of("1", "2"), gen.next());
+    }
+
+    @Test
+    void shouldStartRangesAtAnyPosition() {
+        List<String> list = Arrays.asList("1", "2", "3", "4", "5");
+        WattsStrogatzPairGenerator<String> gen = new WattsStrogatzPairGenerator<>(list, 2, 0);
+        int[] expected = new int[2];
+        int[] actual = new int[2];
+        for (long position = 0; position < 25; position++) {
+            gen.nextInto(expected);
+            IndexPairGenerator range = gen.range(position, new SplittableRandom(position));
+            range.nextInto(actual);
+            assertArrayEquals(expected, actual);
+        }
+    }
+
+    @Test
+    void shouldRewireWithoutSelfLoopsAndDuplicates() {
+        int size = 1000;
+        int edgesPerElement = 4;
+        WattsStrogatzPairGenerator<Integer> generator = new WattsStrogatzPairGenerator<>(createList(size), edgesPerElement, 1.0);
+        Set<String> edges = new HashSet<>();
+        int[] pair = new int[2];
+        for (int i = 0; i < size * edgesPerElement; i++) {
+            generator.nextInto(pair);
+            assertNotEquals(pair[0], pair[1]);
+            String edge = Math.min(pair[0], pair[1]) + "-" + Math.max(pair[0], pair[1]);
+            assertTrue(edges.add(edge), "duplicate edge " + edge);
+        }
+    }
+
+    private static List<Integer> createList(int size) {
+        List<Integer> list = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            list.add(i);
+        }
+        return list;
+    }
+}
@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+public class IdentifierGeneratorTest {
+
+    @Test
+    void shouldCreateWellFormedIdentifiers() {
+        IdentifierGenerator sequential = IdentifierGenerator.sequential();
+        assertEquals("Port00000000000000ff", sequential.portId(255));
+        assertEquals("Chassis0000000000000001", sequential.chassisId(1));
+        assertEquals("02:00:00:00:01:0a", sequential.macAddress(266));
+        assertTrue(IdentifierGenerator.seeded(42).macAddress(266).matches("02(:[0-9a-f]{2}){5}"));
+        assertThrows(IllegalArgumentException.class, () -> sequential.macAddress(1L << 40));
+    }
+
+    @Test
+    void shouldCreateUniqueIdentifiers() {
+        IdentifierGenerator generator = IdentifierGenerator.seeded(42);
+        Set<String> ports = new HashSet<>();
+        Set<String> macs = new HashSet<>();
+        for (long i = 0; i < 100_000; i++) {
+            assertTrue(ports.add(generator.portId(i)));
+            assertTrue(macs.add(generator.macAddress(i)));
+        }
+        // a second worker creates the same identifiers for the same ids
+        assertEquals(generator.portId(7), IdentifierGenerator.seeded(42).portId(7));
+        assertNotEquals(generator.portId(7), IdentifierGenerator.seeded(43).portId(7));
+    }
+}
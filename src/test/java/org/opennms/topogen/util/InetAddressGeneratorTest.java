@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.common.net.InetAddresses;
+
+public class InetAddressGeneratorTest {
+
+    @Test
+    void shouldHandOutAddressesOfPool() {
+        InetAddressGenerator generator = new InetAddressGenerator("10.1.2.3/30");
+        assertEquals(InetAddresses.forString("10.1.2.1"), generator.next());
+        assertEquals(InetAddresses.forString("10.1.2.2"), generator.next());
+        assertEquals(InetAddresses.forString("10.1.2.3"), generator.next());
+        assertThrows(IllegalStateException.class, generator::next);
+        assertEquals("10.1.2.2", generator.format(2));
+    }
+
+    @Test
+    void shouldCreatePointToPointSubnets() {
+        InetAddressGenerator generator = new InetAddressGenerator("10.0.0.0/8");
+        assertEquals("10.0.1.44", generator.format(generator.pointToPoint(150, 31)));
+        assertEquals("10.0.2.89", generator.format(generator.pointToPoint(150, 30)));
+        assertEquals("10.0.2.90", generator.format(generator.pointToPoint(150, 30) + 1));
+        assertEquals(InetAddresses.forString("255.255.255.252"), generator.netmask(30));
+        assertThrows(IllegalArgumentException.class, () -> generator.pointToPoint(0, 29));
+        assertThrows(IllegalStateException.class, () -> generator.pointToPoint(1 << 23, 31));
+        assertEquals(1 << 23, generator.getAmountPointToPoint(31));
+        assertEquals(1 << 22, generator.getAmountPointToPoint(30));
+        assertEquals(1 << 24, generator.getCapacity());
+    }
+
+    @Test
+    void shouldSupportIpv6() {
+        InetAddressGenerator generator = new InetAddressGenerator("fd00::/64");
+        assertEquals("fd00::12c", generator.format(generator.pointToPoint(150, 127)));
+        assertEquals(InetAddresses.forString("fd00::1"), generator.next());
+    }
+
+    @Test
+    void shouldRejectInvalidPools() {
+        assertThrows(IllegalArgumentException.class, () -> new InetAddressGenerator("10.0.0.0"));
+        assertThrows(IllegalArgumentException.class, () -> new InetAddressGenerator("10.0.0.0/33"));
+        assertThrows(IllegalArgumentException.class, () -> new InetAddressGenerator("10.0.0/8"));
+    }
+}
@@ -0,0 +1,59 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class LongHashSetTest {
+
+    @Test
+    void shouldAddAndContainValues() {
+        LongHashSet set = new LongHashSet();
+        for (long i = 0; i < 10_000; i++) {
+            assertTrue(set.add(i << 32 | (i * 7)));
+        }
+        assertEquals(10_000, set.size());
+        for (long i = 0; i < 10_000; i++) {
+            assertTrue(set.contains(i << 32 | (i * 7)));
+            assertFalse(set.add(i << 32 | (i * 7)));
+        }
+        assertFalse(set.contains(1));
+        assertEquals(10_000, set.size());
+    }
+
+    @Test
+    void shouldRejectNegativeValues() {
+        assertThrows(IllegalArgumentException.class, () -> new LongHashSet().add(-1));
+    }
+}
@@ -0,0 +1,70 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class PhasesTest {
+
+    @BeforeEach
+    void reset() {
+        Phases.reset();
+    }
+
+    @Test
+    void shouldMeasureCallsAndRows() throws InterruptedException {
+        Phases.start(Phases.Phase.EXECUTION).stop(1000);
+        Phases.Timer timer = Phases.start(Phases.Phase.EXECUTION);
+        Thread.sleep(20);
+        timer.stop(500);
+        assertEquals(2, Phases.getCalls(Phases.Phase.EXECUTION));
+        assertEquals(1500, Phases.getRows(Phases.Phase.EXECUTION));
+        assertTrue(Phases.getLatency(Phases.Phase.EXECUTION, 100) >= TimeUnit.MILLISECONDS.toNanos(20));
+        assertEquals(0, Phases.getCalls(Phases.Phase.COMMIT));
+    }
+
+    @Test
+    void shouldListOnlyMeasuredPhasesInSummary() {
+        Phases.start(Phases.Phase.NODES).stop(10);
+        String summary = Phases.summary();
+        assertTrue(summary.startsWith("phase"));
+        assertTrue(summary.contains("nodes"));
+        assertFalse(summary.contains("commit"));
+
+        Phases.reset();
+        assertEquals(0, Phases.getCalls(Phases.Phase.NODES));
+    }
+}
@@ -0,0 +1,64 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2018 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2018 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.topogen.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import org.junit.jupiter.api.Test;
+
+public class RandomStreamsTest {
+
+    @Test
+    void shouldCreateSameValuesForSameSeed() {
+        assertEquals(new RandomStreams(7).stream(RandomStreams.Purpose.PAIRS).nextLong(),
+                new RandomStreams(7).stream(RandomStreams.Purpose.PAIRS).nextLong());
+        assertNotEquals(new RandomStreams(7).stream(RandomStreams.Purpose.PAIRS).nextLong(),
+                new RandomStreams(8).stream(RandomStreams.Purpose.PAIRS).nextLong());
+        assertNotEquals(new RandomStreams(7).stream(RandomStreams.Purpose.PAIRS).nextLong(),
+                new RandomStreams(7).stream(RandomStreams.Purpose.LINKS).nextLong());
+    }
+
+    @Test
+    void shouldNotDependOnOrderOfBlocks() {
+        RandomStreams streams = new RandomStreams(42);
+        long[] forward = new long[3 * RandomStreams.BLOCK_SIZE];
+        RandomStreams.Cursor cursor = streams.cursor(RandomStreams.Purpose.LINKS);
+        for (int i = 0; i < forward.length; i++) {
+            forward[i] = cursor.at(i).nextLong();
+        }
+        // e.g. another thread starts with the last block
+        RandomStreams.Cursor other = streams.cursor(RandomStreams.Purpose.LINKS);
+        for (int block = 2; block >= 0; block--) {
+            for (int i = block * RandomStreams.BLOCK_SIZE; i < (block + 1) * RandomStreams.BLOCK_SIZE; i++) {
+                assertEquals(forward[i], other.at(i).nextLong());
+            }
+        }
+    }
+}